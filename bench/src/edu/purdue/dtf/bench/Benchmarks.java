@@ -0,0 +1,19 @@
+package edu.purdue.dtf.bench;
+
+/**
+ * Runs the benchmarks. With no arguments every benchmark runs with the GC
+ * profiler, so allocation per operation is reported next to the timings;
+ * otherwise the arguments are passed to JMH as they are, for example a
+ * benchmark name pattern or -h for JMH's own help.
+ */
+public final class Benchmarks {
+
+	private Benchmarks() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		if (args.length == 0)
+			args = new String[] { "-prof", "gc" };
+		org.openjdk.jmh.Main.main(args);
+	}
+}
@@ -0,0 +1,161 @@
+package edu.purdue.dtf.bench;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.purdue.dtf.game.Board;
+import edu.purdue.dtf.game.Move;
+import edu.purdue.dtf.game.MoveGenerator;
+import edu.purdue.dtf.game.Position;
+import edu.purdue.dtf.game.UndoRecord;
+
+/**
+ * Times the everyday Board operations on the standard layout: loading it,
+ * checking moves, passing the turn and checking for a winner.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+
+	private byte[] layout;
+
+	// The same layout in the binary format.
+	private byte[] binaryLayout;
+
+	// Reloaded by setFromStream and setFromLayout.
+	private Board scratch;
+
+	// The standard opening position.
+	private Board board;
+
+	// Every step from a square to an orthogonal neighbour, by position and
+	// by index.
+	private Position[] from;
+	private Position[] to;
+	private int[] fromIndex;
+	private int[] toIndex;
+
+	// A position with one action left in gold's turn, and that action.
+	private Board lastAction;
+	private int endTurn;
+
+	@Setup
+	public void setUp() throws IOException {
+		layout = Layouts.read("board");
+		scratch = new Board(Layouts.WIDTH, Layouts.HEIGHT);
+		board = Layouts.load("board");
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		board.writeLayout(bytes);
+		binaryLayout = bytes.toByteArray();
+
+		List<int[]> steps = new ArrayList<int[]>();
+		for (int y = 0; y < board.getHeight(); ++y) {
+			for (int x = 0; x < board.getWidth(); ++x) {
+				int[][] offsets = { { 0, -1 }, { 1, 0 }, { 0, 1 }, { -1, 0 } };
+				for (int[] d : offsets)
+					if (board.isOnBoard(x + d[0], y + d[1]))
+						steps.add(new int[] { x, y, x + d[0], y + d[1] });
+			}
+		}
+		from = new Position[steps.size()];
+		to = new Position[steps.size()];
+		fromIndex = new int[steps.size()];
+		toIndex = new int[steps.size()];
+		for (int k = 0; k < steps.size(); ++k) {
+			int[] s = steps.get(k);
+			from[k] = Position.valueOf(s[0], s[1]);
+			to[k] = Position.valueOf(s[2], s[3]);
+			fromIndex[k] = board.index(from[k]);
+			toIndex[k] = board.index(to[k]);
+		}
+
+		// use up all but one action with rotations, which change the least
+		lastAction = new Board(board);
+		MoveGenerator generator = new MoveGenerator();
+		int[] moves = new int[MoveGenerator.MAX_MOVES];
+		while (lastAction.getMovesRemaining() > 1)
+			lastAction.make(firstRotation(lastAction, generator, moves));
+		endTurn = firstRotation(lastAction, generator, moves);
+	}
+
+	private static int firstRotation(Board board, MoveGenerator generator,
+			int[] moves) {
+		int n = generator.generate(board, moves);
+		for (int k = 0; k < n; ++k)
+			if (Move.kind(moves[k]) == Move.ROTATE)
+				return moves[k];
+		throw new IllegalStateException("no rotation in the layout");
+	}
+
+	@Benchmark
+	public Board setFromStream() throws IOException {
+		scratch.setFromStream(new ByteArrayInputStream(layout));
+		return scratch;
+	}
+
+	@Benchmark
+	public Board setFromLayout() throws IOException {
+		scratch.setFromLayout(new ByteArrayInputStream(binaryLayout));
+		return scratch;
+	}
+
+	/**
+	 * Checks every orthogonal step on the board, by Position.
+	 */
+	@Benchmark
+	public int isValidMove() {
+		int valid = 0;
+		for (int k = 0; k < from.length; ++k)
+			if (board.isValidMove(from[k], to[k]))
+				++valid;
+		return valid;
+	}
+
+	/**
+	 * Checks every orthogonal step on the board, by square index.
+	 */
+	@Benchmark
+	public int isValidMoveIndex() {
+		int valid = 0;
+		for (int k = 0; k < fromIndex.length; ++k)
+			if (board.isValidMove(fromIndex[k], toIndex[k]))
+				++valid;
+		return valid;
+	}
+
+	/**
+	 * Plays the last action of a turn, which passes it to the other player
+	 * and updates every piece's counters, and takes it back.
+	 */
+	@Benchmark
+	public long nextPlayer() {
+		UndoRecord u = lastAction.make(endTurn);
+		long key = lastAction.getKey();
+		lastAction.unmake(u);
+		return key;
+	}
+
+	@Benchmark
+	public String getWinner() {
+		return board.getWinner();
+	}
+}
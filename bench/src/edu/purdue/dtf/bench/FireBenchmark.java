@@ -0,0 +1,189 @@
+package edu.purdue.dtf.bench;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.purdue.dtf.game.Board;
+import edu.purdue.dtf.game.BoardEventListener;
+import edu.purdue.dtf.game.BoardEvents;
+import edu.purdue.dtf.game.BoardListener;
+import edu.purdue.dtf.game.Direction;
+import edu.purdue.dtf.game.Move;
+import edu.purdue.dtf.game.MoveGenerator;
+import edu.purdue.dtf.game.Position;
+import edu.purdue.dtf.game.Projectile;
+import edu.purdue.dtf.game.Rotation;
+import edu.purdue.dtf.game.UndoRecord;
+
+/**
+ * Times firing on the bank shot layout, using the shot with the most
+ * reflector bounces gold can make there. Firing with a BoardListener
+ * attached includes building the path lists the view animates; with an
+ * event listener the shot is delivered as one batch of primitive records.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FireBenchmark {
+
+	private Board board;
+	private Board watched;
+	private Board batched;
+	private EventCounter counter;
+	private int shot;
+
+	@Setup
+	public void setUp() throws IOException {
+		board = Layouts.load("boardbankshot");
+		watched = new Board(board);
+		watched.addBoardListener(new NullListener());
+		batched = new Board(board);
+		counter = new EventCounter();
+		batched.addEventListener(counter, BoardEvents.ALL);
+
+		// pick the legal shot whose path has the most legs
+		Board probe = new Board(board);
+		LegCounter legs = new LegCounter();
+		probe.addBoardListener(legs);
+		int[] moves = new int[MoveGenerator.MAX_MOVES];
+		int n = new MoveGenerator().generate(board, moves);
+		int most = -1;
+		for (int k = 0; k < n; ++k) {
+			if (Move.kind(moves[k]) != Move.FIRE)
+				continue;
+			UndoRecord u = probe.make(moves[k]);
+			probe.unmake(u);
+			if (legs.count > most) {
+				most = legs.count;
+				shot = moves[k];
+			}
+		}
+		if (most < 0)
+			throw new IllegalStateException("no shot in the layout");
+	}
+
+	/**
+	 * Finds what the shot would hit without firing it.
+	 */
+	@Benchmark
+	public int traceShot() {
+		return board.traceShot(Move.from(shot));
+	}
+
+	/**
+	 * Fires and takes it back, as the AI does.
+	 */
+	@Benchmark
+	public long fire() {
+		UndoRecord u = board.make(shot);
+		long key = board.getKey();
+		board.unmake(u);
+		return key;
+	}
+
+	/**
+	 * Fires and takes it back with a listener attached, so the path is built.
+	 */
+	@Benchmark
+	public long fireWithListener() {
+		UndoRecord u = watched.make(shot);
+		long key = watched.getKey();
+		watched.unmake(u);
+		return key;
+	}
+
+	/**
+	 * Fires and takes it back with an event listener taking every event,
+	 * legs included.
+	 */
+	@Benchmark
+	public int fireWithEvents() {
+		UndoRecord u = batched.make(shot);
+		batched.unmake(u);
+		return counter.count;
+	}
+
+	/**
+	 * Counts the events delivered.
+	 */
+	static final class EventCounter implements BoardEventListener {
+		int count;
+
+		public void onBoardEvents(BoardEvents events) {
+			count += events.size();
+		}
+	}
+
+	/**
+	 * Ignores all board events.
+	 */
+	static class NullListener implements BoardListener {
+		public void onPieceMoved(Position a, Position b) {
+		}
+
+		public void onPieceRotated(Position a, Rotation d) {
+		}
+
+		public void onProjectileFired(List<Position> path,
+				List<Direction> dirs, Projectile projectile) {
+		}
+
+		public void onFireUnlit(Position a) {
+		}
+
+		public void onFireLit(Position a) {
+		}
+
+		public void onRooted(Position a) {
+		}
+
+		public void onUnrooted(Position a) {
+		}
+
+		public void onPieceStunned(Position a) {
+		}
+
+		public void onPieceUnstunned(Position a) {
+		}
+
+		public void onPieceShielded(Position a) {
+		}
+
+		public void onPieceUnshielded(Position a) {
+		}
+
+		public void onPieceBurned(Position a) {
+		}
+
+		public void onPieceUnburned(Position a) {
+		}
+	}
+
+	/**
+	 * Remembers the number of legs of the last shot fired.
+	 */
+	static final class LegCounter extends NullListener {
+		int count;
+
+		@Override
+		public void onProjectileFired(List<Position> path,
+				List<Direction> dirs, Projectile projectile) {
+			count = dirs.size();
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package edu.purdue.dtf.bench;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.purdue.dtf.game.Board;
+import edu.purdue.dtf.game.MoveGenerator;
+
+/**
+ * Plays whole games of uniformly random legal actions from the standard
+ * layout. The score is games per second, which covers move generation and
+ * every kind of action together, the way MCTS playouts use them.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GameBenchmark {
+
+	// Games still going after this many actions are cut short.
+	private static final int MAX_ACTIONS = 5000;
+
+	private Board start;
+	private Board board;
+	private final MoveGenerator generator = new MoveGenerator();
+	private final int[] moves = new int[MoveGenerator.MAX_MOVES];
+	private long seed = 0x2545f4914f6cdd1dL;
+
+	@Setup
+	public void setUp() throws IOException {
+		start = Layouts.load("board");
+		board = new Board(start);
+	}
+
+	/**
+	 * Plays one game.
+	 *
+	 * @return The number of actions played.
+	 */
+	@Benchmark
+	public int randomGame() {
+		board.copyFrom(start);
+		int actions = 0;
+		while (actions < MAX_ACTIONS) {
+			int n = generator.generate(board, moves);
+			if (n == 0)
+				break;
+			board.make(moves[nextInt(n)]);
+			++actions;
+		}
+		return actions;
+	}
+
+	private int nextInt(int n) {
+		long x = seed;
+		x ^= x << 13;
+		x ^= x >>> 7;
+		x ^= x << 17;
+		seed = x;
+		return (int) ((x >>> 33) % n);
+	}
+}
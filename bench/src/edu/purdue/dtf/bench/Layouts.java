@@ -0,0 +1,56 @@
+package edu.purdue.dtf.bench;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import edu.purdue.dtf.game.Board;
+
+/**
+ * Layouts loads the text board layouts from layouts for the benchmarks. The
+ * directory can be changed with the dtf.layouts system property when the
+ * benchmarks are not run from the project root.
+ */
+final class Layouts {
+
+	// Size of the standard game board.
+	static final int WIDTH = 11;
+	static final int HEIGHT = 9;
+
+	private Layouts() {
+	}
+
+	/**
+	 * Reads a layout file into memory, so that parsing it can be timed
+	 * without the disk.
+	 *
+	 * @param name
+	 *            The file name without the .txt, such as "board".
+	 */
+	static byte[] read(String name) throws IOException {
+		File dir = new File(System.getProperty("dtf.layouts", "layouts"));
+		InputStream in = new FileInputStream(new File(dir, name + ".txt"));
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			int n;
+			while ((n = in.read(buffer)) > 0)
+				out.write(buffer, 0, n);
+			return out.toByteArray();
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Creates a standard size board set up from a layout file.
+	 */
+	static Board load(String name) throws IOException {
+		Board board = new Board(WIDTH, HEIGHT);
+		board.setFromStream(new ByteArrayInputStream(read(name)));
+		return board;
+	}
+}
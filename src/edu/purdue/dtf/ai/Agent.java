@@ -0,0 +1,20 @@
+package edu.purdue.dtf.ai;
+
+import edu.purdue.dtf.game.Board;
+
+/**
+ * Agent is anything that can choose a player's next action, so that
+ * different kinds of computer player can be played against each other.
+ */
+public interface Agent {
+
+	/**
+	 * Chooses the next single action for the player to move.
+	 *
+	 * @param position
+	 *            The current position. It must not be changed.
+	 * @return The packed move, see Move, or -1 if there is none.
+	 */
+	public int chooseMove(Board position);
+
+}
@@ -0,0 +1,317 @@
+package edu.purdue.dtf.ai;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import edu.purdue.dtf.game.Board;
+
+/**
+ * AiPlayer is a computer opponent. It picks actions with an iterative
+ * deepening alpha-beta search over single actions, so a search of depth 3
+ * covers one full turn and depth 6 covers the reply as well. Search stops at
+ * a hard time budget and the best action of the deepest finished iteration
+ * is played.
+ *
+ * Moves that hit enemy flags are tried first, followed by other damaging hits
+ * and captures, and a transposition table keyed by the board's Zobrist key
+ * carries the best move at each position between iterations. How positions
+ * are scored is up to the Evaluator.
+ *
+ * With more than one thread (see setThreads) the search runs as lazy SMP:
+ * every thread searches the whole position on its own board copy, all of
+ * them sharing one lock-free transposition table, and the move of whichever
+ * thread got deepest is played.
+ *
+ * The search runs on its own copies of the board, so the caller's board is
+ * never touched. An AiPlayer is not thread safe; give each thread its own.
+ */
+public final class AiPlayer implements Agent {
+
+	// Score of a won position. Wins found sooner score higher.
+	public static final int WIN = Searcher.WIN;
+
+	// Default time for a whole turn of actions.
+	private static final long DEFAULT_TURN_BUDGET_MS = 1500;
+
+	// log2 of the transposition table entries.
+	private static final int TABLE_BITS = 18;
+
+	private final Evaluator evaluator;
+	private final TranspositionTable table;
+
+	// The first searcher runs on the calling thread, the rest on the pool.
+	private Searcher[] searchers;
+	private ExecutorService pool;
+
+	private long turnBudgetNanos = DEFAULT_TURN_BUDGET_MS * 1000000L;
+	private int maxDepth = Integer.MAX_VALUE;
+
+	// Statistics of the last search.
+	private long nodes;
+	private int depthReached;
+	private int score;
+
+	/**
+	 * Creates a single threaded AI using the default evaluation.
+	 */
+	public AiPlayer() {
+		this(new DefaultEvaluator());
+	}
+
+	/**
+	 * Creates a single threaded AI using the given evaluation.
+	 *
+	 * @param evaluator
+	 *            Scores the positions at the end of the search.
+	 */
+	public AiPlayer(Evaluator evaluator) {
+		this.evaluator = evaluator;
+		this.table = new TranspositionTable(TABLE_BITS);
+		setThreads(1);
+	}
+
+	/**
+	 * Sets how long the AI may think about a whole turn.
+	 *
+	 * @param millis
+	 *            The time budget in milliseconds for all remaining actions.
+	 */
+	public void setTurnBudget(long millis) {
+		turnBudgetNanos = millis * 1000000L;
+	}
+
+	/**
+	 * Limits how deep, in actions, the search goes. A single threaded search
+	 * with a depth limit and a generous time budget plays the same way every
+	 * time, which makes games repeatable.
+	 *
+	 * @param depth
+	 *            The deepest iteration to search, at least 1.
+	 */
+	public void setMaxDepth(int depth) {
+		if (depth < 1)
+			throw new IllegalArgumentException("depth: " + depth);
+		maxDepth = depth;
+	}
+
+	/**
+	 * Sets how many threads search at once. Extra threads are daemons that
+	 * stay parked between searches until shutdown is called.
+	 *
+	 * @param threads
+	 *            The number of search threads, at least 1.
+	 */
+	public void setThreads(int threads) {
+		if (threads < 1)
+			throw new IllegalArgumentException("threads: " + threads);
+		shutdown();
+		searchers = new Searcher[threads];
+		for (int k = 0; k < threads; ++k)
+			searchers[k] = new Searcher(evaluator, table, k & 1);
+		if (threads > 1) {
+			pool = Executors.newFixedThreadPool(threads - 1,
+					new ThreadFactory() {
+						public Thread newThread(Runnable r) {
+							Thread t = new Thread(r, "AiPlayer helper");
+							t.setDaemon(true);
+							return t;
+						}
+					});
+		}
+	}
+
+	/**
+	 * Gets the number of search threads.
+	 */
+	public int getThreads() {
+		return searchers.length;
+	}
+
+	/**
+	 * Stops the helper threads, if any. The AI still works afterwards, single
+	 * threaded, until setThreads is called again.
+	 */
+	public void shutdown() {
+		if (pool != null) {
+			pool.shutdownNow();
+			pool = null;
+			searchers = new Searcher[] { searchers[0] };
+		}
+	}
+
+	/**
+	 * Chooses all the actions left in the current player's turn, within the
+	 * turn time budget.
+	 *
+	 * @param position
+	 *            The current position. It is not changed.
+	 * @return The packed moves to play in order, see Move. May be shorter than
+	 *         the actions remaining if the game ends or no action is legal.
+	 */
+	public int[] chooseTurn(Board position) {
+		Board line = new Board(position);
+		int side = line.getTurn();
+		int[] turn = new int[line.getMovesRemaining()];
+		long end = System.nanoTime() + turnBudgetNanos;
+		int n = 0;
+		while (n < turn.length && line.getTurn() == side && !line.isGameOver()) {
+			int actionsLeft = line.getMovesRemaining();
+			long slice = (end - System.nanoTime()) / actionsLeft;
+			int move = search(line, System.nanoTime() + Math.max(slice, 0L));
+			if (move < 0)
+				break;
+			turn[n++] = move;
+			line.make(move);
+		}
+		if (n < turn.length) {
+			int[] shorter = new int[n];
+			System.arraycopy(turn, 0, shorter, 0, n);
+			turn = shorter;
+		}
+		return turn;
+	}
+
+	/**
+	 * Chooses the next single action for the player to move, using the share
+	 * of the turn budget for one action.
+	 *
+	 * @param position
+	 *            The current position. It is not changed.
+	 * @return The packed move, or -1 if there is none.
+	 */
+	@Override
+	public int chooseMove(Board position) {
+		long slice = turnBudgetNanos / position.getMovesRemaining();
+		return search(position, System.nanoTime() + slice);
+	}
+
+	/**
+	 * Gets the number of positions visited by the last search, summed over
+	 * all threads.
+	 */
+	public long getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * Gets the depth, in actions, of the deepest finished iteration of the
+	 * last search.
+	 */
+	public int getDepthReached() {
+		return depthReached;
+	}
+
+	/**
+	 * Gets the score of the last chosen move from the mover's point of view.
+	 */
+	public int getScore() {
+		return score;
+	}
+
+	/**
+	 * Searches a position with all threads until the deadline.
+	 */
+	private int search(Board position, long deadline) {
+		Searcher main = searchers[0];
+		CountDownLatch done = null;
+		if (searchers.length > 1) {
+			done = new CountDownLatch(searchers.length - 1);
+			for (int k = 1; k < searchers.length; ++k) {
+				searchers[k].prepare(new Board(position), deadline, maxDepth);
+				pool.execute(new Helper(searchers[k], done));
+			}
+		}
+		main.prepare(new Board(position), deadline, maxDepth);
+		main.search();
+		Searcher best = main;
+		if (done != null) {
+			// the helpers are only useful while the main search runs
+			for (int k = 1; k < searchers.length; ++k)
+				searchers[k].stop();
+			try {
+				done.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		nodes = 0;
+		for (Searcher s : searchers) {
+			nodes += s.getNodes();
+			if (s.getDepthReached() > best.getDepthReached())
+				best = s;
+		}
+		depthReached = best.getDepthReached();
+		score = best.getScore();
+		return best.getBestMove();
+	}
+
+	/**
+	 * Runs a helper searcher and counts down when it is done.
+	 */
+	private static final class Helper implements Runnable {
+		private final Searcher searcher;
+		private final CountDownLatch done;
+
+		Helper(Searcher searcher, CountDownLatch done) {
+			this.searcher = searcher;
+			this.done = done;
+		}
+
+		public void run() {
+			try {
+				searcher.run();
+			} finally {
+				done.countDown();
+			}
+		}
+	}
+
+	/**
+	 * Prints search speed for 1 up to N threads on a board layout, to show how
+	 * well the parallel search scales. Usage: AiPlayer layout.txt [threads]
+	 * [millis per search]
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.err.println("usage: AiPlayer layout.txt [threads] [millis]");
+			System.exit(2);
+		}
+		int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime
+				.getRuntime().availableProcessors();
+		long millis = args.length > 2 ? Long.parseLong(args[2]) : 5000;
+		Board board = new Board(11, 9);
+		InputStream in = new FileInputStream(args[0]);
+		try {
+			board.setFromStream(in);
+		} finally {
+			in.close();
+		}
+		// warm up the JIT so the single thread baseline is not penalised
+		AiPlayer warmup = new AiPlayer();
+		warmup.setTurnBudget(millis * board.getMovesRemaining());
+		warmup.chooseMove(board);
+		double baseline = 0;
+		for (int threads = 1; threads <= maxThreads; ++threads) {
+			// a fresh player each time so no run reuses another's table
+			AiPlayer ai = new AiPlayer();
+			ai.setThreads(threads);
+			ai.setTurnBudget(millis * board.getMovesRemaining());
+			long start = System.nanoTime();
+			ai.chooseMove(board);
+			double seconds = (System.nanoTime() - start) / 1e9;
+			double rate = ai.getNodes() / seconds;
+			if (threads == 1)
+				baseline = rate;
+			System.out.println(String.format(
+					"threads %d  depth %d  nodes %d  %.0f nodes/s  x%.2f",
+					threads, ai.getDepthReached(), ai.getNodes(), rate, rate
+							/ baseline));
+			ai.shutdown();
+		}
+	}
+}
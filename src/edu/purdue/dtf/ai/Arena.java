@@ -0,0 +1,479 @@
+package edu.purdue.dtf.ai;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import edu.purdue.dtf.game.Board;
+import edu.purdue.dtf.game.GameRecorder;
+import edu.purdue.dtf.game.Move;
+import edu.purdue.dtf.game.MoveGenerator;
+import edu.purdue.dtf.game.Square;
+
+/**
+ * Arena plays many headless games between two agents and reports how they
+ * did, for tuning the AI and checking balance changes. Games run in parallel
+ * on a thread pool, and agents swap colours every game.
+ *
+ * Every game has its own seed, worked out from the base seed and the game
+ * number, and agents are created fresh for each game. Agents that do not
+ * depend on the clock (random, alphabeta with a depth, mcts) therefore play
+ * exactly the same game again when it is rerun with -g.
+ *
+ * Usage: Arena [options] layout.txt|directory ...
+ *
+ * <pre>
+ *   -a agent     first agent (default mcts:2000)
+ *   -b agent     second agent (default random)
+ *   -n games     games per layout (default 100)
+ *   -t threads   threads to play on (default: all cores)
+ *   -s seed      base seed (default 1)
+ *   -g game      play only this game number and print its actions
+ *   -csv file    also write one line per game to file
+ *   -record file append every game to file as a GameRecorder log
+ *
+ * agents: random
+ *         alphabeta:d&lt;depth&gt;   fixed depth, repeatable
+ *         alphabeta:&lt;millis&gt;   time per turn
+ *         mcts:&lt;playouts&gt;      playouts per action, repeatable
+ * </pre>
+ *
+ * A directory stands for all the board*.txt layouts in it. Layouts that
+ * cannot be loaded are reported and skipped.
+ */
+public final class Arena {
+
+	// Games still going after this many actions are stopped and counted as
+	// unfinished.
+	private static final int MAX_ACTIONS = 3000;
+
+	// Outcomes of a game for the first agent, besides the winning colour.
+	private static final int TIE = -1;
+	private static final int UNFINISHED = -2;
+
+	private Arena() {
+	}
+
+	/**
+	 * What happened in one game.
+	 */
+	private static final class Result {
+		int game;
+		long seed;
+		boolean firstIsGold;
+		int winner = UNFINISHED;
+		int actions;
+		int turns;
+		// time taken by each agent per action, in nanoseconds
+		long[] firstTimes = new long[64];
+		int firstMoves;
+		long[] secondTimes = new long[64];
+		int secondMoves;
+		StringBuilder log;
+		// the game as a GameRecorder record, if asked for
+		byte[] record;
+
+		void time(boolean first, long nanos) {
+			if (first) {
+				if (firstMoves == firstTimes.length)
+					firstTimes = Arrays.copyOf(firstTimes, firstMoves * 2);
+				firstTimes[firstMoves++] = nanos;
+			} else {
+				if (secondMoves == secondTimes.length)
+					secondTimes = Arrays.copyOf(secondTimes, secondMoves * 2);
+				secondTimes[secondMoves++] = nanos;
+			}
+		}
+
+		/**
+		 * Gets the outcome from the first agent's point of view: 1 for a
+		 * win, 0 for a tie, -1 for a loss and UNFINISHED.
+		 */
+		int outcome() {
+			if (winner == UNFINISHED || winner == TIE)
+				return winner == TIE ? 0 : UNFINISHED;
+			boolean goldWon = winner == Square.GOLD;
+			return goldWon == firstIsGold ? 1 : -1;
+		}
+	}
+
+	/**
+	 * Creates an agent from its command line description.
+	 *
+	 * @throws IllegalArgumentException
+	 *             If the description is not understood.
+	 */
+	static Agent createAgent(String spec, long seed) {
+		String name = spec;
+		String arg = null;
+		int colon = spec.indexOf(':');
+		if (colon >= 0) {
+			name = spec.substring(0, colon);
+			arg = spec.substring(colon + 1);
+		}
+		try {
+			if (name.equals("random") && arg == null) {
+				return new RandomAgent(seed);
+			} else if (name.equals("alphabeta")) {
+				AiPlayer ai = new AiPlayer();
+				if (arg != null && arg.startsWith("d")) {
+					ai.setMaxDepth(Integer.parseInt(arg.substring(1)));
+					// never let the clock decide, or the game is not repeatable
+					ai.setTurnBudget(Long.MAX_VALUE / 4000000L);
+				} else if (arg != null) {
+					ai.setTurnBudget(Long.parseLong(arg));
+				}
+				return ai;
+			} else if (name.equals("mcts")) {
+				MctsPlayer mcts = new MctsPlayer(seed);
+				if (arg != null)
+					mcts.setPlayoutBudget(Integer.parseInt(arg));
+				return mcts;
+			}
+		} catch (NumberFormatException e) {
+			// reported below
+		}
+		throw new IllegalArgumentException("unknown agent: " + spec);
+	}
+
+	/**
+	 * Plays one game from a layout.
+	 */
+	private static Result play(Board layout, String first, String second,
+			long baseSeed, int game, boolean verbose, boolean record) {
+		Result r = new Result();
+		r.game = game;
+		r.seed = baseSeed + game * 0x9e3779b97f4a7c15L;
+		r.firstIsGold = game % 2 == 0;
+		if (verbose)
+			r.log = new StringBuilder();
+		Agent a = createAgent(first, r.seed);
+		Agent b = createAgent(second, r.seed ^ 0x5deece66dL);
+		Agent gold = r.firstIsGold ? a : b;
+		Agent red = r.firstIsGold ? b : a;
+		Board board = new Board(layout);
+		ByteArrayOutputStream bytes = null;
+		GameRecorder recorder = null;
+		if (record) {
+			bytes = new ByteArrayOutputStream(512);
+			recorder = new GameRecorder(bytes);
+			try {
+				recorder.begin(board);
+			} catch (IOException e) {
+				// cannot happen writing to memory
+				throw new IllegalStateException(e);
+			}
+		}
+		int turn = board.getTurn();
+		while (r.actions < MAX_ACTIONS) {
+			int gl = board.countLiveFlags(Square.GOLD);
+			int rl = board.countLiveFlags(Square.RED);
+			if (gl == 0 || rl == 0) {
+				r.winner = gl == rl ? TIE : gl == 0 ? Square.RED : Square.GOLD;
+				break;
+			}
+			boolean goldToMove = board.getTurn() == Square.GOLD;
+			long start = System.nanoTime();
+			int move = (goldToMove ? gold : red).chooseMove(board);
+			r.time(goldToMove == r.firstIsGold, System.nanoTime() - start);
+			if (move < 0 || !MoveGenerator.isLegal(board, move))
+				throw new IllegalStateException("agent "
+						+ (goldToMove == r.firstIsGold ? first : second)
+						+ " chose an illegal action " + Move.toString(move));
+			if (verbose)
+				r.log.append(Square.ownerName(board.getTurn())).append(' ')
+						.append(Move.toString(move)).append('\n');
+			if (record) {
+				try {
+					recorder.record(move);
+				} catch (IOException e) {
+					throw new IllegalStateException(e);
+				}
+			}
+			board.play(move);
+			++r.actions;
+			if (board.getTurn() != turn) {
+				turn = board.getTurn();
+				++r.turns;
+			}
+		}
+		shutdown(a);
+		shutdown(b);
+		if (record) {
+			try {
+				recorder.end();
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+			r.record = bytes.toByteArray();
+		}
+		return r;
+	}
+
+	private static void shutdown(Agent agent) {
+		if (agent instanceof AiPlayer)
+			((AiPlayer) agent).shutdown();
+		else if (agent instanceof MctsPlayer)
+			((MctsPlayer) agent).shutdown();
+	}
+
+	/**
+	 * Loads a standard size board from a layout file.
+	 *
+	 * @throws IOException
+	 *             If the file cannot be read or is not a valid layout.
+	 */
+	private static Board load(File file) throws IOException {
+		Board board = new Board(11, 9);
+		InputStream in = new FileInputStream(file);
+		try {
+			board.setFromStream(in);
+		} catch (RuntimeException e) {
+			throw new IOException(e.getMessage());
+		} finally {
+			in.close();
+		}
+		return board;
+	}
+
+	public static void main(String[] args) throws Exception {
+		String first = "mcts:2000";
+		String second = "random";
+		int games = 100;
+		int threads = Runtime.getRuntime().availableProcessors();
+		long seed = 1L;
+		int only = -1;
+		String csv = null;
+		String recordFile = null;
+		List<File> layouts = new ArrayList<File>();
+		for (int k = 0; k < args.length; ++k) {
+			String arg = args[k];
+			if (arg.startsWith("-") && k + 1 == args.length)
+				usage("missing value for " + arg);
+			if (arg.equals("-a"))
+				first = args[++k];
+			else if (arg.equals("-b"))
+				second = args[++k];
+			else if (arg.equals("-n"))
+				games = Integer.parseInt(args[++k]);
+			else if (arg.equals("-t"))
+				threads = Integer.parseInt(args[++k]);
+			else if (arg.equals("-s"))
+				seed = Long.parseLong(args[++k]);
+			else if (arg.equals("-g"))
+				only = Integer.parseInt(args[++k]);
+			else if (arg.equals("-csv"))
+				csv = args[++k];
+			else if (arg.equals("-record"))
+				recordFile = args[++k];
+			else if (arg.startsWith("-"))
+				usage("unknown option " + arg);
+			else
+				addLayouts(new File(arg), layouts);
+		}
+		if (layouts.isEmpty())
+			usage("no layouts given");
+		// fail early on a bad agent rather than in every game
+		try {
+			shutdown(createAgent(first, 0L));
+			shutdown(createAgent(second, 0L));
+		} catch (IllegalArgumentException e) {
+			usage(e.getMessage());
+		}
+
+		PrintWriter out = null;
+		if (csv != null) {
+			out = new PrintWriter(new FileWriter(csv));
+			out.println("layout,game,seed,gold,red,winner,actions,turns");
+		}
+		OutputStream records = null;
+		if (recordFile != null)
+			records = new BufferedOutputStream(new FileOutputStream(
+					recordFile, true));
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			for (File file : layouts) {
+				Board layout;
+				try {
+					layout = load(file);
+				} catch (IOException e) {
+					System.out.println(file.getName() + ": invalid layout, skipped ("
+							+ e.getMessage() + ")");
+					continue;
+				}
+				if (only >= 0) {
+					Result r = play(layout, first, second, seed, only, true,
+							records != null);
+					System.out.print(r.log);
+					if (records != null)
+						records.write(r.record);
+					report(file.getName(), first, second,
+							Arrays.asList(r), 0L, 1);
+					continue;
+				}
+				runLayout(pool, threads, file.getName(), layout, first, second,
+						seed, games, out, records);
+			}
+		} finally {
+			pool.shutdown();
+			if (out != null)
+				out.close();
+			if (records != null)
+				records.close();
+		}
+	}
+
+	private static void runLayout(ExecutorService pool, int threads,
+			String name, final Board layout, final String first,
+			final String second, final long seed, int games, PrintWriter out,
+			final OutputStream records) throws Exception {
+		long start = System.nanoTime();
+		List<Future<Result>> futures = new ArrayList<Future<Result>>();
+		for (int g = 0; g < games; ++g) {
+			final int game = g;
+			futures.add(pool.submit(new Callable<Result>() {
+				public Result call() {
+					return play(layout, first, second, seed, game, false,
+							records != null);
+				}
+			}));
+		}
+		List<Result> results = new ArrayList<Result>();
+		for (Future<Result> f : futures) {
+			Result r = f.get();
+			results.add(r);
+			if (records != null)
+				records.write(r.record);
+			if (out != null)
+				out.println(String.format(Locale.ENGLISH,
+						"%s,%d,%d,%s,%s,%s,%d,%d", name, r.game, r.seed,
+						r.firstIsGold ? first : second, r.firstIsGold ? second
+								: first, winnerName(r.winner), r.actions,
+						r.turns));
+		}
+		report(name, first, second, results, System.nanoTime() - start,
+				threads);
+	}
+
+	private static String winnerName(int winner) {
+		if (winner == TIE)
+			return "TIE";
+		if (winner == UNFINISHED)
+			return "UNFINISHED";
+		return Square.ownerName(winner);
+	}
+
+	/**
+	 * Prints the totals for one layout.
+	 */
+	private static void report(String layout, String first, String second,
+			List<Result> results, long nanos, int threads) {
+		int wins = 0, ties = 0, losses = 0, unfinished = 0;
+		long actions = 0;
+		int shortest = Integer.MAX_VALUE, longest = 0;
+		int firstMoves = 0, secondMoves = 0;
+		for (Result r : results) {
+			switch (r.outcome()) {
+			case 1:
+				++wins;
+				break;
+			case 0:
+				++ties;
+				break;
+			case -1:
+				++losses;
+				break;
+			default:
+				++unfinished;
+				break;
+			}
+			actions += r.actions;
+			shortest = Math.min(shortest, r.actions);
+			longest = Math.max(longest, r.actions);
+			firstMoves += r.firstMoves;
+			secondMoves += r.secondMoves;
+		}
+		long[] firstTimes = new long[firstMoves];
+		long[] secondTimes = new long[secondMoves];
+		int fi = 0, si = 0;
+		for (Result r : results) {
+			System.arraycopy(r.firstTimes, 0, firstTimes, fi, r.firstMoves);
+			fi += r.firstMoves;
+			System.arraycopy(r.secondTimes, 0, secondTimes, si, r.secondMoves);
+			si += r.secondMoves;
+		}
+		int n = results.size();
+		StringBuilder s = new StringBuilder();
+		s.append(String.format(Locale.ENGLISH, "%s: %d games", layout, n));
+		if (nanos > 0)
+			s.append(String.format(Locale.ENGLISH,
+					" in %.1fs (%.2f games/s on %d threads)", nanos / 1e9, n
+							/ (nanos / 1e9), threads));
+		s.append(String.format(Locale.ENGLISH,
+				"%n  %s vs %s: %d wins, %d ties, %d losses, %d unfinished",
+				first, second, wins, ties, losses, unfinished));
+		s.append(String.format(Locale.ENGLISH,
+				"%n  length: mean %.1f actions, min %d, max %d",
+				(double) actions / n, shortest, longest));
+		s.append(timing(first, firstTimes));
+		s.append(timing(second, secondTimes));
+		System.out.println(s);
+	}
+
+	/**
+	 * Describes how long an agent took per action.
+	 */
+	private static String timing(String agent, long[] times) {
+		if (times.length == 0)
+			return String.format(Locale.ENGLISH, "%n  %s: no actions", agent);
+		Arrays.sort(times);
+		long total = 0;
+		for (long t : times)
+			total += t;
+		return String.format(Locale.ENGLISH,
+				"%n  %s: %d actions, ms per action mean %.3f, p50 %.3f,"
+						+ " p99 %.3f, max %.3f", agent, times.length, total
+						/ 1e6 / times.length, times[times.length / 2] / 1e6,
+				times[(int) (times.length * 0.99)] / 1e6,
+				times[times.length - 1] / 1e6);
+	}
+
+	private static void addLayouts(File file, List<File> layouts) {
+		if (file.isDirectory()) {
+			File[] files = file.listFiles();
+			Arrays.sort(files);
+			for (File f : files)
+				if (f.getName().startsWith("board")
+						&& f.getName().endsWith(".txt"))
+					layouts.add(f);
+		} else {
+			layouts.add(file);
+		}
+	}
+
+	private static void usage(String problem) {
+		System.err.println(problem);
+		System.err.println("usage: Arena [-a agent] [-b agent] [-n games]"
+				+ " [-t threads] [-s seed] [-g game] [-csv file]"
+				+ " [-record file]"
+				+ " layout.txt|directory ...");
+		System.err.println("agents: random, alphabeta:d<depth>,"
+				+ " alphabeta:<millis per turn>, mcts:<playouts>");
+		System.exit(2);
+	}
+}
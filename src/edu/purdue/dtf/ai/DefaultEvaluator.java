@@ -0,0 +1,83 @@
+package edu.purdue.dtf.ai;
+
+import edu.purdue.dtf.game.Board;
+import edu.purdue.dtf.game.Square;
+
+/**
+ * DefaultEvaluator scores a position by material. It counts live flags above
+ * everything else, then the remaining hit points of each piece weighted by
+ * type, lit torches, and finally pieces that an enemy Slingshot or Obelisk
+ * is lined up on right now.
+ */
+public final class DefaultEvaluator implements Evaluator {
+
+	// Worth of a standing flag; losing all of them loses the game.
+	private static final int FLAG = 10000;
+
+	// Worth of each piece type at full health, indexed by Square type.
+	private static final int[] VALUE = { 0, 120, 0, 400, 350, 200, 150 };
+
+	// Extra worth of a torch while it is lit, since only lit torches take.
+	private static final int LIT_TORCH = 120;
+
+	// A threatened piece counts against its owner by this fraction of what
+	// the threatening shot would cost it.
+	private static final int THREAT_DIVISOR = 4;
+
+	@Override
+	public int evaluate(Board board, int player) {
+		int score = FLAG
+				* (board.countLiveFlags(player) - board.countLiveFlags(1 - player));
+		int size = board.getWidth() * board.getHeight();
+		for (int i = 0; i < size; ++i) {
+			int code = board.getSquare(i);
+			if (code == Square.EMPTY)
+				continue;
+			int value = material(code);
+			int type = Square.type(code);
+			if ((type == Square.SLINGSHOT || type == Square.OBELISK)
+					&& Square.hitPoints(code) > 0) {
+				int target = board.traceShot(i);
+				if (target >= 0) {
+					int t = board.getSquare(target);
+					if (Square.owner(t) != Square.owner(code))
+						value += threat(type, t) / THREAT_DIVISOR;
+				}
+			}
+			score += Square.owner(code) == player ? value : -value;
+		}
+		return score;
+	}
+
+	/**
+	 * Worth of a piece apart from its flag status.
+	 */
+	private static int material(int code) {
+		int type = Square.type(code);
+		int hp = Square.hitPoints(code);
+		int value = VALUE[type] * hp / Square.maxHitPoints(type);
+		if (Square.is(code, Square.LIT) && hp > 0)
+			value += LIT_TORCH;
+		return value;
+	}
+
+	/**
+	 * What the owner of target stands to lose from the best damaging shot a
+	 * shooter of the given type can put into it.
+	 */
+	private static int threat(int shooterType, int target) {
+		int type = Square.type(target);
+		int hp = Square.hitPoints(target);
+		if (hp == 0)
+			return 0;
+		boolean burns = shooterType == Square.OBELISK && type != Square.BOULDER
+				&& type != Square.OBELISK && type != Square.TORCH;
+		if (burns || hp == 1)
+			return material(target) + (type == Square.FLAG ? FLAG : 0);
+		// a rock costs one hit point and puts out a torch
+		int loss = VALUE[type] / Square.maxHitPoints(type);
+		if (Square.is(target, Square.LIT) && !Square.is(target, Square.SHIELDED))
+			loss += LIT_TORCH;
+		return loss;
+	}
+}
@@ -0,0 +1,29 @@
+package edu.purdue.dtf.ai;
+
+import edu.purdue.dtf.game.Board;
+
+/**
+ * Evaluator scores a game position for the AI's search. Implementations can
+ * be swapped in to try different playing styles or tuned weights.
+ *
+ * When the AI searches with several threads they all share one evaluator, so
+ * implementations must be safe to call concurrently; the simplest way is to
+ * keep no state between calls.
+ */
+public interface Evaluator {
+
+	/**
+	 * Scores the position from one player's point of view. Higher is better
+	 * for that player, and a good evaluator is symmetric: the score for one
+	 * player is the negative of the score for the other. Scores should stay
+	 * well inside plus or minus AiPlayer.WIN.
+	 * 
+	 * @param board
+	 *            The position to score. It must not be changed.
+	 * @param player
+	 *            Square.GOLD or Square.RED.
+	 * @return The score.
+	 */
+	public int evaluate(Board board, int player);
+
+}
@@ -0,0 +1,335 @@
+package edu.purdue.dtf.ai;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import edu.purdue.dtf.game.Board;
+
+/**
+ * MctsPlayer is a computer opponent using Monte Carlo tree search (UCT)
+ * instead of alpha-beta. It needs no evaluation beyond who won a random
+ * game, which suits a game where three actions and bouncing projectiles make
+ * the move tree too wide to search deeply. The evaluator is only used to
+ * call playouts that run too long.
+ *
+ * Each action is chosen by a playout budget, a time budget or both,
+ * whichever runs out first. With several threads the search is root
+ * parallel: every thread grows its own tree from the same position with its
+ * own random numbers, and the root visit counts of all trees are added up
+ * to pick the move.
+ *
+ * The search runs on copies of the board, so the caller's board is never
+ * touched. An MctsPlayer is not thread safe; give each thread its own.
+ */
+public final class MctsPlayer implements Agent {
+
+	// Default number of playouts per action.
+	private static final int DEFAULT_PLAYOUTS = 20000;
+
+	// Default number of nodes each tree can hold.
+	private static final int DEFAULT_CAPACITY = 1 << 18;
+
+	private final Evaluator evaluator;
+	private final int capacity;
+	private final long seed;
+
+	// The first tree is searched on the calling thread, the rest on the pool.
+	private MctsTree[] trees;
+	private ExecutorService pool;
+
+	private int playoutBudget = DEFAULT_PLAYOUTS;
+	private long turnBudgetNanos = 0L;
+
+	// Statistics of the last search.
+	private long playouts;
+	private long nodes;
+	private long nanos;
+
+	/**
+	 * Creates a single threaded player with the default evaluation and tree
+	 * size.
+	 *
+	 * @param seed
+	 *            Seed for the playout random numbers, so games can be
+	 *            repeated when the budget is in playouts.
+	 */
+	public MctsPlayer(long seed) {
+		this(new DefaultEvaluator(), DEFAULT_CAPACITY, seed);
+	}
+
+	/**
+	 * Creates a single threaded player.
+	 *
+	 * @param evaluator
+	 *            Decides the winner of playouts that hit the length limit.
+	 * @param capacity
+	 *            The most nodes each thread's tree can hold.
+	 * @param seed
+	 *            Seed for the playout random numbers.
+	 */
+	public MctsPlayer(Evaluator evaluator, int capacity, long seed) {
+		this.evaluator = evaluator;
+		this.capacity = capacity;
+		this.seed = seed;
+		setThreads(1);
+	}
+
+	/**
+	 * Sets the most playouts to run for one action, over all threads.
+	 *
+	 * @param playouts
+	 *            The playout budget, at least 1.
+	 */
+	public void setPlayoutBudget(int playouts) {
+		if (playouts < 1)
+			throw new IllegalArgumentException("playouts: " + playouts);
+		playoutBudget = playouts;
+	}
+
+	/**
+	 * Sets how long the player may think about a whole turn. The default of 0
+	 * means no time limit, only the playout budget.
+	 *
+	 * @param millis
+	 *            The time budget in milliseconds for all remaining actions.
+	 */
+	public void setTurnBudget(long millis) {
+		turnBudgetNanos = millis * 1000000L;
+	}
+
+	/**
+	 * Sets how many threads search at once, each growing its own tree.
+	 *
+	 * @param threads
+	 *            The number of search threads, at least 1.
+	 */
+	public void setThreads(int threads) {
+		if (threads < 1)
+			throw new IllegalArgumentException("threads: " + threads);
+		shutdown();
+		trees = new MctsTree[threads];
+		for (int k = 0; k < threads; ++k)
+			trees[k] = new MctsTree(evaluator, capacity, seed + k
+					* 0x9e3779b97f4a7c15L);
+		if (threads > 1) {
+			pool = Executors.newFixedThreadPool(threads - 1,
+					new ThreadFactory() {
+						public Thread newThread(Runnable r) {
+							Thread t = new Thread(r, "MctsPlayer helper");
+							t.setDaemon(true);
+							return t;
+						}
+					});
+		}
+	}
+
+	/**
+	 * Gets the number of search threads.
+	 */
+	public int getThreads() {
+		return trees.length;
+	}
+
+	/**
+	 * Stops the helper threads, if any. The player still works afterwards,
+	 * single threaded, until setThreads is called again.
+	 */
+	public void shutdown() {
+		if (pool != null) {
+			pool.shutdownNow();
+			pool = null;
+			trees = new MctsTree[] { trees[0] };
+		}
+	}
+
+	/**
+	 * Chooses all the actions left in the current player's turn.
+	 *
+	 * @param position
+	 *            The current position. It is not changed.
+	 * @return The packed moves to play in order, see Move. May be shorter than
+	 *         the actions remaining if the game ends or no action is legal.
+	 */
+	public int[] chooseTurn(Board position) {
+		Board line = new Board(position);
+		int side = line.getTurn();
+		int[] turn = new int[line.getMovesRemaining()];
+		long end = System.nanoTime() + turnBudgetNanos;
+		int n = 0;
+		while (n < turn.length && line.getTurn() == side && !line.isGameOver()) {
+			long deadline = Long.MAX_VALUE;
+			if (turnBudgetNanos > 0L) {
+				long slice = (end - System.nanoTime()) / line.getMovesRemaining();
+				deadline = System.nanoTime() + Math.max(slice, 0L);
+			}
+			int move = search(line, deadline);
+			if (move < 0)
+				break;
+			turn[n++] = move;
+			line.make(move);
+		}
+		if (n < turn.length) {
+			int[] shorter = new int[n];
+			System.arraycopy(turn, 0, shorter, 0, n);
+			turn = shorter;
+		}
+		return turn;
+	}
+
+	/**
+	 * Chooses the next single action for the player to move.
+	 *
+	 * @param position
+	 *            The current position. It is not changed.
+	 * @return The packed move, or -1 if there is none.
+	 */
+	@Override
+	public int chooseMove(Board position) {
+		long deadline = Long.MAX_VALUE;
+		if (turnBudgetNanos > 0L)
+			deadline = System.nanoTime() + turnBudgetNanos
+					/ position.getMovesRemaining();
+		return search(position, deadline);
+	}
+
+	/**
+	 * Gets the number of playouts run by the last search, over all threads.
+	 */
+	public long getPlayouts() {
+		return playouts;
+	}
+
+	/**
+	 * Gets the number of tree nodes created by the last search, over all
+	 * threads.
+	 */
+	public long getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * Gets the playout rate of the last search.
+	 */
+	public double getPlayoutsPerSecond() {
+		return playouts / Math.max(nanos / 1e9, 1e-9);
+	}
+
+	/**
+	 * Searches a position with all trees and picks the root move with the
+	 * most visits in total.
+	 */
+	private int search(Board position, long deadline) {
+		long start = System.nanoTime();
+		int share = Math.max(playoutBudget / trees.length, 1);
+		// the trees only read the root, so they can all share this one
+		Board root = new Board(position);
+		CountDownLatch done = null;
+		if (trees.length > 1) {
+			done = new CountDownLatch(trees.length - 1);
+			for (int k = 1; k < trees.length; ++k) {
+				trees[k].prepare(root, share, deadline);
+				pool.execute(new Helper(trees[k], done));
+			}
+		}
+		MctsTree main = trees[0];
+		main.prepare(root, share, deadline);
+		main.search();
+		if (done != null) {
+			try {
+				done.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				for (MctsTree t : trees)
+					t.stop();
+			}
+		}
+		nanos = System.nanoTime() - start;
+		playouts = 0;
+		nodes = 0;
+		for (MctsTree t : trees) {
+			playouts += t.getPlayouts();
+			nodes += t.getSize();
+		}
+		// every tree lists the root moves in generation order
+		int best = -1;
+		long bestVisits = -1;
+		for (int k = 0; k < main.getRootMoves(); ++k) {
+			long v = 0;
+			for (MctsTree t : trees)
+				if (k < t.getRootMoves())
+					v += t.getRootVisits(k);
+			if (v > bestVisits) {
+				bestVisits = v;
+				best = main.getRootMove(k);
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Runs a helper tree and counts down when it is done.
+	 */
+	private static final class Helper implements Runnable {
+		private final MctsTree tree;
+		private final CountDownLatch done;
+
+		Helper(MctsTree tree, CountDownLatch done) {
+			this.tree = tree;
+			this.done = done;
+		}
+
+		public void run() {
+			try {
+				tree.run();
+			} finally {
+				done.countDown();
+			}
+		}
+	}
+
+	/**
+	 * Prints playout speed for 1 up to N threads on a board layout. Usage:
+	 * MctsPlayer layout.txt [threads] [playouts]
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.err.println("usage: MctsPlayer layout.txt [threads] [playouts]");
+			System.exit(2);
+		}
+		int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime
+				.getRuntime().availableProcessors();
+		int budget = args.length > 2 ? Integer.parseInt(args[2])
+				: DEFAULT_PLAYOUTS;
+		Board board = new Board(11, 9);
+		InputStream in = new FileInputStream(args[0]);
+		try {
+			board.setFromStream(in);
+		} finally {
+			in.close();
+		}
+		// warm up the JIT so the single thread baseline is not penalised
+		MctsPlayer warmup = new MctsPlayer(1L);
+		warmup.setPlayoutBudget(budget);
+		warmup.chooseMove(board);
+		double baseline = 0;
+		for (int threads = 1; threads <= maxThreads; ++threads) {
+			MctsPlayer mcts = new MctsPlayer(1L);
+			mcts.setThreads(threads);
+			mcts.setPlayoutBudget(budget);
+			mcts.chooseMove(board);
+			double rate = mcts.getPlayoutsPerSecond();
+			if (threads == 1)
+				baseline = rate;
+			System.out.println(String.format(
+					"threads %d  playouts %d  nodes %d  %.0f playouts/s  x%.2f",
+					threads, mcts.getPlayouts(), mcts.getNodes(), rate, rate
+							/ baseline));
+			mcts.shutdown();
+		}
+	}
+}
@@ -0,0 +1,268 @@
+package edu.purdue.dtf.ai;
+
+import edu.purdue.dtf.game.Board;
+import edu.purdue.dtf.game.MoveGenerator;
+import edu.purdue.dtf.game.Square;
+
+/**
+ * MctsTree is one thread's Monte Carlo search tree (UCT). Each iteration
+ * walks down the tree picking children by their upper confidence bound,
+ * expands the leaf it reaches, plays a random game from there and credits
+ * the result to every node on the way back up.
+ *
+ * The tree lives in parallel primitive arrays indexed by node number, with
+ * the children of a node stored next to each other, so growing it never
+ * creates objects. Playouts run on a single board that is reset from the
+ * root with Board.copyFrom, and pick moves with a xorshift generator, so a
+ * playout does not allocate either. When the arrays are full the tree stops
+ * growing and the remaining iterations just play out from the leaves.
+ */
+final class MctsTree implements Runnable {
+
+	// Exploration constant of the UCT formula, sqrt(2) in theory.
+	private static final float EXPLORATION = 1.4f;
+
+	// Playouts longer than this are scored by the evaluator instead.
+	private static final int PLAYOUT_LIMIT = 300;
+
+	// Deepest path through the tree that is followed.
+	private static final int MAX_DEPTH = 256;
+
+	private final Evaluator evaluator;
+	private final MoveGenerator generator = new MoveGenerator();
+	private final int[] buffer = new int[MoveGenerator.MAX_MOVES];
+
+	// The node arrays. A node's children are nodes first .. first+count-1;
+	// count is -1 until the node is expanded. Wins are from the point of view
+	// of mover, the player who made the node's move.
+	private final int[] move;
+	private final int[] first;
+	private final int[] count;
+	private final int[] visits;
+	private final float[] wins;
+	private final byte[] mover;
+	private int size;
+
+	// Nodes along the current iteration's path.
+	private final int[] path = new int[MAX_DEPTH];
+
+	private Board root;
+	private Board board;
+	private long seed;
+
+	// Budget of the search in progress.
+	private int playoutBudget;
+	private long deadline;
+	private volatile boolean stopped;
+
+	// Results of the last search.
+	private int playouts;
+
+	/**
+	 * Creates a tree that can hold up to capacity nodes.
+	 */
+	MctsTree(Evaluator evaluator, int capacity, long seed) {
+		this.evaluator = evaluator;
+		move = new int[capacity];
+		first = new int[capacity];
+		count = new int[capacity];
+		visits = new int[capacity];
+		wins = new float[capacity];
+		mover = new byte[capacity];
+		this.seed = seed == 0L ? 1L : seed;
+	}
+
+	/**
+	 * Sets up the next search from a position. The tree from any earlier
+	 * search is thrown away.
+	 *
+	 * @param position
+	 *            The root position. It is only read, so several trees can
+	 *            share it, but it must not change until the search ends.
+	 * @param playoutBudget
+	 *            The most playouts to run.
+	 * @param deadline
+	 *            The System.nanoTime after which to stop, or Long.MAX_VALUE.
+	 */
+	void prepare(Board position, int playoutBudget, long deadline) {
+		if (board == null || board.getWidth() != position.getWidth()
+				|| board.getHeight() != position.getHeight())
+			board = new Board(position);
+		root = position;
+		this.playoutBudget = playoutBudget;
+		this.deadline = deadline;
+		stopped = false;
+		size = 1;
+		move[0] = -1;
+		count[0] = -1;
+		visits[0] = 0;
+		wins[0] = 0f;
+		mover[0] = (byte) (1 - position.getTurn());
+	}
+
+	/**
+	 * Asks a running search to end after its current playout.
+	 */
+	void stop() {
+		stopped = true;
+	}
+
+	public void run() {
+		search();
+	}
+
+	/**
+	 * Runs playouts until the budget or the deadline is used up.
+	 */
+	void search() {
+		playouts = 0;
+		while (playouts < playoutBudget && !stopped) {
+			iterate();
+			++playouts;
+			if ((playouts & 15) == 0 && System.nanoTime() > deadline)
+				break;
+		}
+		root = null;
+	}
+
+	/**
+	 * Gets the number of root moves, which are nodes 1 to n once the root
+	 * is expanded.
+	 */
+	int getRootMoves() {
+		return Math.max(count[0], 0);
+	}
+
+	int getRootMove(int k) {
+		return move[first[0] + k];
+	}
+
+	int getRootVisits(int k) {
+		return visits[first[0] + k];
+	}
+
+	float getRootWins(int k) {
+		return wins[first[0] + k];
+	}
+
+	int getPlayouts() {
+		return playouts;
+	}
+
+	int getSize() {
+		return size;
+	}
+
+	/**
+	 * One round of selection, expansion, playout and backpropagation.
+	 */
+	private void iterate() {
+		board.copyFrom(root);
+		int node = 0;
+		int depth = 0;
+		path[depth++] = node;
+		while (count[node] > 0 && depth < MAX_DEPTH) {
+			node = select(node);
+			board.make(move[node]);
+			path[depth++] = node;
+		}
+		// a leaf is expanded on its second visit, so one off playouts do not
+		// fill the tree with children that are never looked at again
+		if (count[node] < 0 && (node == 0 || visits[node] > 0)
+				&& depth < MAX_DEPTH && expand(node) && count[node] > 0) {
+			// play the first of the new children; they are all unvisited
+			node = first[node];
+			board.make(move[node]);
+			path[depth++] = node;
+		}
+		int winner = playout();
+		for (int d = 0; d < depth; ++d) {
+			int n = path[d];
+			++visits[n];
+			if (winner == mover[n])
+				wins[n] += 1f;
+			else if (winner < 0)
+				wins[n] += 0.5f;
+		}
+	}
+
+	/**
+	 * Picks the child with the highest upper confidence bound. Unvisited
+	 * children come first.
+	 */
+	private int select(int node) {
+		int begin = first[node];
+		int end = begin + count[node];
+		float logParent = (float) Math.log(visits[node]);
+		int best = begin;
+		float bestValue = -1f;
+		for (int c = begin; c < end; ++c) {
+			int v = visits[c];
+			if (v == 0)
+				return c;
+			float value = wins[c] / v
+					+ EXPLORATION * (float) Math.sqrt(logParent / v);
+			if (value > bestValue) {
+				bestValue = value;
+				best = c;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Adds a child for every legal move at the board's position.
+	 *
+	 * @return False if the tree is full, in which case the node stays a leaf.
+	 */
+	private boolean expand(int node) {
+		int n = generator.generate(board, buffer);
+		if (size + n > move.length)
+			return false;
+		int side = board.getTurn();
+		first[node] = size;
+		count[node] = n;
+		for (int k = 0; k < n; ++k) {
+			int c = size + k;
+			move[c] = buffer[k];
+			count[c] = -1;
+			visits[c] = 0;
+			wins[c] = 0f;
+			mover[c] = (byte) side;
+		}
+		size += n;
+		return true;
+	}
+
+	/**
+	 * Plays random moves to the end of the game or the playout limit.
+	 *
+	 * @return The winner, Square.GOLD or Square.RED, or -1 for a tie.
+	 */
+	private int playout() {
+		for (int k = 0; k < PLAYOUT_LIMIT; ++k) {
+			int gold = board.countLiveFlags(Square.GOLD);
+			int red = board.countLiveFlags(Square.RED);
+			if (gold == 0 || red == 0)
+				return gold == red ? -1 : gold == 0 ? Square.RED : Square.GOLD;
+			int n = generator.generate(board, buffer);
+			if (n == 0)
+				break;
+			board.make(buffer[nextInt(n)]);
+		}
+		int score = evaluator.evaluate(board, Square.GOLD);
+		return score > 0 ? Square.GOLD : score < 0 ? Square.RED : -1;
+	}
+
+	/**
+	 * A xorshift random number in [0, n).
+	 */
+	private int nextInt(int n) {
+		long x = seed;
+		x ^= x << 13;
+		x ^= x >>> 7;
+		x ^= x << 17;
+		seed = x;
+		return (int) ((x >>> 33) % n);
+	}
+}
@@ -0,0 +1,39 @@
+package edu.purdue.dtf.ai;
+
+import edu.purdue.dtf.game.Board;
+import edu.purdue.dtf.game.MoveGenerator;
+
+/**
+ * RandomAgent plays a uniformly random legal action. It is the baseline
+ * every other agent should beat.
+ */
+public final class RandomAgent implements Agent {
+
+	private final MoveGenerator generator = new MoveGenerator();
+	private final int[] moves = new int[MoveGenerator.MAX_MOVES];
+	private long seed;
+
+	/**
+	 * Creates a random agent.
+	 *
+	 * @param seed
+	 *            Seed for the choices, so games can be repeated.
+	 */
+	public RandomAgent(long seed) {
+		this.seed = seed == 0L ? 1L : seed;
+	}
+
+	@Override
+	public int chooseMove(Board position) {
+		int n = generator.generate(position, moves);
+		if (n == 0)
+			return -1;
+		// xorshift
+		long x = seed;
+		x ^= x << 13;
+		x ^= x >>> 7;
+		x ^= x << 17;
+		seed = x;
+		return moves[(int) ((x >>> 33) % n)];
+	}
+}
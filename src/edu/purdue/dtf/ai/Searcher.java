@@ -0,0 +1,313 @@
+package edu.purdue.dtf.ai;
+
+import edu.purdue.dtf.game.Board;
+import edu.purdue.dtf.game.Move;
+import edu.purdue.dtf.game.MoveGenerator;
+import edu.purdue.dtf.game.Projectile;
+import edu.purdue.dtf.game.Square;
+import edu.purdue.dtf.game.UndoRecord;
+
+/**
+ * Searcher is one thread's share of an AiPlayer search: an iterative
+ * deepening alpha-beta search over single actions, with its own board and
+ * move buffers. Several searchers can run at once on copies of the same
+ * position, sharing the evaluator and the transposition table, which is how
+ * the AI uses more than one core (lazy SMP). The helpers mostly fill the
+ * table with results the main searcher then finds already done.
+ */
+final class Searcher implements Runnable {
+
+	// Score of a won position. Wins found sooner score higher.
+	static final int WIN = 1000000;
+
+	// No score is ever outside of this.
+	private static final int INFINITY = WIN + 1;
+
+	// Scores this close to WIN are wins or losses at a known distance.
+	private static final int WIN_THRESHOLD = WIN - 1000;
+
+	// Deepest search in actions.
+	private static final int MAX_PLY = 64;
+
+	// How often, in nodes, the clock and stop flag are checked.
+	private static final int CLOCK_INTERVAL = 1023;
+
+	// Move ordering priorities.
+	private static final int ORDER_TABLE = 1 << 30;
+	private static final int ORDER_FLAG_HIT = 1 << 24;
+	private static final int ORDER_HIT = 1 << 20;
+	private static final int ORDER_CAPTURE = 1 << 16;
+
+	private final Evaluator evaluator;
+	private final TranspositionTable table;
+	private final MoveGenerator generator = new MoveGenerator();
+
+	// Helpers start at different depths so they do not all search the same
+	// tree in lock step.
+	private final int depthOffset;
+
+	// Per ply move lists and their ordering scores.
+	private final int[][] moves = new int[MAX_PLY][MoveGenerator.MAX_MOVES];
+	private final int[][] order = new int[MAX_PLY][MoveGenerator.MAX_MOVES];
+
+	// State of the search in progress.
+	private Board board;
+	private long deadline;
+	private int maxDepth;
+	private boolean aborted;
+
+	// Set from another thread to end the search early.
+	private volatile boolean stopped;
+
+	// Results of the last search.
+	private long nodes;
+	private int depthReached;
+	private int score;
+	private int bestMove;
+
+	/**
+	 * Creates a searcher.
+	 *
+	 * @param depthOffset
+	 *            Depth to skip ahead to on the first iteration; 0 for the
+	 *            main searcher.
+	 */
+	Searcher(Evaluator evaluator, TranspositionTable table, int depthOffset) {
+		this.evaluator = evaluator;
+		this.table = table;
+		this.depthOffset = depthOffset;
+	}
+
+	/**
+	 * Sets up the next search. The board becomes the searcher's own until
+	 * the search ends.
+	 */
+	void prepare(Board b, long deadline, int maxDepth) {
+		this.board = b;
+		this.deadline = deadline;
+		this.maxDepth = maxDepth;
+		this.stopped = false;
+	}
+
+	/**
+	 * Asks a running search to end as soon as possible.
+	 */
+	void stop() {
+		stopped = true;
+	}
+
+	/**
+	 * Runs the prepared search, for use on a helper thread.
+	 */
+	public void run() {
+		search();
+	}
+
+	/**
+	 * Runs iterative deepening on the prepared board until the deadline, the
+	 * depth limit or until stopped.
+	 *
+	 * @return The best move of the deepest finished iteration, or -1 if
+	 *         there are no legal moves.
+	 */
+	int search() {
+		aborted = false;
+		nodes = 0;
+		depthReached = 0;
+		score = 0;
+		bestMove = -1;
+		int[] rootMoves = moves[0];
+		int n = generator.generate(board, rootMoves);
+		if (n == 0) {
+			board = null;
+			return -1;
+		}
+		scoreMoves(0, n, -1);
+		sort(rootMoves, order[0], n);
+		bestMove = rootMoves[0];
+		int side = board.getTurn();
+		int limit = Math.min(maxDepth, MAX_PLY - 1);
+		for (int depth = 1 + depthOffset; depth <= limit; ++depth) {
+			int alpha = -INFINITY;
+			int iterationBest = -1;
+			for (int k = 0; k < n; ++k) {
+				UndoRecord u = board.make(rootMoves[k]);
+				int s = board.getTurn() == side ? search(depth - 1, alpha,
+						INFINITY, 1) : -search(depth - 1, -INFINITY, -alpha, 1);
+				board.unmake(u);
+				if (aborted)
+					break;
+				if (s > alpha) {
+					alpha = s;
+					iterationBest = k;
+				}
+			}
+			if (aborted)
+				break;
+			// play the best move first next iteration
+			int m = rootMoves[iterationBest];
+			System.arraycopy(rootMoves, 0, rootMoves, 1, iterationBest);
+			rootMoves[0] = m;
+			bestMove = m;
+			score = alpha;
+			depthReached = depth;
+			if (alpha > WIN_THRESHOLD || alpha < -WIN_THRESHOLD)
+				break;
+		}
+		board = null;
+		return bestMove;
+	}
+
+	long getNodes() {
+		return nodes;
+	}
+
+	int getDepthReached() {
+		return depthReached;
+	}
+
+	int getScore() {
+		return score;
+	}
+
+	int getBestMove() {
+		return bestMove;
+	}
+
+	private int search(int depth, int alpha, int beta, int ply) {
+		if ((++nodes & CLOCK_INTERVAL) == 0
+				&& (stopped || System.nanoTime() > deadline))
+			aborted = true;
+		if (aborted)
+			return 0;
+		int side = board.getTurn();
+		int mine = board.countLiveFlags(side);
+		int theirs = board.countLiveFlags(1 - side);
+		if (mine == 0 || theirs == 0) {
+			if (mine == theirs)
+				return 0;
+			return mine > 0 ? WIN - ply : ply - WIN;
+		}
+		if (depth == 0 || ply == MAX_PLY - 1)
+			return evaluator.evaluate(board, side);
+
+		long key = board.getKey();
+		long entry = table.probe(key);
+		int tableMove = -1;
+		if (entry != 0L) {
+			tableMove = TranspositionTable.move(entry);
+			if (TranspositionTable.depth(entry) >= depth) {
+				int s = fromTable(TranspositionTable.score(entry), ply);
+				int bound = TranspositionTable.bound(entry);
+				if (bound == TranspositionTable.EXACT
+						|| (bound == TranspositionTable.LOWER && s >= beta)
+						|| (bound == TranspositionTable.UPPER && s <= alpha))
+					return s;
+			}
+		}
+
+		int[] list = moves[ply];
+		int n = generator.generate(board, list);
+		if (n == 0)
+			return evaluator.evaluate(board, side);
+		scoreMoves(ply, n, tableMove);
+
+		int originalAlpha = alpha;
+		int best = -INFINITY;
+		int bestMove = -1;
+		for (int k = 0; k < n; ++k) {
+			int move = pickNext(list, order[ply], k, n);
+			UndoRecord u = board.make(move);
+			int s = board.getTurn() == side ? search(depth - 1, alpha, beta,
+					ply + 1) : -search(depth - 1, -beta, -alpha, ply + 1);
+			board.unmake(u);
+			if (aborted)
+				return 0;
+			if (s > best) {
+				best = s;
+				bestMove = move;
+				if (s > alpha) {
+					alpha = s;
+					if (alpha >= beta)
+						break;
+				}
+			}
+		}
+		int bound = best <= originalAlpha ? TranspositionTable.UPPER
+				: best >= beta ? TranspositionTable.LOWER
+						: TranspositionTable.EXACT;
+		table.store(key, bestMove, toTable(best, ply), depth, bound);
+		return best;
+	}
+
+	/**
+	 * Fills in the ordering scores for the moves at a ply.
+	 */
+	private void scoreMoves(int ply, int n, int tableMove) {
+		int[] list = moves[ply];
+		int[] scores = order[ply];
+		int side = board.getTurn();
+		for (int k = 0; k < n; ++k) {
+			int move = list[k];
+			int s = 0;
+			if (move == tableMove) {
+				s = ORDER_TABLE;
+			} else if (Move.kind(move) == Move.FIRE) {
+				Projectile p = Move.projectile(move);
+				int target = board.traceShot(Move.from(move));
+				if (target >= 0 && (p == Projectile.ROCK || p == Projectile.FIRE)) {
+					int t = board.getSquare(target);
+					if (Square.owner(t) != side && Square.hitPoints(t) > 0)
+						s = Square.type(t) == Square.FLAG ? ORDER_FLAG_HIT
+								: ORDER_HIT + Square.maxHitPoints(Square.type(t));
+				}
+			} else if (Move.kind(move) == Move.MOVE) {
+				int t = board.getSquare(Move.to(move));
+				if (t != Square.EMPTY)
+					s = Square.type(t) == Square.FLAG ? ORDER_FLAG_HIT
+							: ORDER_CAPTURE;
+			}
+			scores[k] = s;
+		}
+	}
+
+	/**
+	 * Swaps the best scoring of the remaining moves into position k and
+	 * returns it. Cheaper than a full sort when a cutoff comes early.
+	 */
+	private static int pickNext(int[] list, int[] scores, int k, int n) {
+		int best = k;
+		for (int j = k + 1; j < n; ++j)
+			if (scores[j] > scores[best])
+				best = j;
+		int move = list[best];
+		list[best] = list[k];
+		list[k] = move;
+		int s = scores[best];
+		scores[best] = scores[k];
+		scores[k] = s;
+		return move;
+	}
+
+	private static void sort(int[] list, int[] scores, int n) {
+		for (int k = 0; k < n; ++k)
+			pickNext(list, scores, k, n);
+	}
+
+	// Win scores are stored relative to the position rather than the root.
+	private static int toTable(int s, int ply) {
+		if (s > WIN_THRESHOLD)
+			return s + ply;
+		if (s < -WIN_THRESHOLD)
+			return s - ply;
+		return s;
+	}
+
+	private static int fromTable(int s, int ply) {
+		if (s > WIN_THRESHOLD)
+			return s - ply;
+		if (s < -WIN_THRESHOLD)
+			return s + ply;
+		return s;
+	}
+}
@@ -0,0 +1,84 @@
+package edu.purdue.dtf.ai;
+
+/**
+ * TranspositionTable remembers search results by position key, so the same
+ * position reached by a different order of actions is not searched again, and
+ * the best move found at a position can be tried first next time.
+ *
+ * Entries live in two flat long arrays (key and packed data) rather than as
+ * objects, and a new result always replaces whatever was in its slot.
+ *
+ * The table is shared by all search threads without any locking. Each slot
+ * stores the key XORed with the data, so an entry half written by one thread
+ * while another overwrote it fails the key check on probe and reads as a
+ * miss rather than as wrong data for the position.
+ */
+final class TranspositionTable {
+
+	// What the stored score says about the true score.
+	static final int EXACT = 1;
+	static final int LOWER = 2;
+	static final int UPPER = 3;
+
+	private final long[] keys;
+	private final long[] data;
+	private final int mask;
+
+	/**
+	 * Creates a table with 2^bits entries.
+	 */
+	TranspositionTable(int bits) {
+		keys = new long[1 << bits];
+		data = new long[1 << bits];
+		mask = (1 << bits) - 1;
+	}
+
+	/**
+	 * Looks up a position.
+	 * 
+	 * @return The packed entry, or 0 if the position is not stored.
+	 */
+	long probe(long key) {
+		int slot = (int) key & mask;
+		long entry = data[slot];
+		return (keys[slot] ^ entry) == key ? entry : 0L;
+	}
+
+	void store(long key, int move, int score, int depth, int bound) {
+		int slot = (int) key & mask;
+		long entry = pack(move, score, depth, bound);
+		keys[slot] = key ^ entry;
+		data[slot] = entry;
+	}
+
+	void clear() {
+		for (int i = 0; i < keys.length; ++i) {
+			keys[i] = 0L;
+			data[i] = 0L;
+		}
+	}
+
+	// Entry layout: score in the low 32 bits, then move (20 bits, all ones
+	// for none), depth (8 bits) and bound (2 bits, never 0 in a stored entry).
+	static long pack(int move, int score, int depth, int bound) {
+		return (score & 0xffffffffL) | ((long) (move & 0xfffff) << 32)
+				| ((long) depth << 52) | ((long) bound << 60);
+	}
+
+	static int score(long entry) {
+		return (int) entry;
+	}
+
+	static int move(long entry) {
+		int move = (int) (entry >>> 32) & 0xfffff;
+		return move == 0xfffff ? -1 : move;
+	}
+
+	static int depth(long entry) {
+		return (int) (entry >>> 52) & 0xff;
+	}
+
+	static int bound(long entry) {
+		return (int) (entry >>> 60) & 0x3;
+	}
+}
@@ -1,15 +1,11 @@
 package edu.purdue.dtf.game;
 
 import java.io.BufferedReader;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Queue;
-
-import android.util.Log;
+import java.io.OutputStream;
 
 /**
  * Board provides the basic game grid and is responsible for all the core game
@@ -17,9 +13,23 @@ import android.util.Log;
  * notifies all views and other listeners with something happens for which they
  * may need to update. At any given time, the board represents the current state
  * of the game.
+ *
+ * Internally every square is packed into a single int (see Square), and a set
+ * of occupancy bitmasks is kept alongside for the questions asked most often,
+ * such as whose pieces are where and how many flags each player has left.
+ * Since a board of up to 128 squares fits in two longs, those questions are a
+ * bit test or a popcount rather than a scan over the grid.
+ *
+ * For search, moves can also be applied with make and taken back exactly with
+ * unmake. Every square change made in between is journaled, so an AI can walk
+ * a game tree on one board instead of copying it for every node.
+ *
+ * The board also keeps a 64-bit Zobrist key of the full game state (see
+ * Zobrist), updated incrementally as squares change, for transposition
+ * tables and spotting repeated positions.
  */
 public final class Board {
-	
+
 	// Tag used for logging from this class.
 	private final static String TAG = "BOARD";
 
@@ -27,56 +37,302 @@ public final class Board {
 	private static final int MOVES_PER_TURN = 3;
 
 	private static final int SHIELD_COUNTER_START = 4;
-	
+
+	// Binary layout header: magic, version, width and height.
+	private static final int LAYOUT_MAGIC_0 = 'D';
+	private static final int LAYOUT_MAGIC_1 = 'L';
+	private static final int LAYOUT_VERSION = 1;
+	private static final int LAYOUT_HEADER = 5;
+
+	// State snapshot header: magic, version, width, height, whose turn it is
+	// and the actions they have left. Each square then takes three bytes.
+	private static final int STATE_MAGIC_0 = 'D';
+	private static final int STATE_MAGIC_1 = 'S';
+	private static final int STATE_VERSION = 1;
+	private static final int STATE_HEADER = 7;
+	private static final int STATE_SQUARE_BYTES = 3;
+
 	private static final int STUN_COUNTER_START = 4;
-	
-	// Keeps track of whose turn it is in this state. Cycles between G and R.
-	private String whoseTurn;
+
+	// The occupancy masks are two longs each, which limits the board size.
+	private static final int MAX_SQUARES = 128;
+
+	// Indexes of the occupancy sets. Every occupied square is in ALL and in
+	// the set of its owner and of its owner's piece type. Flags that still
+	// have hit points are also in the live flag set of their owner.
+	private static final int SET_ALL = 0;
+	private static final int SET_OWNER = 1;
+	private static final int SET_PIECE = 3;
+	private static final int SET_LIVE_FLAG = SET_PIECE + 2 * (Square.TYPE_COUNT - 1);
+	private static final int SET_COUNT = SET_LIVE_FLAG + 2;
+
+	// Whose turn it is, either Square.GOLD or Square.RED.
+	private int turn;
 
 	// Tracks how many moves the current player has left.
 	private int movesRemaining;
 
+	// The Zobrist key of the whole game state, kept up to date by every change
+	// to the squares, the turn or the moves remaining.
+	private long key;
+
 	// The size of the board grid in terms of number of squares.
 	private int width, height;
 
 	// Tracks whom to notify of board events like a move occurred or next turn.
-	private List<BoardListener> listeners;
-	
-	// Stores all the per square board state.
-	private Piece grid[][] = null;
+	// Event listeners, the event types each wants and all of those types
+	// together. Events nobody wants are not recorded at all.
+	private BoardEventListener[] listeners = new BoardEventListener[0];
+	private int[] listenerMasks = new int[0];
+	private int wanted = 0;
+
+	// The events of the action in progress, delivered when it completes.
+	private final BoardEvents events = new BoardEvents(32);
+
+	// Stores all the per square board state, packed as described in Square
+	// and indexed by x + y * width.
+	private final int[] squares;
+
+	// The occupancy sets, low 64 squares and high 64 squares, per set index.
+	private final long[] setLo = new long[SET_COUNT];
+	private final long[] setHi = new long[SET_COUNT];
+
+	// Squares along every projectile path, shared by boards of this size.
+	private final RayTable rays;
+
+	// Piece views handed out by getPiece, kept so asking for the same square
+	// again does not allocate until the square actually changes.
+	private final Piece[] views;
+
+	// Square changes made since the oldest outstanding make, as pairs of
+	// square index and the value the square had before.
+	private int[] journal = new int[256];
+	private int journalSize = 0;
+
+	// Records for the moves made and not yet unmade, reused between moves.
+	private UndoRecord[] undoStack = new UndoRecord[16];
+	private int undoDepth = 0;
 
 	/**
 	 * Constructs a board with the specified width and height, in terms or the
 	 * number of squares the board is composed of. The standard game board for
 	 * Destroy the Flags is 11 x 9.
-	 * 
+	 *
 	 * @param width
 	 *            The width of the game board in squares.
 	 * @param height
 	 *            The height of the game board in squares.
 	 */
 	public Board(int width, int height) {
+		if (width * height > MAX_SQUARES)
+			throw new IllegalArgumentException("board too large: " + width
+					+ " x " + height);
 		this.width = width;
 		this.height = height;
-		this.grid = new Piece[width][height];
-		this.whoseTurn = "G";
+		this.squares = new int[width * height];
+		this.views = new Piece[width * height];
+		this.rays = RayTable.forSize(width, height);
+		this.turn = Square.GOLD;
 		this.movesRemaining = Board.MOVES_PER_TURN;
+		this.key = Zobrist.turn(turn, movesRemaining);
+	}
+
+	/**
+	 * Constructs a copy of another board's game state. Listeners and undo
+	 * history are not copied, which makes this the way to get a private board
+	 * for an AI to search on.
+	 *
+	 * @param other
+	 *            The board to copy.
+	 */
+	public Board(Board other) {
+		this(other.width, other.height);
+		copyFrom(other);
+	}
+
+	/**
+	 * Overwrites this board's game state with another board's, without
+	 * allocating. The undo history is dropped and listeners are not told, so
+	 * this suits resetting a search board back to its root, such as before
+	 * each playout of a Monte Carlo search.
+	 *
+	 * @param other
+	 *            The board to copy, which must have the same size.
+	 */
+	public void copyFrom(Board other) {
+		if (other.width != width || other.height != height)
+			throw new IllegalArgumentException("board size differs: "
+					+ other.width + " x " + other.height);
+		System.arraycopy(other.squares, 0, squares, 0, squares.length);
+		System.arraycopy(other.setLo, 0, setLo, 0, SET_COUNT);
+		System.arraycopy(other.setHi, 0, setHi, 0, SET_COUNT);
+		this.turn = other.turn;
+		this.movesRemaining = other.movesRemaining;
+		this.key = other.key;
+		journalSize = 0;
+		undoDepth = 0;
 	}
 
 	/**
 	 * Removes all the pieces from the board leaving it empty.
 	 */
 	public void clearBoard() {
-		for (int y = 0; y < height; ++y) {
-			for (int x = 0; x < width; ++x) {
-				grid[x][y] = null;
-			}
+		for (int i = 0; i < squares.length; ++i) {
+			squares[i] = Square.EMPTY;
+			views[i] = null;
+		}
+		for (int s = 0; s < SET_COUNT; ++s) {
+			setLo[s] = 0L;
+			setHi[s] = 0L;
+		}
+		// there is nothing left to take back to
+		journalSize = 0;
+		undoDepth = 0;
+		key = Zobrist.turn(turn, movesRemaining);
+	}
+
+	/**
+	 * Initializes the board from a binary layout, as written by writeLayout.
+	 * This is how the game loads its layouts; the text format read by
+	 * setFromStream is only for writing them by hand.
+	 *
+	 * @param in
+	 *            The input stream with the binary layout.
+	 * @throws IOException
+	 *             If the stream cannot be read, or does not hold a valid
+	 *             layout for a board of this size.
+	 */
+	public void setFromLayout(InputStream in) throws IOException {
+		byte[] data = new byte[LAYOUT_HEADER + 2 * squares.length];
+		for (int n = 0; n < data.length;) {
+			int read = in.read(data, n, data.length - n);
+			if (read < 0)
+				throw new EOFException("layout cut short");
+			n += read;
+		}
+		if (data[0] != LAYOUT_MAGIC_0 || data[1] != LAYOUT_MAGIC_1)
+			throw new IOException("not a board layout");
+		if (data[2] != LAYOUT_VERSION)
+			throw new IOException("unsupported layout version " + data[2]);
+		if (data[3] != width || data[4] != height)
+			throw new IOException("layout is for a " + data[3] + " x "
+					+ data[4] + " board");
+		clearBoard();
+		for (int i = 0, p = LAYOUT_HEADER; i < squares.length; ++i, p += 2) {
+			int bits = (data[p] & 0xff) | (data[p + 1] & 0xff) << 8;
+			int code = Square.fromLayoutBits(bits);
+			if (code < 0)
+				throw new IOException("invalid piece on square " + i);
+			if (code != Square.EMPTY)
+				put(i, code);
+		}
+		setTurnState(Square.GOLD, Board.MOVES_PER_TURN);
+	}
+
+	/**
+	 * Writes the pieces on the board as a binary layout for setFromLayout:
+	 * a five byte header (the magic bytes DL, a version, the width and the
+	 * height) and then two bytes per square, little endian, holding the
+	 * square's layout bits (see Square.layoutBits), or zero if empty. Status
+	 * effects and whose turn it is are not part of a layout.
+	 *
+	 * @param out
+	 *            The stream to write to.
+	 * @throws IOException
+	 *             If the stream cannot be written.
+	 */
+	public void writeLayout(OutputStream out) throws IOException {
+		byte[] data = new byte[LAYOUT_HEADER + 2 * squares.length];
+		data[0] = LAYOUT_MAGIC_0;
+		data[1] = LAYOUT_MAGIC_1;
+		data[2] = LAYOUT_VERSION;
+		data[3] = (byte) width;
+		data[4] = (byte) height;
+		for (int i = 0, p = LAYOUT_HEADER; i < squares.length; ++i, p += 2) {
+			int bits = Square.layoutBits(squares[i]);
+			data[p] = (byte) bits;
+			data[p + 1] = (byte) (bits >>> 8);
+		}
+		out.write(data);
+	}
+
+	/**
+	 * Takes a snapshot of the complete game state, status effects and their
+	 * counters included, for restoreState. The snapshot is a few hundred
+	 * bytes: a seven byte header (the magic bytes DS, a version, the width,
+	 * the height, whose turn it is and the actions left) and then the packed
+	 * value of each square (see Square) in three bytes, little endian.
+	 * Listeners and undo history are not part of it.
+	 *
+	 * @return The snapshot.
+	 */
+	public byte[] saveState() {
+		byte[] data = new byte[STATE_HEADER + STATE_SQUARE_BYTES
+				* squares.length];
+		data[0] = STATE_MAGIC_0;
+		data[1] = STATE_MAGIC_1;
+		data[2] = STATE_VERSION;
+		data[3] = (byte) width;
+		data[4] = (byte) height;
+		data[5] = (byte) turn;
+		data[6] = (byte) movesRemaining;
+		for (int i = 0, p = STATE_HEADER; i < squares.length; ++i) {
+			int code = squares[i];
+			data[p++] = (byte) code;
+			data[p++] = (byte) (code >>> 8);
+			data[p++] = (byte) (code >>> 16);
+		}
+		return data;
+	}
+
+	/**
+	 * Puts the board back in the state of a snapshot taken by saveState,
+	 * without telling listeners. The undo history is dropped.
+	 *
+	 * @param data
+	 *            The snapshot.
+	 * @throws IllegalArgumentException
+	 *             If the snapshot is not valid for a board of this size, for
+	 *             instance because it was saved by an older version.
+	 */
+	public void restoreState(byte[] data) {
+		if (data.length != STATE_HEADER + STATE_SQUARE_BYTES * squares.length
+				|| data[0] != STATE_MAGIC_0 || data[1] != STATE_MAGIC_1
+				|| data[2] != STATE_VERSION || data[3] != width
+				|| data[4] != height)
+			throw new IllegalArgumentException("not a snapshot of this board");
+		int savedTurn = data[5];
+		int savedMoves = data[6];
+		if ((savedTurn != Square.GOLD && savedTurn != Square.RED)
+				|| savedMoves < 1 || savedMoves > MOVES_PER_TURN)
+			throw new IllegalArgumentException("invalid turn in snapshot");
+		for (int i = 0; i < squares.length; ++i) {
+			int code = savedSquare(data, i);
+			int type = Square.type(code);
+			if (type == Square.EMPTY ? code != Square.EMPTY
+					: type >= Square.TYPE_COUNT
+							|| Square.hitPoints(code) > Square.maxHitPoints(type))
+				throw new IllegalArgumentException("invalid square " + i
+						+ " in snapshot");
 		}
+		clearBoard();
+		for (int i = 0; i < squares.length; ++i) {
+			int code = savedSquare(data, i);
+			if (code != Square.EMPTY)
+				set(i, code);
+		}
+		setTurnState(savedTurn, savedMoves);
+	}
+
+	private static int savedSquare(byte[] data, int i) {
+		int p = STATE_HEADER + STATE_SQUARE_BYTES * i;
+		return (data[p] & 0xff) | (data[p + 1] & 0xff) << 8
+				| (data[p + 2] & 0xff) << 16;
 	}
 
 	/**
 	 * Initializes the board from a text file input stream.
-	 * 
+	 *
 	 * @param in
 	 *            The input stream with the file in the standard format.
 	 * @throws IOException
@@ -88,66 +344,103 @@ public final class Board {
 		for (int y = 0; y < height; ++y) {
 			String[] tokens = r.readLine().split(" ");
 			for (int x = 0; x < width; ++x) {
-				if (!"*".equals(tokens[x].substring(0, 1))) {
-					Piece piece = Piece.valueOf(tokens[x]);
-					grid[x][y] = piece;
-					Log.d(TAG,
-							String.format("added %s at (%d,%d)", piece, x, y));
+				if (tokens[x].charAt(0) != '*') {
+					put(index(x, y), Square.parse(tokens[x]));
 				}
 			}
 		}
-		this.whoseTurn = "G";
-		this.movesRemaining = Board.MOVES_PER_TURN;
+		setTurnState(Square.GOLD, Board.MOVES_PER_TURN);
 	}
 
 	/**
 	 * Returns the piece at position p.
-	 * 
+	 *
 	 * @param p
 	 *            The position of the square at which the piece is sought.
-	 * @return The character code of the piece at this position.
+	 * @return A view of the piece at this position, or null if it is empty.
 	 */
 	public Piece getPiece(Position p) {
-		return grid[p.x][p.y];
+		return getPiece(index(p));
+	}
+
+	/**
+	 * Returns the piece on square i.
+	 *
+	 * @param i
+	 *            The square index, see index.
+	 * @return A view of the piece on the square, or null if it is empty.
+	 */
+	public Piece getPiece(int i) {
+		int code = squares[i];
+		if (code == Square.EMPTY)
+			return null;
+		Piece view = views[i];
+		if (view == null || view.code != code) {
+			view = Piece.valueOf(code);
+			views[i] = view;
+		}
+		return view;
+	}
+
+	/**
+	 * Returns the packed value of the square at position p.
+	 *
+	 * @param p
+	 *            The position of the square.
+	 * @return The packed square value, see Square, or Square.EMPTY.
+	 */
+	public int getSquare(Position p) {
+		return squares[index(p)];
+	}
+
+	/**
+	 * Returns the packed value of square i.
+	 *
+	 * @param i
+	 *            The square index, see index.
+	 * @return The packed square value, see Square, or Square.EMPTY.
+	 */
+	public int getSquare(int i) {
+		return squares[i];
+	}
+
+	/**
+	 * Gets the squares occupied by a player's pieces with index below 64, as
+	 * a bitmask.
+	 */
+	long getOwnedLo(int owner) {
+		return setLo[SET_OWNER + owner];
+	}
+
+	/**
+	 * Gets the squares occupied by a player's pieces with index 64 and up, as
+	 * a bitmask shifted down by 64.
+	 */
+	long getOwnedHi(int owner) {
+		return setHi[SET_OWNER + owner];
 	}
 
 	/**
 	 * Returns whether the game is over or not.
-	 * 
+	 *
 	 * @return True if the game over condition is satisfied on the game board,
 	 *         false otherwise.
 	 */
 	public boolean isGameOver() {
-		Log.d(TAG, "Winner: " + getWinner());
 		return getWinner() != null;
 	}
 
 	/**
 	 * Return the player that won the game. Only applies when the game is
 	 * actually over.
-	 * 
+	 *
 	 * @return "G" or "R" depending on whether Gold or Red wins. Returns null in
 	 *         the case where the game is not over, and TIE in case there's a
 	 *         tie.
 	 */
 	public String getWinner() {
-		// count up all the flags that are still alive for each player
-		int g = 0, r = 0; // active flag counts
-		for (int y = 0; y < height; ++y) {
-			for (int x = 0; x < width; ++x) {
-				Piece p = grid[x][y];
-				if (p != null) {
-					if (p instanceof Flag) {
-						if (p.getHitPoints() > 0) {
-							if ("G".equals(p.getBelongsTo()))
-								++g;
-							else
-								++r;
-						}
-					}
-				}
-			}
-		}
+		int g = countLiveFlags(Square.GOLD);
+		int r = countLiveFlags(Square.RED);
 		// determine whether or not there is a winner based on those counts
 		if (g == 0 && r != 0)
 			return "R";
@@ -159,9 +452,34 @@ public final class Board {
 			return null;
 	}
 
+	/**
+	 * Counts the flags a player still has standing.
+	 *
+	 * @param owner
+	 *            Square.GOLD or Square.RED.
+	 * @return The number of flags with hit points left.
+	 */
+	public int countLiveFlags(int owner) {
+		return count(SET_LIVE_FLAG + owner);
+	}
+
+	/**
+	 * Counts the pieces of one type a player has on the board, whether they
+	 * have hit points left or not.
+	 *
+	 * @param type
+	 *            The piece type, see Square.
+	 * @param owner
+	 *            Square.GOLD or Square.RED.
+	 * @return The number of such pieces.
+	 */
+	public int countPieces(int type, int owner) {
+		return count(pieceSet(type, owner));
+	}
+
 	/**
 	 * Gets the width of the game board in terms of grid squares.
-	 * 
+	 *
 	 * @return The width of the grid.
 	 */
 	public int getWidth() {
@@ -170,7 +488,7 @@ public final class Board {
 
 	/**
 	 * Gets the height of the game board in terms of grid squares.
-	 * 
+	 *
 	 * @return The height of the grid.
 	 */
 	public int getHeight() {
@@ -179,96 +497,174 @@ public final class Board {
 
 	/**
 	 * Check if the given board position is actually on the board.
-	 * 
+	 *
 	 * @param p
 	 *            The board position to check.
 	 * @return
 	 */
 	public boolean isOnBoard(Position p) {
-		return p.x >= 0 && p.x < width && p.y >= 0 && p.y < height;
+		return isOnBoard(p.x, p.y);
+	}
+
+	/**
+	 * Check if the given coordinates are on the board.
+	 *
+	 * @param x
+	 *            The column.
+	 * @param y
+	 *            The row.
+	 * @return True if the square exists.
+	 */
+	public boolean isOnBoard(int x, int y) {
+		return x >= 0 && x < width && y >= 0 && y < height;
 	}
 
 	/**
 	 * Switches to the other players turn.
 	 */
 	private void nextPlayer() {
-		whoseTurn = whoseTurn.equals("G") ? "R" : "G";
-		movesRemaining = Board.MOVES_PER_TURN;
-		
-		for (int y = 0; y < height; ++y) {
-			for (int x = 0; x < width; ++x) {
-				Piece p = grid[x][y];
-				if (p != null) {
-					p.moves = 0;
-					p.fired = false;
-					if (p.stunned) {
-						--p.stunCounter;
-						if (p.stunCounter <= 0) {
-							p.stunned = false;
-							for (BoardListener listener : listeners)
-								listener.onPieceUnstunned(new Position(x, y));
-						}
+		setTurnState(turn ^ 1, Board.MOVES_PER_TURN);
+
+		// visit the occupied squares in grid order, low 64 then high 64
+		for (int half = 0; half < 2; ++half) {
+			long bits = half == 0 ? setLo[SET_ALL] : setHi[SET_ALL];
+			while (bits != 0L) {
+				int i = Long.numberOfTrailingZeros(bits) + half * 64;
+				bits &= bits - 1;
+				int code = squares[i];
+				code = Square.withMoves(code, 0);
+				code = Square.with(code, Square.FIRED, false);
+				boolean unstunned = false, unshielded = false;
+				if (Square.is(code, Square.STUNNED)) {
+					int counter = Square.stunCounter(code) - 1;
+					code = Square.withStunCounter(code, Math.max(counter, 0));
+					if (counter <= 0) {
+						code = Square.with(code, Square.STUNNED, false);
+						unstunned = true;
 					}
-					if (p.shielded) {
-						--p.shieldCounter;
-						if (p.shieldCounter <= 0) {
-							p.shielded = false;
-							for (BoardListener listener : listeners)
-								listener.onPieceUnshielded(new Position(x, y));
-						}
+				}
+				if (Square.is(code, Square.SHIELDED)) {
+					int counter = Square.shieldCounter(code) - 1;
+					code = Square.withShieldCounter(code, Math.max(counter, 0));
+					if (counter <= 0) {
+						code = Square.with(code, Square.SHIELDED, false);
+						unshielded = true;
 					}
 				}
+				put(i, code);
+				if (unstunned)
+					event(BoardEvents.UNSTUNNED, i, 0);
+				if (unshielded)
+					event(BoardEvents.UNSHIELDED, i, 0);
 			}
 		}
-
 	}
 
 	/**
 	 * Move the piece at position a to position b.
-	 * 
+	 *
 	 * @param a
 	 *            The position to move from.
 	 * @param b
 	 *            The position to move to.
 	 */
 	public void movePiece(Position a, Position b) {
-		grid[b.x][b.y] = grid[a.x][a.y];
-		grid[a.x][a.y] = null;
-		grid[b.x][b.y].moves++; 
-		for (BoardListener listener : listeners)
-			listener.onPieceMoved(a, b);
-		--movesRemaining;
+		movePiece(index(a), index(b));
+	}
+
+	private void movePiece(int from, int to) {
+		int code = squares[from];
+		put(from, Square.EMPTY);
+		put(to, Square.withMoves(code, Square.moves(code) + 1));
+		event(BoardEvents.MOVED, from, to);
+		endAction();
+	}
+
+	/**
+	 * Uses up one of the current player's actions, passing the turn when they
+	 * are all gone.
+	 */
+	private void endAction() {
+		setTurnState(turn, movesRemaining - 1);
 		if (movesRemaining == 0)
 			nextPlayer();
+		if (events.size() > 0)
+			deliverEvents();
+	}
+
+	/**
+	 * Records an event of the action in progress, if any listener wants it.
+	 */
+	private void event(int type, int square, int arg) {
+		if ((wanted & (1 << type)) != 0)
+			events.add(type, square, arg);
+	}
+
+	/**
+	 * Hands the events of the action just completed to the listeners that
+	 * want any of them.
+	 */
+	private void deliverEvents() {
+		for (int k = 0; k < listeners.length; ++k)
+			if (events.contains(listenerMasks[k]))
+				listeners[k].onBoardEvents(events);
+		events.clear();
+	}
+
+	/**
+	 * Changes whose turn it is and the actions they have left, keeping the
+	 * key in step.
+	 */
+	private void setTurnState(int turn, int movesRemaining) {
+		key ^= Zobrist.turn(this.turn, this.movesRemaining)
+				^ Zobrist.turn(turn, movesRemaining);
+		this.turn = turn;
+		this.movesRemaining = movesRemaining;
 	}
 
 	public boolean isRotatable(Position a) {
-		return hasPiece(a) && getPiece(a).isRotatable() && getPiece(a).hasMovesRemaining();
+		return isRotatable(index(a));
+	}
+
+	public boolean isRotatable(int i) {
+		int code = squares[i];
+		return code != Square.EMPTY
+				&& Square.isRotatable(Square.type(code))
+				&& Square.hasMovesRemaining(code);
 	}
-	
+
 	public boolean canBeFired(Position a, Projectile p) {
-		return hasPiece(a) 
-			&& ((getPiece(a) instanceof Slingshot && p == Projectile.ROCK) || 
-				(getPiece(a) instanceof Obelisk   && p != Projectile.ROCK))
-			&& getPiece(a).hasMovesRemaining()
-			&& !getPiece(a).hasFired();
+		return canBeFired(index(a), p);
+	}
+
+	public boolean canBeFired(int i, Projectile p) {
+		int code = squares[i];
+		if (code == Square.EMPTY)
+			return false;
+		int type = Square.type(code);
+		return ((type == Square.SLINGSHOT && p == Projectile.ROCK) ||
+				(type == Square.OBELISK   && p != Projectile.ROCK))
+			&& Square.hasMovesRemaining(code)
+			&& !Square.is(code, Square.FIRED);
 	}
 
 	public void rotatePiece(Position a, Rotation d) {
-		RotatablePiece p = (RotatablePiece) getPiece(a);
-		p.rotate(d);
-		for (BoardListener listener : listeners)
-			listener.onPieceRotated(a, d);
-		--movesRemaining;
-		if (movesRemaining == 0)
-			nextPlayer();
+		rotatePiece(index(a), d);
+	}
+
+	private void rotatePiece(int i, Rotation d) {
+		int code = squares[i];
+		put(i, Square.withFacing(code,
+				Square.rotate(Square.facing(code), d == Rotation.CLOCKWISE)));
+		event(BoardEvents.ROTATED, i, d.ordinal());
+		endAction();
 	}
 
 	/**
 	 * Determine if the position contains a piece that is hittable.
-	 * 
+	 *
 	 * A piece is hittable if it is not rubble (hit points > 0);
-	 * 
+	 *
 	 * @param p
 	 *            The position to check.
 	 * @return True if a hittable piece is there, false otherwise.
@@ -277,177 +673,214 @@ public final class Board {
 		return hasPiece(p);
 	}
 
+	public boolean hasHittablePiece(int i) {
+		return hasPiece(i);
+	}
+
 	/**
 	 * Fires projectile p from the piece at position a.
-	 * 
+	 *
 	 * Checks along the projectile path for any piece that is struck and applies
 	 * the hit if any is found. If the projectile exits the board it has no
 	 * effect.
-	 * 
+	 *
 	 * @param a
 	 *            The position of the piece firing the projectile.
 	 * @param p
 	 *            The type of projectile fired.
 	 */
 	public void firePiece(Position a, Projectile p) {
-		Piece piece = getPiece(a);
-		Direction d = piece.getDirection();
-		Position pos = new Position(a);
-		List<Position> path = new ArrayList<Position>();
-		List<Direction> dirs = new ArrayList<Direction>();
-		path.add(new Position(pos));
-		while (d != null) {
-			do
-				pos = pos.add(d.getOffset());
-			while (isOnBoard(pos) && !hasHittablePiece(pos));
-			path.add(new Position(pos));
-			dirs.add(d);
-			if (isOnBoard(pos) && getPiece(pos) instanceof Reflector)
-				d = ((Reflector) getPiece(pos)).getReflection(d);
-			else 
-				d = null;
+		firePiece(index(a), p);
+	}
+
+	private void firePiece(int from, Projectile p) {
+		// the shot needs to come before any spell effect events so the
+		// projectileAnim can activate and the effects appear after the
+		// animation completes
+		event(BoardEvents.FIRED, from, p.ordinal());
+		// the legs are only needed to tell listeners how to draw the shot
+		int target = trace(from, (wanted & (1 << BoardEvents.SHOT_LEG)) != 0);
+
+		if (target >= 0)
+			hit(target, p);
+
+		int code = squares[from];
+		code = Square.withMoves(code, Square.moves(code) + 1);
+		put(from, Square.with(code, Square.FIRED, true));
+		endAction();
+	}
+
+	/**
+	 * Finds the piece a shot from square i would strike, following any
+	 * reflectors along the way, without firing it. The piece on square i
+	 * need not be able to fire.
+	 *
+	 * @param i
+	 *            The square index of the piece that would fire.
+	 * @return The square index of the piece struck, or -1 if the shot would
+	 *         leave the board.
+	 */
+	public int traceShot(int i) {
+		return trace(i, false);
+	}
+
+	/**
+	 * Follows the shot from square from, and when legs is set, records a
+	 * SHOT_LEG event for each straight part of its path, ending on the piece
+	 * it strikes or turns on, or on the first square off the board.
+	 */
+	private int trace(int from, boolean legs) {
+		int i = from;
+		int d = Square.facing(squares[i]);
+		while (true) {
+			int hit = rays.first(i, d, setLo[SET_ALL], setHi[SET_ALL]);
+			if (legs) {
+				int steps = hit >= 0 ? Math.max(Math.abs(hit % width - i
+						% width), Math.abs(hit / width - i / width)) : rays
+						.reach(i, d);
+				events.add(BoardEvents.SHOT_LEG, i, BoardEvents.leg(d, steps));
+			}
+			if (hit < 0)
+				return -1;
+			int code = squares[hit];
+			if (Square.type(code) != Square.REFLECTOR)
+				return hit;
+			d = Square.reflect(Square.facing(code), d);
+			if (d < 0)
+				return hit;
+			i = hit;
 		}
-		
-		// onProjectileFired needs to fire before any spell effect listeners
-		// so the projectileAnim can activate and the subsequent events appear
-		// after the animation completes
-		for (BoardListener listener : listeners)
-			listener.onProjectileFired(path, dirs, p);
-
-		if (isOnBoard(pos) && hasHittablePiece(pos)) {
-			Piece target = getPiece(pos);
-			switch (p) {
-			case FIRE:
-				if (target instanceof Torch) {
-					Torch torch = (Torch) target;
-					if (!torch.isLit() && !torch.shielded && torch.hitPoints > 0) {
-						torch.setLit(true);
-						for (BoardListener listener : listeners)
-							listener.onFireLit(pos);
-					}
-				} else if (!(target instanceof Boulder || target instanceof Obelisk)) {
-					target.setBurned(true);
-					target.hitPoints = 0;
-				}
-				break;
-			case WATER:
-				if (target instanceof Torch) {
-					Torch torch = (Torch) target;
-					if (torch.isLit() && !target.shielded) {
-						torch.setLit(false);
-						for (BoardListener listener : listeners)
-							listener.onFireUnlit(pos);
-					}
-				}
-				break;
-			case ROOT:
-				if (!(target instanceof Boulder || target instanceof Obelisk)) {
-					if (!target.hasRoots() && !target.shielded) {
-						target.setRoots(true);
-						for (BoardListener listener : listeners)
-							listener.onRooted(pos);
-					}
+	}
+
+	/**
+	 * Applies the effect of projectile p striking the piece on square i.
+	 */
+	private void hit(int i, Projectile p) {
+		int target = squares[i];
+		int type = Square.type(target);
+		boolean torch = type == Square.TORCH;
+		boolean sturdy = type == Square.BOULDER || type == Square.OBELISK;
+		boolean shielded = Square.is(target, Square.SHIELDED);
+		boolean lit = Square.is(target, Square.LIT);
+		switch (p) {
+		case FIRE:
+			if (torch) {
+				if (!lit && !shielded && Square.hitPoints(target) > 0) {
+					put(i, target | Square.LIT);
+					event(BoardEvents.FIRE_LIT, i, 0);
 				}
-				break;
-			case SHIELD:
-				if (!target.shielded) { 
-					if (target instanceof Torch) {
-						Torch torch = (Torch) target;
-						if (torch.isLit() && !target.shielded) {
-							torch.setLit(false);
-							for (BoardListener listener : listeners)
-								listener.onFireUnlit(pos);
-						}
-					}
-					target.shielded = true;
-					target.shieldCounter = SHIELD_COUNTER_START;
-					for (BoardListener listener : listeners)
-						listener.onPieceShielded(pos);
+			} else if (!sturdy) {
+				target = Square.with(target, Square.BURNED, true);
+				put(i, Square.withHitPoints(target, 0));
+			}
+			break;
+		case WATER:
+			if (torch && lit && !shielded)
+				putOut(i);
+			break;
+		case ROOT:
+			if (!sturdy) {
+				if (!Square.is(target, Square.ROOTED) && !shielded) {
+					put(i, target | Square.ROOTED);
+					event(BoardEvents.ROOTED, i, 0);
 				}
-				break;
-			case STUN:
-				if (target instanceof Torch) {
-					Torch torch = (Torch) target;
-					if (torch.isLit() && !target.shielded) {
-						torch.setLit(false);
-						for (BoardListener listener : listeners)
-							listener.onFireUnlit(pos);
-					}
+			}
+			break;
+		case SHIELD:
+			if (!shielded) {
+				if (torch && lit)
+					putOut(i);
+				target = squares[i] | Square.SHIELDED;
+				put(i, Square.withShieldCounter(target, SHIELD_COUNTER_START));
+				event(BoardEvents.SHIELDED, i, 0);
+			}
+			break;
+		case STUN:
+			if (torch && lit && !shielded)
+				putOut(i);
+			target = squares[i] | Square.STUNNED;
+			put(i, Square.withStunCounter(target, STUN_COUNTER_START));
+			event(BoardEvents.STUNNED, i, 0);
+			break;
+		case HEAL:
+			if (!shielded) {
+				int hp = Square.hitPoints(target);
+				if (hp < Square.maxHitPoints(type)) {
+					put(i, Square.withHitPoints(target, hp + 1));
 				}
-				target.stunned = true;
-				target.stunCounter = STUN_COUNTER_START;
-				for (BoardListener listener : listeners)
-					listener.onPieceStunned(pos);
-				break;
-			case HEAL:
-				if (!target.shielded) {
-					if (target.getHitPoints() < target.getMaxHitPoints()) {
-						++target.hitPoints;
-					}
-					if (target.isStunned()) {
-						target.stunned = false;
-						for (BoardListener listener : listeners)
-							listener.onPieceUnstunned(pos);
-					}
-					if (target.hasRoots()) {
-						target.setRoots(false);
-						for (BoardListener listener : listeners)
-							listener.onUnrooted(pos);
-					}
+				if (Square.is(target, Square.STUNNED)) {
+					put(i, squares[i] & ~Square.STUNNED);
+					event(BoardEvents.UNSTUNNED, i, 0);
 				}
-				break;
-			case ROCK:
-				if (target instanceof Torch) {
-					Torch torch = (Torch) target;
-					if (torch.isLit() && !target.shielded) {
-						torch.setLit(false);
-						for (BoardListener listener : listeners)
-							listener.onFireUnlit(pos);
-					}
+				if (Square.is(target, Square.ROOTED)) {
+					put(i, squares[i] & ~Square.ROOTED);
+					event(BoardEvents.UNROOTED, i, 0);
 				}
-				if (target.hitPoints > 0)
-					--target.hitPoints;
-				break;
-			default:
-				Log.e(TAG, "unhandled projectile: " + p.toString());
-				break;
 			}
+			break;
+		case ROCK:
+			if (torch && lit && !shielded)
+				putOut(i);
+			int hp = Square.hitPoints(squares[i]);
+			if (hp > 0)
+				put(i, Square.withHitPoints(squares[i], hp - 1));
+			break;
+		default:
+			GameLog.e(TAG, "unhandled projectile: " + p.toString());
+			break;
 		}
-		--movesRemaining;
-		piece.moves++;
-		piece.fired = true;
-		if (movesRemaining == 0)
-			nextPlayer();
+	}
+
+	/**
+	 * Puts out the torch on square i.
+	 */
+	private void putOut(int i) {
+		put(i, squares[i] & ~Square.LIT);
+		event(BoardEvents.FIRE_UNLIT, i, 0);
 	}
 
 	/**
 	 * Check if board position p currently has a piece.
-	 * 
+	 *
 	 * @param p
 	 *            The board position to check.
 	 * @return True if there is the position is occupied, false otherwise.
 	 */
 	public boolean hasPiece(Position p) {
-		return grid[p.x][p.y] != null;
+		return hasPiece(index(p));
+	}
+
+	public boolean hasPiece(int i) {
+		return squares[i] != Square.EMPTY;
 	}
 
 	/**
 	 * Determines whether the given position is a valid square that the player
 	 * could potentially move.
-	 * 
+	 *
 	 * @param a
 	 *            The position to check.
 	 * @return True if this piece would be OK to move, false otherwise.
 	 */
 	public boolean isValidMoveStart(Position a) {
-		return isOnBoard(a) && hasPiece(a)
-				&& getPiece(a).getBelongsTo().equals(getWhoseTurn());
+		return isOnBoard(a) && isValidMoveStart(index(a));
+	}
+
+	/**
+	 * Determines whether square i holds a piece of the player to move.
+	 *
+	 * @param i
+	 *            The square index, see index.
+	 * @return True if this piece would be OK to move, false otherwise.
+	 */
+	public boolean isValidMoveStart(int i) {
+		return i >= 0 && i < squares.length && contains(SET_OWNER + turn, i);
 	}
 
 	/**
 	 * Calculates the distance between two positions in terms of the number of
 	 * moves it would take to get there.
-	 * 
+	 *
 	 * @param a
 	 *            The first position.
 	 * @param b
@@ -458,9 +891,22 @@ public final class Board {
 		return Math.abs(a.x - b.x) + Math.abs(a.y - b.y);
 	}
 
+	/**
+	 * Calculates the distance between two squares in moves.
+	 *
+	 * @param i
+	 *            The first square index.
+	 * @param j
+	 *            The second square index.
+	 * @return The distance between the two squares.
+	 */
+	public int getDistance(int i, int j) {
+		return Math.abs(i % width - j % width) + Math.abs(i / width - j / width);
+	}
+
 	/**
 	 * Checks whether a given move is valid, from point a to point b.
-	 * 
+	 *
 	 * @param a
 	 *            The from position.
 	 * @param b
@@ -468,16 +914,29 @@ public final class Board {
 	 * @return
 	 */
 	public boolean isValidMove(Position a, Position b) {
-		if (isOnBoard(a) && isOnBoard(b) && hasPiece(a)) {
-			Piece piece = getPiece(a);
-			return (!hasPiece(b) || piece.canTake(getPiece(b)))
-				&& piece.getBelongsTo().equals(getWhoseTurn())
-				&& getDistance(a, b) == 1
-				&& piece.getMoves() < piece.getMovesPerTurn()
-				&& !piece.hasRoots() 
-				&& !piece.isStunned() 
-				&& !piece.isBurned() 
-				&& !(piece.getHitPoints() == 0);
+		return isOnBoard(a) && isOnBoard(b) && isValidMove(index(a), index(b));
+	}
+
+	/**
+	 * Checks whether a given move is valid, from square i to square j.
+	 *
+	 * @param i
+	 *            The from square index.
+	 * @param j
+	 *            The to square index.
+	 * @return True if the piece on i may move to j.
+	 */
+	public boolean isValidMove(int i, int j) {
+		if (i >= 0 && i < squares.length && j >= 0 && j < squares.length
+				&& hasPiece(i)) {
+			int piece = squares[i];
+			int target = squares[j];
+			return (target == Square.EMPTY || Square.canTake(piece, target))
+				&& Square.owner(piece) == turn
+				&& getDistance(i, j) == 1
+				&& Square.hasMovesRemaining(piece)
+				&& (piece & (Square.ROOTED | Square.STUNNED | Square.BURNED)) == 0
+				&& Square.hitPoints(piece) != 0;
 		} else {
 			return false;
 		}
@@ -486,23 +945,273 @@ public final class Board {
 	/**
 	 * The given listener will be called for important game updates like when a
 	 * piece is moved on the board.
-	 * 
+	 *
 	 * @param listener
 	 *            The listener instance to be called.
 	 */
 	public void addBoardListener(BoardListener listener) {
-		if (listeners == null) {
-			listeners = new LinkedList<BoardListener>();
-		}
-		listeners.add(listener);
+		addEventListener(new BoardListenerAdapter(listener, this),
+				BoardEvents.ALL);
+	}
+
+	/**
+	 * The given listener will be handed the events of each action in one
+	 * batch, for the actions that produce any of the event types it asks
+	 * for.
+	 *
+	 * @param listener
+	 *            The listener instance to be called.
+	 * @param mask
+	 *            The event types wanted, BoardEvents.mask of each ORed
+	 *            together, or BoardEvents.ALL.
+	 */
+	public void addEventListener(BoardEventListener listener, int mask) {
+		int n = listeners.length;
+		BoardEventListener[] grown = new BoardEventListener[n + 1];
+		int[] masks = new int[n + 1];
+		System.arraycopy(listeners, 0, grown, 0, n);
+		System.arraycopy(listenerMasks, 0, masks, 0, n);
+		grown[n] = listener;
+		masks[n] = mask;
+		listeners = grown;
+		listenerMasks = masks;
+		wanted |= mask;
 	}
 
 	/**
 	 * Tells whose turn it is to move.
-	 * 
+	 *
 	 * @return G if its the gold player's turn, R if it's red's.
 	 */
 	public String getWhoseTurn() {
-		return whoseTurn;
+		return Square.ownerName(turn);
+	}
+
+	/**
+	 * Tells whose turn it is to move.
+	 *
+	 * @return Square.GOLD or Square.RED.
+	 */
+	public int getTurn() {
+		return turn;
+	}
+
+	/**
+	 * Gets the Zobrist key of the current game state. Two boards in the same
+	 * state, including status counters, whose turn it is and the actions left,
+	 * have the same key.
+	 *
+	 * @return The 64-bit position key.
+	 */
+	public long getKey() {
+		return key;
 	}
+
+	/**
+	 * Tells how many actions the current player has left this turn.
+	 *
+	 * @return The number of actions left, 1 to 3.
+	 */
+	public int getMovesRemaining() {
+		return movesRemaining;
+	}
+
+	/**
+	 * Applies a move so that it can be taken back later with unmake. The move
+	 * is carried out exactly as movePiece, rotatePiece or firePiece would,
+	 * listeners included, and is not checked for legality.
+	 *
+	 * Once the board has grown its journal to the deepest line searched, make
+	 * and unmake do not allocate as long as no listeners are attached.
+	 *
+	 * @param move
+	 *            The packed move, see Move.
+	 * @return The record to pass to unmake to restore the board.
+	 */
+	public UndoRecord make(int move) {
+		if (undoDepth == undoStack.length) {
+			UndoRecord[] grown = new UndoRecord[undoStack.length * 2];
+			System.arraycopy(undoStack, 0, grown, 0, undoStack.length);
+			undoStack = grown;
+		}
+		UndoRecord u = undoStack[undoDepth];
+		if (u == null) {
+			u = new UndoRecord(undoDepth);
+			undoStack[undoDepth] = u;
+		}
+		u.move = move;
+		u.journalMark = journalSize;
+		u.turn = turn;
+		u.movesRemaining = movesRemaining;
+		++undoDepth;
+		apply(move);
+		return u;
+	}
+
+	/**
+	 * Carries out a move for good, exactly as movePiece, rotatePiece or
+	 * firePiece would, listeners included. Unlike make nothing is kept to
+	 * take it back, so this suits playing out or replaying whole games. The
+	 * move is not checked for legality.
+	 *
+	 * @param move
+	 *            The packed move, see Move.
+	 */
+	public void play(int move) {
+		apply(move);
+	}
+
+	private void apply(int move) {
+		switch (Move.kind(move)) {
+		case Move.MOVE:
+			movePiece(Move.from(move), Move.to(move));
+			break;
+		case Move.ROTATE:
+			rotatePiece(Move.from(move), Move.rotation(move));
+			break;
+		default:
+			firePiece(Move.from(move), Move.projectile(move));
+			break;
+		}
+	}
+
+	/**
+	 * Applies a move so that it can be taken back later with unmake.
+	 *
+	 * @param move
+	 *            The move to make.
+	 * @return The record to pass to unmake to restore the board.
+	 */
+	public UndoRecord make(Move move) {
+		return make(move.getCode());
+	}
+
+	/**
+	 * Takes back the most recent move made with make, restoring every square,
+	 * whose turn it is and how many actions are left exactly as they were.
+	 * Listeners are not told about the squares changing back.
+	 *
+	 * @param u
+	 *            The record returned by the matching make.
+	 */
+	public void unmake(UndoRecord u) {
+		if (undoDepth == 0 || undoStack[undoDepth - 1] != u)
+			throw new IllegalStateException("moves must be unmade in order");
+		while (journalSize > u.journalMark) {
+			journalSize -= 2;
+			set(journal[journalSize], journal[journalSize + 1]);
+		}
+		setTurnState(u.turn, u.movesRemaining);
+		--undoDepth;
+	}
+
+	/**
+	 * Gets the index of a position into the board's squares, which is how
+	 * packed moves refer to squares.
+	 *
+	 * @param p
+	 *            A position on the board.
+	 * @return The square index, x + y * width.
+	 */
+	public int index(Position p) {
+		return p.x + p.y * width;
+	}
+
+	/**
+	 * Converts a square index back to a position.
+	 *
+	 * @param i
+	 *            The square index.
+	 * @return The position of the square.
+	 */
+	public Position positionOf(int i) {
+		return Position.valueOf(i % width, i / width);
+	}
+
+	/**
+	 * Stores a new packed value on square i. Every change to the grid during
+	 * play goes through here, so that it can be journaled for unmake.
+	 */
+	private void put(int i, int code) {
+		if (undoDepth > 0) {
+			if (journalSize == journal.length) {
+				int[] grown = new int[journal.length * 2];
+				System.arraycopy(journal, 0, grown, 0, journalSize);
+				journal = grown;
+			}
+			journal[journalSize++] = i;
+			journal[journalSize++] = squares[i];
+		}
+		set(i, code);
+	}
+
+	/**
+	 * Stores a new packed value on square i, keeping the occupancy sets in
+	 * step.
+	 */
+	private void set(int i, int code) {
+		int old = squares[i];
+		squares[i] = code;
+		key ^= Zobrist.square(i, old) ^ Zobrist.square(i, code);
+		int was = membership(old), is = membership(code);
+		if (was != is) {
+			if (was != 0)
+				toggleSets(i, old);
+			if (is != 0)
+				toggleSets(i, code);
+		}
+	}
+
+	/**
+	 * Summarizes which occupancy sets a packed square belongs to, so put can
+	 * skip the set updates for changes that do not affect them.
+	 */
+	private static int membership(int code) {
+		if (code == Square.EMPTY)
+			return 0;
+		int m = 0x80 | (Square.type(code) << 1) | Square.owner(code);
+		if (isLiveFlag(code))
+			m |= 0x100;
+		return m;
+	}
+
+	private static boolean isLiveFlag(int code) {
+		return Square.type(code) == Square.FLAG && Square.hitPoints(code) > 0;
+	}
+
+	private void toggleSets(int i, int code) {
+		int owner = Square.owner(code);
+		toggle(SET_ALL, i);
+		toggle(SET_OWNER + owner, i);
+		toggle(pieceSet(Square.type(code), owner), i);
+		if (isLiveFlag(code))
+			toggle(SET_LIVE_FLAG + owner, i);
+	}
+
+	private static int pieceSet(int type, int owner) {
+		return SET_PIECE + 2 * (type - 1) + owner;
+	}
+
+	private void toggle(int set, int i) {
+		if (i < 64)
+			setLo[set] ^= 1L << i;
+		else
+			setHi[set] ^= 1L << (i - 64);
+	}
+
+	private boolean contains(int set, int i) {
+		if (i < 64)
+			return (setLo[set] & (1L << i)) != 0L;
+		else
+			return (setHi[set] & (1L << (i - 64))) != 0L;
+	}
+
+	private int count(int set) {
+		return Long.bitCount(setLo[set]) + Long.bitCount(setHi[set]);
+	}
+
+	private int index(int x, int y) {
+		return x + y * width;
+	}
+
 }
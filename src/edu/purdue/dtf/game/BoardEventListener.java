@@ -0,0 +1,22 @@
+package edu.purdue.dtf.game;
+
+/**
+ * BoardEventListener is implemented on objects that want the board's events
+ * in one batch per action rather than a callback per event. Listeners
+ * subscribe with a mask of the event types they need (see BoardEvents.mask)
+ * and are only called for actions that produced at least one of them.
+ */
+public interface BoardEventListener {
+
+	/**
+	 * Called once at the end of every action that produced events of a
+	 * subscribed type. The batch may also hold events of other types, and it
+	 * is reused as soon as this returns. The board must not be changed from
+	 * here.
+	 *
+	 * @param events
+	 *            The events of the action, in order.
+	 */
+	public void onBoardEvents(BoardEvents events);
+
+}
@@ -0,0 +1,177 @@
+package edu.purdue.dtf.game;
+
+/**
+ * BoardEvents is the batch of everything that happened on the board during
+ * one action, in the order it happened: the move, rotation or shot itself,
+ * then any effects of a hit, then the status changes when the turn passes.
+ * The board hands the batch to its BoardEventListeners once the action is
+ * complete.
+ *
+ * Events are stored as records of three ints (type, square and an argument)
+ * in preallocated arrays, so recording them does not create any objects.
+ * The board reuses the same batch for every action; a listener that needs
+ * the events later, on another thread for example, must copy them with
+ * copyFrom.
+ *
+ * <pre>
+ *   type        square             arg
+ *   MOVED       from               to square
+ *   ROTATED     piece              Rotation ordinal
+ *   FIRED       firing piece       Projectile ordinal
+ *   SHOT_LEG    start of the leg   direction and length, see legDirection
+ *   others      affected piece     0
+ * </pre>
+ *
+ * A shot is a FIRED event followed by one SHOT_LEG for each straight part of
+ * its path. A leg ends on the piece struck or the reflector that turns it,
+ * or on the first square off the board.
+ */
+public final class BoardEvents {
+
+	// Event types.
+	public static final int MOVED = 0;
+	public static final int ROTATED = 1;
+	public static final int FIRED = 2;
+	public static final int SHOT_LEG = 3;
+	public static final int FIRE_LIT = 4;
+	public static final int FIRE_UNLIT = 5;
+	public static final int ROOTED = 6;
+	public static final int UNROOTED = 7;
+	public static final int STUNNED = 8;
+	public static final int UNSTUNNED = 9;
+	public static final int SHIELDED = 10;
+	public static final int UNSHIELDED = 11;
+	public static final int BURNED = 12;
+	public static final int UNBURNED = 13;
+	public static final int TYPE_COUNT = 14;
+
+	// Subscription mask for every event type.
+	public static final int ALL = (1 << TYPE_COUNT) - 1;
+
+	private static final int LEG_DIRECTION_MASK = 0x7;
+	private static final int LEG_STEPS_SHIFT = 3;
+
+	private int[] types;
+	private int[] squares;
+	private int[] args;
+	private int size = 0;
+
+	// Mask of the types in the batch.
+	private int present = 0;
+
+	/**
+	 * Creates an empty batch.
+	 *
+	 * @param capacity
+	 *            Events to make room for at first. The batch grows if an
+	 *            action ever needs more.
+	 */
+	public BoardEvents(int capacity) {
+		types = new int[capacity];
+		squares = new int[capacity];
+		args = new int[capacity];
+	}
+
+	/**
+	 * Gets the subscription mask for one event type.
+	 */
+	public static int mask(int type) {
+		return 1 << type;
+	}
+
+	/**
+	 * Packs the argument of a SHOT_LEG event.
+	 */
+	static int leg(int direction, int steps) {
+		return direction | steps << LEG_STEPS_SHIFT;
+	}
+
+	/**
+	 * Gets the Direction ordinal a SHOT_LEG goes in.
+	 */
+	public static int legDirection(int arg) {
+		return arg & LEG_DIRECTION_MASK;
+	}
+
+	/**
+	 * Gets how many squares a SHOT_LEG covers, from the square it starts on
+	 * to the square it ends on.
+	 */
+	public static int legSteps(int arg) {
+		return arg >>> LEG_STEPS_SHIFT;
+	}
+
+	/**
+	 * Gets the number of events in the batch.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Tells whether the batch holds any events of the types in a mask.
+	 */
+	public boolean contains(int mask) {
+		return (present & mask) != 0;
+	}
+
+	public int type(int k) {
+		return types[k];
+	}
+
+	public int square(int k) {
+		return squares[k];
+	}
+
+	public int arg(int k) {
+		return args[k];
+	}
+
+	/**
+	 * Adds an event to the end of the batch.
+	 */
+	void add(int type, int square, int arg) {
+		if (size == types.length)
+			grow(size * 2);
+		types[size] = type;
+		squares[size] = square;
+		args[size] = arg;
+		++size;
+		present |= 1 << type;
+	}
+
+	/**
+	 * Empties the batch, keeping its storage.
+	 */
+	public void clear() {
+		size = 0;
+		present = 0;
+	}
+
+	/**
+	 * Replaces the contents of this batch with a copy of another's, without
+	 * allocating once the batch is big enough.
+	 *
+	 * @param other
+	 *            The batch to copy.
+	 */
+	public void copyFrom(BoardEvents other) {
+		if (types.length < other.size)
+			grow(other.size);
+		System.arraycopy(other.types, 0, types, 0, other.size);
+		System.arraycopy(other.squares, 0, squares, 0, other.size);
+		System.arraycopy(other.args, 0, args, 0, other.size);
+		size = other.size;
+		present = other.present;
+	}
+
+	private void grow(int capacity) {
+		int[] t = new int[capacity], s = new int[capacity], a = new int[capacity];
+		System.arraycopy(types, 0, t, 0, size);
+		System.arraycopy(squares, 0, s, 0, size);
+		System.arraycopy(args, 0, a, 0, size);
+		types = t;
+		squares = s;
+		args = a;
+	}
+}
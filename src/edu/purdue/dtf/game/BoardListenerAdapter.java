@@ -0,0 +1,99 @@
+package edu.purdue.dtf.game;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * BoardListenerAdapter delivers batches of board events to a BoardListener
+ * as the individual callbacks it expects, which is how addBoardListener
+ * listeners keep working on top of the event batches.
+ */
+final class BoardListenerAdapter implements BoardEventListener {
+
+	private static final Rotation[] ROTATIONS = Rotation.values();
+	private static final Projectile[] PROJECTILES = Projectile.values();
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	private final BoardListener listener;
+	private final Board board;
+
+	BoardListenerAdapter(BoardListener listener, Board board) {
+		this.listener = listener;
+		this.board = board;
+	}
+
+	public void onBoardEvents(BoardEvents events) {
+		int n = events.size();
+		for (int k = 0; k < n; ++k) {
+			Position a = board.positionOf(events.square(k));
+			switch (events.type(k)) {
+			case BoardEvents.MOVED:
+				listener.onPieceMoved(a, board.positionOf(events.arg(k)));
+				break;
+			case BoardEvents.ROTATED:
+				listener.onPieceRotated(a, ROTATIONS[events.arg(k)]);
+				break;
+			case BoardEvents.FIRED:
+				k = fired(events, k, a);
+				break;
+			case BoardEvents.FIRE_LIT:
+				listener.onFireLit(a);
+				break;
+			case BoardEvents.FIRE_UNLIT:
+				listener.onFireUnlit(a);
+				break;
+			case BoardEvents.ROOTED:
+				listener.onRooted(a);
+				break;
+			case BoardEvents.UNROOTED:
+				listener.onUnrooted(a);
+				break;
+			case BoardEvents.STUNNED:
+				listener.onPieceStunned(a);
+				break;
+			case BoardEvents.UNSTUNNED:
+				listener.onPieceUnstunned(a);
+				break;
+			case BoardEvents.SHIELDED:
+				listener.onPieceShielded(a);
+				break;
+			case BoardEvents.UNSHIELDED:
+				listener.onPieceUnshielded(a);
+				break;
+			case BoardEvents.BURNED:
+				listener.onPieceBurned(a);
+				break;
+			case BoardEvents.UNBURNED:
+				listener.onPieceUnburned(a);
+				break;
+			default:
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Gathers the legs following the FIRED event at k into the path and
+	 * directions onProjectileFired takes.
+	 *
+	 * @return The index of the last event used.
+	 */
+	private int fired(BoardEvents events, int k, Position from) {
+		List<Position> path = new ArrayList<Position>();
+		List<Direction> dirs = new ArrayList<Direction>();
+		path.add(from);
+		Projectile p = PROJECTILES[events.arg(k)];
+		while (k + 1 < events.size()
+				&& events.type(k + 1) == BoardEvents.SHOT_LEG) {
+			++k;
+			Position start = board.positionOf(events.square(k));
+			Direction d = DIRECTIONS[BoardEvents.legDirection(events.arg(k))];
+			int steps = BoardEvents.legSteps(events.arg(k));
+			path.add(Position.valueOf(start.x + d.getOffset().x * steps,
+					start.y + d.getOffset().y * steps));
+			dirs.add(d);
+		}
+		listener.onProjectileFired(path, dirs, p);
+		return k;
+	}
+}
@@ -2,18 +2,8 @@ package edu.purdue.dtf.game;
 
 public final class Boulder extends Piece {
 
-	public Boulder(String token) {
-		super(token);
+	Boulder(int code) {
+		super(code);
 	}
 
-	@Override
-	public int getMaxHitPoints() {
-		return 4;
-	}
-	
-	@Override
-	public int getMovesPerTurn() {
-		return 1;
-	}
-	
 }
@@ -1,21 +1,20 @@
 package edu.purdue.dtf.game;
 
-import com.threed.jpct.SimpleVector;
 import static java.lang.Math.*;
 
 public enum Direction {
 
-	NORTH     (  0.0, new Position( 0, -1)),
-	NORTHEAST ( 45.0, new Position( 1, -1)),
-	EAST      ( 90.0, new Position( 1,  0)),
-	SOUTHEAST (135.0, new Position( 1,  1)),
-	SOUTH     (180.0, new Position( 0,  1)),
-	SOUTHWEST (225.0, new Position(-1,  1)),
-	WEST      (270.0, new Position(-1,  0)),
-	NORTHWEST (315.0, new Position(-1, -1));
+	NORTH     (  0.0, Position.valueOf( 0, -1)),
+	NORTHEAST ( 45.0, Position.valueOf( 1, -1)),
+	EAST      ( 90.0, Position.valueOf( 1,  0)),
+	SOUTHEAST (135.0, Position.valueOf( 1,  1)),
+	SOUTH     (180.0, Position.valueOf( 0,  1)),
+	SOUTHWEST (225.0, Position.valueOf(-1,  1)),
+	WEST      (270.0, Position.valueOf(-1,  0)),
+	NORTHWEST (315.0, Position.valueOf(-1, -1));
 	
 	private final float angle;
-	private final SimpleVector vector;
+	private final float vectorX, vectorY;
 	private final Position offset;
 	
 	private static float toRadians(double degrees) {
@@ -24,7 +23,8 @@ public enum Direction {
 	
 	Direction(double degrees, Position offset) {
 		this.angle = toRadians(degrees);
-		this.vector = new SimpleVector(cos(angle - (Math.PI / 2.0)), sin(angle - (PI / 2.0)), 0.0f);
+		this.vectorX = (float) cos(angle - (PI / 2.0));
+		this.vectorY = (float) sin(angle - (PI / 2.0));
 		this.offset = offset;
 	}
 	
@@ -32,8 +32,20 @@ public enum Direction {
 		return angle;
 	}
 	
-	public SimpleVector getVector() {
-		return vector;
+	/**
+	 * Gets the x component of the unit vector pointing in this direction, in
+	 * board coordinates.
+	 */
+	public float getVectorX() {
+		return vectorX;
+	}
+
+	/**
+	 * Gets the y component of the unit vector pointing in this direction, in
+	 * board coordinates.
+	 */
+	public float getVectorY() {
+		return vectorY;
 	}
 	
 	public Position getOffset() {
@@ -2,8 +2,8 @@ package edu.purdue.dtf.game;
 
 public final class Flag extends Piece {
 
-	public Flag(String token) {
-		super(token);
+	Flag(int code) {
+		super(code);
 	}
 
 }
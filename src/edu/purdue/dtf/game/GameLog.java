@@ -0,0 +1,76 @@
+package edu.purdue.dtf.game;
+
+/**
+ * GameLog is the logging facade used by the core game logic. The rules engine
+ * must run on a plain JVM as well as on Android, so it never talks to a
+ * platform logger directly. Instead a Sink is plugged in by whoever hosts the
+ * engine (the Android activity, a command line tool, a test harness). When no
+ * sink is installed all messages are silently dropped.
+ */
+public final class GameLog {
+
+	/**
+	 * Sink is implemented by platform adapters that actually write the log
+	 * messages somewhere.
+	 */
+	public interface Sink {
+
+		/**
+		 * Writes a debug level message.
+		 *
+		 * @param tag
+		 *            Identifies the source of the message.
+		 * @param message
+		 *            The message to write.
+		 */
+		public void d(String tag, String message);
+
+		/**
+		 * Writes an error level message.
+		 *
+		 * @param tag
+		 *            Identifies the source of the message.
+		 * @param message
+		 *            The message to write.
+		 */
+		public void e(String tag, String message);
+	}
+
+	// The currently installed sink, or null to discard everything.
+	private static volatile Sink sink = null;
+
+	private GameLog() {
+	}
+
+	/**
+	 * Installs the sink that receives all core log messages.
+	 *
+	 * @param s
+	 *            The sink to use, or null to turn logging off.
+	 */
+	public static void setSink(Sink s) {
+		sink = s;
+	}
+
+	/**
+	 * Tells whether a sink is installed. Callers that need to build an
+	 * expensive message should check this first.
+	 *
+	 * @return True if messages are being written somewhere.
+	 */
+	public static boolean isEnabled() {
+		return sink != null;
+	}
+
+	public static void d(String tag, String message) {
+		Sink s = sink;
+		if (s != null)
+			s.d(tag, message);
+	}
+
+	public static void e(String tag, String message) {
+		Sink s = sink;
+		if (s != null)
+			s.e(tag, message);
+	}
+}
@@ -0,0 +1,343 @@
+package edu.purdue.dtf.game;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * GameReader streams games back out of a log written by GameRecorder. Games
+ * are read one at a time and actions one at a time, so a log of any size can
+ * be gone through without loading it.
+ *
+ * Replaying a game plays its actions on a board, which tells the board's
+ * listeners about each one just as if it had been played live. replay does
+ * the whole game at once, for headless tools; step does one action at a
+ * time, for a view that wants to pace the game out and animate it.
+ *
+ * A game that was cut short ends where the next game's header starts, and
+ * reads as a game that was never finished.
+ */
+public final class GameReader {
+
+	private static final Direction[] DIRECTIONS = Direction.values();
+	private static final Rotation[] ROTATIONS = Rotation.values();
+	private static final Projectile[] PROJECTILES = Projectile.values();
+
+	private final InputStream in;
+
+	// A byte read ahead of the game it belongs to, or -1.
+	private int lookahead = -1;
+
+	// Header of the game being read.
+	private int version;
+	private int width;
+	private int height;
+	private long layoutKey;
+
+	// Whether the game being read has more actions, and how many were read.
+	private boolean inGame = false;
+	private boolean finished = false;
+	private int actions;
+
+	/**
+	 * Creates a reader on a log. Since actions are read a byte or two at a
+	 * time, the stream should be buffered.
+	 *
+	 * @param in
+	 *            The stream to read games from.
+	 */
+	public GameReader(InputStream in) {
+		this.in = in;
+	}
+
+	/**
+	 * Skips what is left of the current game, if any, and reads the header
+	 * of the next.
+	 *
+	 * @return True if there is another game, false at the end of the log.
+	 * @throws IOException
+	 *             If the stream cannot be read or is not a game log.
+	 */
+	public boolean nextGame() throws IOException {
+		while (inGame)
+			nextMove();
+		int m0 = read();
+		if (m0 < 0)
+			return false;
+		if (m0 != GameRecorder.MAGIC_0 || readByte() != GameRecorder.MAGIC_1)
+			throw new IOException("not a game record");
+		version = readByte();
+		if (version < 1 || version > GameRecorder.VERSION)
+			throw new IOException("unsupported game record version " + version);
+		width = readByte();
+		height = readByte();
+		long key = 0L;
+		for (int k = 0; k < 8; ++k)
+			key = key << 8 | readByte();
+		layoutKey = key;
+		inGame = true;
+		finished = false;
+		actions = 0;
+		return true;
+	}
+
+	/**
+	 * Gets the width of the board the current game was played on.
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Gets the height of the board the current game was played on.
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Gets the Zobrist key of the current game's starting position, which
+	 * identifies the layout it was played from.
+	 */
+	public long getLayoutKey() {
+		return layoutKey;
+	}
+
+	/**
+	 * Gets how many actions of the current game have been read so far.
+	 */
+	public int getActionsRead() {
+		return actions;
+	}
+
+	/**
+	 * Tells whether the current game was ended properly, rather than the log
+	 * stopping part way through it. Only known once all its actions are read.
+	 */
+	public boolean isFinished() {
+		return finished;
+	}
+
+	/**
+	 * Reads the next action of the current game.
+	 *
+	 * @return The packed move, see Move, or -1 at the end of the game.
+	 * @throws IOException
+	 *             If the stream cannot be read or the action is corrupt.
+	 */
+	public int nextMove() throws IOException {
+		if (!inGame)
+			return -1;
+		int code = version == 1 ? readVarint() - 1 : readAction();
+		if (code < 0) {
+			inGame = false;
+			finished = code == GameRecorder.END - 1;
+			return -1;
+		}
+		int kind = code & GameRecorder.KIND_MASK;
+		int from = (code >>> GameRecorder.FROM_SHIFT) & GameRecorder.SQUARE_MASK;
+		int arg = (code >>> GameRecorder.ARG_SHIFT) & GameRecorder.ARG_MASK;
+		if (from >= width * height)
+			throw corrupt(code);
+		int move;
+		switch (kind) {
+		case Move.MOVE:
+			Position offset = DIRECTIONS[arg].getOffset();
+			int x = from % width + offset.x, y = from / width + offset.y;
+			if (x < 0 || x >= width || y < 0 || y >= height)
+				throw corrupt(code);
+			move = Move.move(from, x + y * width);
+			break;
+		case Move.ROTATE:
+			if (arg >= ROTATIONS.length)
+				throw corrupt(code);
+			move = Move.rotate(from, ROTATIONS[arg]);
+			break;
+		case Move.FIRE:
+			if (arg >= PROJECTILES.length)
+				throw corrupt(code);
+			move = Move.fire(from, PROJECTILES[arg]);
+			break;
+		default:
+			throw corrupt(code);
+		}
+		++actions;
+		return move;
+	}
+
+	/**
+	 * Plays the next action of the current game on a board.
+	 *
+	 * @param board
+	 *            The board, which must be in the position the game had
+	 *            reached.
+	 * @return True if an action was played, false at the end of the game.
+	 * @throws IOException
+	 *             If the stream cannot be read, or the game does not fit the
+	 *             board.
+	 */
+	public boolean step(Board board) throws IOException {
+		if (actions == 0 && inGame)
+			checkLayout(board);
+		int move = nextMove();
+		if (move < 0)
+			return false;
+		if (!MoveGenerator.isLegal(board, move))
+			throw new IOException("illegal action " + actions + " in record: "
+					+ Move.toString(move));
+		board.play(move);
+		return true;
+	}
+
+	/**
+	 * Plays the rest of the current game on a board at full speed.
+	 *
+	 * @param board
+	 *            The board, which must be in the position the game had
+	 *            reached.
+	 * @return The number of actions played.
+	 * @throws IOException
+	 *             If the stream cannot be read, or the game does not fit the
+	 *             board.
+	 */
+	public int replay(Board board) throws IOException {
+		int played = 0;
+		while (step(board))
+			++played;
+		return played;
+	}
+
+	/**
+	 * Makes sure a board is in the current game's starting position.
+	 */
+	private void checkLayout(Board board) throws IOException {
+		if (board.getWidth() != width || board.getHeight() != height)
+			throw new IOException("record is for a " + width + " x " + height
+					+ " board");
+		if (board.getKey() != layoutKey)
+			throw new IOException("record is for a different layout");
+	}
+
+	private IOException corrupt(int code) {
+		return new IOException("corrupt action " + code + " in record");
+	}
+
+	/**
+	 * Reads the code of the next action of a version 2 record.
+	 *
+	 * @return The code, -1 at the end of the game, or -2 if the game was cut
+	 *         short by the end of the log or by the next game's header.
+	 */
+	private int readAction() throws IOException {
+		int low = read();
+		if (low == GameRecorder.END)
+			return -1;
+		if (low < 0 || low == GameRecorder.MAGIC_0) {
+			lookahead = low;
+			return -2;
+		}
+		if ((low & GameRecorder.ACTION_BIT) == 0)
+			throw corrupt(low);
+		int high = read();
+		if (high < 0 || high == GameRecorder.MAGIC_0) {
+			lookahead = high;
+			return -2;
+		}
+		if ((high & GameRecorder.ACTION_BIT) != 0)
+			throw corrupt(high);
+		return (low & GameRecorder.LOW_MASK) | high << GameRecorder.LOW_BITS;
+	}
+
+	/**
+	 * Reads a byte, or the one read ahead if there is one.
+	 *
+	 * @return The byte, or -1 at the end of the stream.
+	 */
+	private int read() throws IOException {
+		int b = lookahead;
+		if (b >= 0) {
+			lookahead = -1;
+			return b;
+		}
+		return in.read();
+	}
+
+	private int readByte() throws IOException {
+		int b = read();
+		if (b < 0)
+			throw new EOFException("game record cut short");
+		return b;
+	}
+
+	/**
+	 * Reads an unsigned LEB128 varint, which is how version 1 records wrote
+	 * actions.
+	 *
+	 * @return The value, or -1 if the stream ends before it is complete.
+	 */
+	private int readVarint() throws IOException {
+		int value = 0;
+		for (int shift = 0;; shift += 7) {
+			if (shift > 28)
+				throw new IOException("corrupt varint in record");
+			int b = read();
+			if (b < 0)
+				return -1;
+			value |= (b & 0x7f) << shift;
+			if ((b & 0x80) == 0)
+				return value;
+		}
+	}
+
+	/**
+	 * Replays every game in a log at full speed from a layout file, checking
+	 * each action is legal, and prints how they ended. Usage: GameReader
+	 * games.log layout.txt
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("usage: GameReader games.log layout.txt");
+			System.exit(2);
+		}
+		Board layout = new Board(11, 9);
+		InputStream in = new FileInputStream(args[1]);
+		try {
+			layout.setFromStream(in);
+		} finally {
+			in.close();
+		}
+		Board board = new Board(layout);
+		int games = 0, skipped = 0, unfinished = 0, gold = 0, red = 0;
+		long actions = 0;
+		long start = System.nanoTime();
+		GameReader reader = new GameReader(new BufferedInputStream(
+				new FileInputStream(args[0]), 1 << 16));
+		try {
+			while (reader.nextGame()) {
+				if (reader.getLayoutKey() != layout.getKey()) {
+					++skipped;
+					continue;
+				}
+				board.copyFrom(layout);
+				actions += reader.replay(board);
+				++games;
+				if (!reader.isFinished() || !board.isGameOver())
+					++unfinished;
+				else if ("G".equals(board.getWinner()))
+					++gold;
+				else if ("R".equals(board.getWinner()))
+					++red;
+			}
+		} finally {
+			reader.in.close();
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.println(String.format(
+				"%d games, %d actions in %.3fs (%.0f games/s): gold won %d,"
+						+ " red won %d, %d not finished; %d for other layouts",
+				games, actions, seconds, games / Math.max(seconds, 1e-9), gold,
+				red, unfinished, skipped));
+	}
+}
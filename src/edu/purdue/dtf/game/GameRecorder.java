@@ -0,0 +1,260 @@
+package edu.purdue.dtf.game;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * GameRecorder writes games to a compact binary log, so finished games can be
+ * kept and replayed later with GameReader. Attached to a board with
+ * addEventListener and EVENTS it records every movePiece, rotatePiece and
+ * firePiece; search and self-play code can instead pass packed moves to
+ * record directly.
+ *
+ * A log is just game records one after the other, so a log file only ever
+ * needs to be appended to. Each record is a header followed by the actions:
+ *
+ * <pre>
+ *   2 bytes   magic, 'D' 'G'
+ *   1 byte    format version
+ *   1 byte    board width
+ *   1 byte    board height
+ *   8 bytes   Zobrist key of the starting position, big endian
+ *   2 bytes   action code, for each action
+ *   1 byte    0, at the end of the game
+ * </pre>
+ *
+ * The action code is the kind of action (2 bits), the square it is taken
+ * from (7 bits) and the direction moved, the rotation or the projectile (3
+ * bits). It is written low seven bits first, in a byte with the top bit set,
+ * then the high five bits, so the first byte of an action can never be the
+ * end marker or the first byte of a header, and its second byte can never be
+ * the first byte of a header. A record cut short, say by the app being killed
+ * mid game, is followed directly by the next record's header, and reads back
+ * as a game that was never finished, with the games after it intact.
+ *
+ * Version 1 records wrote the action code plus one as an unsigned LEB128
+ * varint, with a 0 varint at the end. They can still be read, but a version
+ * 1 record cut short breaks the rest of the log.
+ */
+public final class GameRecorder implements BoardEventListener {
+
+	// Tag used for logging from this class.
+	private final static String TAG = "GameRecorder";
+
+	// Start of every game record.
+	static final int MAGIC_0 = 'D';
+	static final int MAGIC_1 = 'G';
+	static final int HEADER_SIZE = 13;
+	static final int VERSION = 2;
+
+	// Marks the end of a game in place of an action.
+	static final int END = 0;
+
+	// Set in the first byte of every action, and never set in the second.
+	static final int ACTION_BIT = 0x80;
+	static final int LOW_BITS = 7;
+	static final int LOW_MASK = 0x7f;
+
+	// Action code layout.
+	static final int KIND_MASK = 0x3;
+	static final int SQUARE_MASK = 0x7f;
+	static final int FROM_SHIFT = 2;
+	static final int ARG_SHIFT = 9;
+	static final int ARG_MASK = 0x7;
+
+	// The board events a recorder needs to be subscribed to.
+	public static final int EVENTS = BoardEvents.mask(BoardEvents.MOVED)
+			| BoardEvents.mask(BoardEvents.ROTATED)
+			| BoardEvents.mask(BoardEvents.FIRED);
+
+	private static final Direction[] DIRECTIONS = Direction.values();
+	private static final Rotation[] ROTATIONS = Rotation.values();
+	private static final Projectile[] PROJECTILES = Projectile.values();
+
+	private final OutputStream out;
+
+	// Width of the board being recorded, which square indexes depend on.
+	private int width;
+	private boolean recording = false;
+
+	// The two bytes of the action being written.
+	private final byte[] action = new byte[2];
+
+	// The first write error while recording board events, which cannot be
+	// thrown from the listener.
+	private IOException error;
+
+	/**
+	 * Creates a recorder writing to a stream. Since actions are written a
+	 * couple of bytes at a time, the stream should be buffered.
+	 *
+	 * @param out
+	 *            The stream to append the records to.
+	 */
+	public GameRecorder(OutputStream out) {
+		this.out = out;
+	}
+
+	/**
+	 * Starts recording a game by writing its header. A game still being
+	 * recorded is ended first.
+	 *
+	 * @param board
+	 *            The board in its starting position.
+	 * @throws IOException
+	 *             If the header cannot be written.
+	 */
+	public void begin(Board board) throws IOException {
+		if (recording)
+			end();
+		if (board.getWidth() > 255 || board.getHeight() > 255)
+			throw new IllegalArgumentException("board too large to record");
+		width = board.getWidth();
+		byte[] header = new byte[HEADER_SIZE];
+		header[0] = MAGIC_0;
+		header[1] = MAGIC_1;
+		header[2] = VERSION;
+		header[3] = (byte) board.getWidth();
+		header[4] = (byte) board.getHeight();
+		long key = board.getKey();
+		for (int k = 0; k < 8; ++k)
+			header[5 + k] = (byte) (key >>> (56 - 8 * k));
+		out.write(header);
+		recording = true;
+	}
+
+	/**
+	 * Carries on recording a game whose header and earlier actions are
+	 * already in the log, such as one interrupted when the app that was
+	 * recording it was restarted. Nothing is written.
+	 *
+	 * @param board
+	 *            The board of the game, in its current position.
+	 */
+	public void resume(Board board) {
+		if (recording)
+			throw new IllegalStateException("a game is already being recorded");
+		width = board.getWidth();
+		recording = true;
+	}
+
+	/**
+	 * Records one action of the game being recorded.
+	 *
+	 * @param move
+	 *            The packed move, see Move.
+	 * @throws IOException
+	 *             If the action cannot be written.
+	 */
+	public void record(int move) throws IOException {
+		if (!recording)
+			throw new IllegalStateException("no game being recorded");
+		int from = Move.from(move);
+		int arg;
+		switch (Move.kind(move)) {
+		case Move.MOVE:
+			arg = direction(from, Move.to(move));
+			break;
+		case Move.ROTATE:
+			arg = Move.rotation(move).ordinal();
+			break;
+		default:
+			arg = Move.projectile(move).ordinal();
+			break;
+		}
+		int code = Move.kind(move) | from << FROM_SHIFT | arg << ARG_SHIFT;
+		action[0] = (byte) (ACTION_BIT | code & LOW_MASK);
+		action[1] = (byte) (code >>> LOW_BITS);
+		out.write(action);
+	}
+
+	/**
+	 * Ends the game being recorded and flushes the stream. Does nothing if
+	 * no game is being recorded.
+	 *
+	 * @throws IOException
+	 *             If the end of the game cannot be written.
+	 */
+	public void end() throws IOException {
+		if (!recording)
+			return;
+		recording = false;
+		out.write(END);
+		out.flush();
+	}
+
+	/**
+	 * Flushes the actions recorded so far without ending the game, so it can
+	 * be resumed later.
+	 *
+	 * @throws IOException
+	 *             If the stream cannot be flushed.
+	 */
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	/**
+	 * Tells whether a game is being recorded.
+	 */
+	public boolean isRecording() {
+		return recording;
+	}
+
+	/**
+	 * Gets the first error writing actions from board events, if there was
+	 * one. Recording stops at that point.
+	 *
+	 * @return The error, or null.
+	 */
+	public IOException getError() {
+		return error;
+	}
+
+	public void onBoardEvents(BoardEvents events) {
+		for (int k = 0; k < events.size(); ++k) {
+			int at = events.square(k);
+			switch (events.type(k)) {
+			case BoardEvents.MOVED:
+				recordSafely(Move.move(at, events.arg(k)));
+				break;
+			case BoardEvents.ROTATED:
+				recordSafely(Move.rotate(at, ROTATIONS[events.arg(k)]));
+				break;
+			case BoardEvents.FIRED:
+				recordSafely(Move.fire(at, PROJECTILES[events.arg(k)]));
+				break;
+			default:
+				break;
+			}
+		}
+	}
+
+	private void recordSafely(int move) {
+		if (!recording)
+			return;
+		try {
+			record(move);
+		} catch (IOException e) {
+			GameLog.e(TAG, "recording stopped: " + e.getMessage());
+			error = e;
+			recording = false;
+		}
+	}
+
+	/**
+	 * Finds the direction of the adjacent square to as seen from square from.
+	 */
+	private int direction(int from, int to) {
+		int dx = to % width - from % width;
+		int dy = to / width - from / width;
+		for (int d = 0; d < DIRECTIONS.length; ++d) {
+			Position offset = DIRECTIONS[d].getOffset();
+			if (offset.x == dx && offset.y == dy)
+				return d;
+		}
+		throw new IllegalArgumentException("not a single step: " + from
+				+ "->" + to);
+	}
+
+}
@@ -0,0 +1,74 @@
+package edu.purdue.dtf.game;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * LayoutConverter turns board layouts written by hand in the text format into
+ * the binary layouts the game loads (see Board.setFromLayout). Each
+ * layout.txt becomes layout.bin in the output directory. Usage:
+ * LayoutConverter outdir layout.txt ...
+ */
+public final class LayoutConverter {
+
+	// Size of the standard game board.
+	private static final int WIDTH = 11;
+	private static final int HEIGHT = 9;
+
+	private LayoutConverter() {
+	}
+
+	/**
+	 * Converts one text layout to a binary one.
+	 *
+	 * @throws IOException
+	 *             If either file cannot be used or the text layout is not
+	 *             valid.
+	 */
+	static void convert(File txt, File bin) throws IOException {
+		Board board = new Board(WIDTH, HEIGHT);
+		InputStream in = new FileInputStream(txt);
+		try {
+			board.setFromStream(in);
+		} catch (RuntimeException e) {
+			throw new IOException(e.getMessage());
+		} finally {
+			in.close();
+		}
+		OutputStream out = new FileOutputStream(bin);
+		try {
+			board.writeLayout(out);
+		} finally {
+			out.close();
+		}
+	}
+
+	public static void main(String[] args) {
+		if (args.length < 2) {
+			System.err.println("usage: LayoutConverter outdir layout.txt ...");
+			System.exit(2);
+		}
+		File dir = new File(args[0]);
+		boolean failed = false;
+		for (int k = 1; k < args.length; ++k) {
+			File txt = new File(args[k]);
+			String name = txt.getName();
+			if (name.endsWith(".txt"))
+				name = name.substring(0, name.length() - 4);
+			File bin = new File(dir, name + ".bin");
+			try {
+				convert(txt, bin);
+				System.out.println(txt + " -> " + bin);
+			} catch (IOException e) {
+				System.err.println(txt + ": " + e.getMessage());
+				failed = true;
+			}
+		}
+		if (failed)
+			System.exit(1);
+	}
+}
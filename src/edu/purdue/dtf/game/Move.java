@@ -0,0 +1,165 @@
+package edu.purdue.dtf.game;
+
+/**
+ * Move is a single player action: moving a piece one square, rotating a piece
+ * or firing a projectile from it. Each player gets three of these per turn.
+ *
+ * A move is packed into an int so that search code can keep long lists of
+ * them in plain int arrays without creating any objects. The static methods
+ * build and take apart these ints; squares are referred to by their board
+ * index (x + y * width, see Board.index). A Move object is just an immutable
+ * wrapper around the int for code that prefers to pass objects around.
+ *
+ * The layout, from the least significant bit, is the kind (2 bits), the from
+ * square (7 bits), the to square for a MOVE (7 bits), and the rotation or
+ * projectile ordinal for a ROTATE or FIRE (3 bits).
+ */
+public final class Move {
+
+	// The kinds of action.
+	public static final int MOVE = 0;
+	public static final int ROTATE = 1;
+	public static final int FIRE = 2;
+
+	private static final int KIND_MASK = 0x3;
+	private static final int SQUARE_MASK = 0x7f;
+	private static final int FROM_SHIFT = 2;
+	private static final int TO_SHIFT = 9;
+	private static final int ARG_SHIFT = 16;
+	private static final int ARG_MASK = 0x7;
+
+	private static final Rotation[] ROTATIONS = Rotation.values();
+	private static final Projectile[] PROJECTILES = Projectile.values();
+
+	// The packed representation of this move.
+	private final int code;
+
+	private Move(int code) {
+		this.code = code;
+	}
+
+	/**
+	 * Wraps a packed move.
+	 *
+	 * @param code
+	 *            The packed move.
+	 * @return The move object.
+	 */
+	public static Move valueOf(int code) {
+		return new Move(code);
+	}
+
+	/**
+	 * Packs a move of the piece on square from to the adjacent square to.
+	 */
+	public static int move(int from, int to) {
+		return MOVE | (from << FROM_SHIFT) | (to << TO_SHIFT);
+	}
+
+	/**
+	 * Packs a rotation of the piece on square at.
+	 */
+	public static int rotate(int at, Rotation r) {
+		return ROTATE | (at << FROM_SHIFT) | (r.ordinal() << ARG_SHIFT);
+	}
+
+	/**
+	 * Packs firing projectile p from the piece on square at.
+	 */
+	public static int fire(int at, Projectile p) {
+		return FIRE | (at << FROM_SHIFT) | (p.ordinal() << ARG_SHIFT);
+	}
+
+	public static int kind(int move) {
+		return move & KIND_MASK;
+	}
+
+	public static int from(int move) {
+		return (move >>> FROM_SHIFT) & SQUARE_MASK;
+	}
+
+	public static int to(int move) {
+		return (move >>> TO_SHIFT) & SQUARE_MASK;
+	}
+
+	/**
+	 * Tells whether a packed move is in the form the factory methods produce,
+	 * with no stray bits and a valid rotation or projectile.
+	 */
+	public static boolean isWellFormed(int move) {
+		int arg = (move >>> ARG_SHIFT) & ARG_MASK;
+		switch (kind(move)) {
+		case MOVE:
+			return move == move(from(move), to(move));
+		case ROTATE:
+			return arg < ROTATIONS.length
+					&& move == rotate(from(move), rotation(move));
+		case FIRE:
+			return arg < PROJECTILES.length
+					&& move == fire(from(move), projectile(move));
+		default:
+			return false;
+		}
+	}
+
+	public static Rotation rotation(int move) {
+		return ROTATIONS[(move >>> ARG_SHIFT) & ARG_MASK];
+	}
+
+	public static Projectile projectile(int move) {
+		return PROJECTILES[(move >>> ARG_SHIFT) & ARG_MASK];
+	}
+
+	/**
+	 * Describes a packed move, for logging and debugging.
+	 */
+	public static String toString(int move) {
+		switch (kind(move)) {
+		case MOVE:
+			return "MOVE " + from(move) + "->" + to(move);
+		case ROTATE:
+			return "ROTATE " + from(move) + " " + rotation(move);
+		default:
+			return "FIRE " + from(move) + " " + projectile(move);
+		}
+	}
+
+	public int getCode() {
+		return code;
+	}
+
+	public int getKind() {
+		return kind(code);
+	}
+
+	public int getFrom() {
+		return from(code);
+	}
+
+	public int getTo() {
+		return to(code);
+	}
+
+	public Rotation getRotation() {
+		return rotation(code);
+	}
+
+	public Projectile getProjectile() {
+		return projectile(code);
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		return other instanceof Move && ((Move) other).code == code;
+	}
+
+	@Override
+	public int hashCode() {
+		return code;
+	}
+
+	@Override
+	public String toString() {
+		return toString(code);
+	}
+}
@@ -0,0 +1,219 @@
+package edu.purdue.dtf.game;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * MoveGenerator lists every legal action for the player whose turn it is.
+ * These are exactly the actions GameView.onTouchMove lets a player make: a
+ * step to an orthogonally adjacent square, either rotation of a rotatable
+ * piece, and every projectile an Obelisk or Slingshot can still fire. Nothing
+ * is legal once the game is over.
+ *
+ * Moves are written as packed ints (see Move) into a buffer the caller owns,
+ * so generating moves never allocates. A generator also keeps one buffer per
+ * ply for its perft counter, so reuse one generator rather than making a new
+ * one per call.
+ */
+public final class MoveGenerator {
+
+	// Upper bound on the number of legal actions in any position: a piece has
+	// at most 4 steps, 2 rotations and 6 projectiles.
+	public static final int MAX_MOVES = 128 * 12;
+
+	// Obelisks fire every projectile except rocks.
+	private static final Projectile[] SPELLS = { Projectile.FIRE,
+			Projectile.WATER, Projectile.STUN, Projectile.ROOT,
+			Projectile.SHIELD, Projectile.HEAL };
+
+	private static final int IMMOBILE = Square.ROOTED | Square.STUNNED
+			| Square.BURNED;
+
+	// One move buffer per perft ply, grown on demand.
+	private int[][] plies = new int[0][];
+
+	/**
+	 * Writes all legal moves for the side to move into the given buffer.
+	 *
+	 * @param board
+	 *            The position to generate moves for.
+	 * @param moves
+	 *            Receives the packed moves; must hold at least MAX_MOVES.
+	 * @return The number of moves written.
+	 */
+	public int generate(Board board, int[] moves) {
+		if (board.isGameOver())
+			return 0;
+		int owner = board.getTurn();
+		int n = 0;
+		long bits = board.getOwnedLo(owner);
+		while (bits != 0L) {
+			n = generate(board, Long.numberOfTrailingZeros(bits), moves, n);
+			bits &= bits - 1;
+		}
+		bits = board.getOwnedHi(owner);
+		while (bits != 0L) {
+			n = generate(board, Long.numberOfTrailingZeros(bits) + 64, moves, n);
+			bits &= bits - 1;
+		}
+		return n;
+	}
+
+	/**
+	 * Writes the legal moves for the piece on square i, starting at moves[n].
+	 */
+	private int generate(Board board, int i, int[] moves, int n) {
+		int code = board.getSquare(i);
+		if (!Square.hasMovesRemaining(code))
+			return n;
+		int type = Square.type(code);
+		if ((code & IMMOBILE) == 0 && Square.hitPoints(code) != 0) {
+			int width = board.getWidth();
+			int x = i % width, y = i / width;
+			if (y > 0)
+				n = step(board, code, i, i - width, moves, n);
+			if (x < width - 1)
+				n = step(board, code, i, i + 1, moves, n);
+			if (y < board.getHeight() - 1)
+				n = step(board, code, i, i + width, moves, n);
+			if (x > 0)
+				n = step(board, code, i, i - 1, moves, n);
+		}
+		if (Square.isRotatable(type)) {
+			moves[n++] = Move.rotate(i, Rotation.CLOCKWISE);
+			moves[n++] = Move.rotate(i, Rotation.COUNTER_CLOCKWISE);
+		}
+		if (!Square.is(code, Square.FIRED)) {
+			if (type == Square.SLINGSHOT) {
+				moves[n++] = Move.fire(i, Projectile.ROCK);
+			} else if (type == Square.OBELISK) {
+				for (Projectile p : SPELLS)
+					moves[n++] = Move.fire(i, p);
+			}
+		}
+		return n;
+	}
+
+	private static int step(Board board, int code, int from, int to,
+			int[] moves, int n) {
+		int target = board.getSquare(to);
+		if (target == Square.EMPTY || Square.canTake(code, target))
+			moves[n++] = Move.move(from, to);
+		return n;
+	}
+
+	/**
+	 * Checks whether a packed move is legal for the side to move, using the
+	 * same rules as generate.
+	 *
+	 * @param board
+	 *            The current position.
+	 * @param move
+	 *            The packed move.
+	 * @return True if generate would list the move.
+	 */
+	public static boolean isLegal(Board board, int move) {
+		int size = board.getWidth() * board.getHeight();
+		int from = Move.from(move);
+		if (!Move.isWellFormed(move) || board.isGameOver() || from >= size)
+			return false;
+		int code = board.getSquare(from);
+		if (code == Square.EMPTY || Square.owner(code) != board.getTurn()
+				|| !Square.hasMovesRemaining(code))
+			return false;
+		int type = Square.type(code);
+		switch (Move.kind(move)) {
+		case Move.MOVE:
+			int to = Move.to(move);
+			if (to >= size || (code & IMMOBILE) != 0
+					|| Square.hitPoints(code) == 0)
+				return false;
+			int width = board.getWidth();
+			int dx = Math.abs(from % width - to % width);
+			int dy = Math.abs(from / width - to / width);
+			int target = board.getSquare(to);
+			return dx + dy == 1
+					&& (target == Square.EMPTY || Square.canTake(code, target));
+		case Move.ROTATE:
+			return Square.isRotatable(type);
+		case Move.FIRE:
+			if (Square.is(code, Square.FIRED))
+				return false;
+			Projectile p = Move.projectile(move);
+			return (type == Square.SLINGSHOT && p == Projectile.ROCK)
+					|| (type == Square.OBELISK && p != Projectile.ROCK);
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Counts the leaf nodes of the game tree to the given depth, in actions.
+	 * The counts for a position never change, so they make a good regression
+	 * test for the rules, and timing them measures generation plus
+	 * make/unmake speed.
+	 *
+	 * @param board
+	 *            The position to count from. It is returned to the same state.
+	 * @param depth
+	 *            The number of actions to look ahead.
+	 * @return The number of action sequences of exactly that length, plus any
+	 *         shorter ones that end the game.
+	 */
+	public long perft(Board board, int depth) {
+		if (plies.length < depth) {
+			int[][] grown = new int[depth][];
+			System.arraycopy(plies, 0, grown, 0, plies.length);
+			for (int d = plies.length; d < depth; ++d)
+				grown[d] = new int[MAX_MOVES];
+			plies = grown;
+		}
+		return perft(board, depth, 0);
+	}
+
+	private long perft(Board board, int depth, int ply) {
+		if (depth == 0)
+			return 1;
+		int[] moves = plies[ply];
+		int n = generate(board, moves);
+		if (n == 0)
+			return 1;
+		if (depth == 1)
+			return n;
+		long nodes = 0;
+		for (int k = 0; k < n; ++k) {
+			UndoRecord u = board.make(moves[k]);
+			nodes += perft(board, depth - 1, ply + 1);
+			board.unmake(u);
+		}
+		return nodes;
+	}
+
+	/**
+	 * Prints perft counts and speed for a board layout, for benchmarking and
+	 * checking rule changes. Usage: MoveGenerator layout.txt [depth]
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.err.println("usage: MoveGenerator layout.txt [depth]");
+			System.exit(2);
+		}
+		int maxDepth = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+		Board board = new Board(11, 9);
+		InputStream in = new FileInputStream(args[0]);
+		try {
+			board.setFromStream(in);
+		} finally {
+			in.close();
+		}
+		MoveGenerator generator = new MoveGenerator();
+		for (int depth = 1; depth <= maxDepth; ++depth) {
+			long start = System.nanoTime();
+			long nodes = generator.perft(board, depth);
+			double seconds = (System.nanoTime() - start) / 1e9;
+			System.out.println(String.format("perft(%d) = %d  %.3fs  %.0f nodes/s",
+					depth, nodes, seconds, nodes / Math.max(seconds, 1e-9)));
+		}
+	}
+}
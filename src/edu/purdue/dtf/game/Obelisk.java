@@ -2,18 +2,8 @@ package edu.purdue.dtf.game;
 
 public final class Obelisk extends RotatablePiece {
 
-	public Obelisk(String token) {
-		super(token);
+	Obelisk(int code) {
+		super(code);
 	}
 
-	@Override
-	public int getMaxHitPoints() {
-		return 2;
-	}
-	
-	@Override
-	public int getMovesPerTurn() {
-		return 2;
-	}
-	
 }
@@ -1,63 +1,53 @@
 package edu.purdue.dtf.game;
 
-import android.util.Log;
-
+/**
+ * Piece is a read only view of one occupied board square. The board itself
+ * stores every square packed into an int (see Square), and hands out Piece
+ * objects decoded from that value to callers such as the views that want to
+ * work with an object per piece. A Piece reflects the square at the time it
+ * was obtained from the board; ask the board again after the game state
+ * changes.
+ */
 public class Piece {
 
-	private static String TAG = "Piece";
-	
-	protected static int DEFAULT_MOVES_PER_TURN = 3; 
+	// The packed square value this piece was decoded from.
+	protected final int code;
 
-	protected String belongsTo;
-	protected String pieceType;
-	protected int hitPoints;
-	protected Direction directionFacing;
-	protected boolean roots;
-	protected boolean fired;
-	protected int moves;
-	protected boolean stunned;
-	protected int stunCounter;
-	protected boolean burned;
-	protected boolean shielded;
-	protected int shieldCounter;
-	
-	public Piece(String token) {
-		belongsTo = token.substring(0, 1);
-		pieceType = token.substring(1, 2);
-		hitPoints = getMaxHitPoints() - Integer.parseInt(token.substring(2, 3));
-		directionFacing = Direction.values()[Integer.parseInt(token.substring(3,4))];
-		roots = false;
-		fired = false;
-		moves = 0;
-		stunned = false;
-		stunCounter = 0;
-		burned = false;
-		shielded = false;
-		shieldCounter = 0;
+	Piece(int code) {
+		this.code = code;
+	}
+
+	/**
+	 * Gets the packed square value this piece was decoded from.
+	 * 
+	 * @return The packed representation, see Square.
+	 */
+	public int getCode() {
+		return code;
 	}
 
 	public String getBelongsTo() {
-		return belongsTo;
+		return Square.ownerName(Square.owner(code));
 	}
 
 	public String getPieceType() {
-		return pieceType;
+		return Square.typeName(Square.type(code));
 	}
 
 	public int getMaxHitPoints() {
-		return 1;
+		return Square.maxHitPoints(Square.type(code));
 	}
 	
 	public int getMovesPerTurn() {
-		return DEFAULT_MOVES_PER_TURN;
+		return Square.movesPerTurn(Square.type(code));
 	}
 
 	public int getMoves() {
-		return moves;
+		return Square.moves(code);
 	}
 	
 	public int getHitPoints() {
-		return hitPoints;
+		return Square.hitPoints(code);
 	}
 	
 	public boolean hasMovesRemaining() {
@@ -65,66 +55,61 @@ public class Piece {
 	}
 
 	public Direction getDirection() {
-		return directionFacing;
+		return Direction.values()[Square.facing(code)];
 	}
 	
 	public boolean canTake(Piece that) {
-		return getMaxHitPoints() > that.getMaxHitPoints() && !that.isShielded();
+		return Square.canTake(code, that.code);
 	}
 
 	public boolean hasRoots() {
-		return roots;
-	}
-	
-	public void setRoots(boolean roots) {
-		this.roots = roots;
+		return Square.is(code, Square.ROOTED);
 	}
 	
 	public boolean isStunned() {
-		return stunned;
+		return Square.is(code, Square.STUNNED);
 	}
 	
 	public boolean hasFired() {
-		return fired;
-	}
-	
-	public void setFired(boolean fired) {
-		this.fired = fired;
+		return Square.is(code, Square.FIRED);
 	}
 	
 	public boolean isBurned() {
-		return burned;
-	}
-	
-	public void setBurned(boolean burned) {
-		this.burned = burned;
+		return Square.is(code, Square.BURNED);
 	}
 	
 	public boolean isShielded() {
-		return shielded;
-	}
-	
-	public void setShielded(boolean shielded) {
-		this.shielded = shielded;
+		return Square.is(code, Square.SHIELDED);
 	}
 	
 	public static Piece valueOf(String token) {
-		switch (token.charAt(1)) {
-		case 'B':
-			return new Boulder(token);
-		case 'F':
-			return new Flag(token);
-		case 'X':
-			return new Obelisk(token);
-		case 'V':
-			return new Slingshot(token);
-		case 'T':
-			return new Torch(token);
-		case 'R':
-			return new Reflector(token);
+		return valueOf(Square.parse(token));
+	}
+
+	/**
+	 * Decodes a packed square value into the matching kind of piece.
+	 * 
+	 * @param code
+	 *            The packed square value, which must not be EMPTY.
+	 * @return The piece view.
+	 */
+	public static Piece valueOf(int code) {
+		switch (Square.type(code)) {
+		case Square.BOULDER:
+			return new Boulder(code);
+		case Square.FLAG:
+			return new Flag(code);
+		case Square.OBELISK:
+			return new Obelisk(code);
+		case Square.SLINGSHOT:
+			return new Slingshot(code);
+		case Square.TORCH:
+			return new Torch(code);
+		case Square.REFLECTOR:
+			return new Reflector(code);
 		default:
 			throw new RuntimeException("invalid piece type: "
-					+ token.substring(1, 2));
+					+ Square.type(code));
 		}
 	}
 
@@ -132,7 +117,4 @@ public class Piece {
 		return false;
 	}
 	
-	public void hit(Projectile p) {
-
-	}
 }
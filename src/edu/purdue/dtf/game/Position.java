@@ -2,14 +2,30 @@ package edu.purdue.dtf.game;
 
 import java.util.Locale;
 
-import com.threed.jpct.SimpleVector;
-import static java.lang.Math.*;
-
 /**
  * Position is a set of grid coordinates for a particular board on the square.
+ *
+ * Positions are immutable, so valueOf hands out shared instances for every
+ * square of any board up to 16 x 16 plus a margin of a few squares around it,
+ * which covers the action panels and the squares a shot leaves the board
+ * through. Prefer it to
+ * the constructor in anything that runs per frame or per move.
  */
 public final class Position {
 
+	// Range of coordinates that valueOf has cached instances for.
+	private static final int MIN = -4;
+	private static final int MAX = 19;
+	private static final int SPAN = MAX - MIN + 1;
+
+	private static final Position[] CACHE = new Position[SPAN * SPAN];
+
+	static {
+		for (int y = MIN; y <= MAX; ++y)
+			for (int x = MIN; x <= MAX; ++x)
+				CACHE[(x - MIN) + (y - MIN) * SPAN] = new Position(x, y);
+	}
+
 	// Stores the x, y board coordinates the position represents.
 	public final int x, y;
 
@@ -37,23 +53,34 @@ public final class Position {
 
 	@Override
 	public boolean equals(Object other) {
+		if (!(other instanceof Position))
+			return false;
 		Position that = (Position) other;
 		return this.x == that.x && this.y == that.y;
 	}
+
+	@Override
+	public int hashCode() {
+		return 31 * x + y;
+	}
 	
 	public Position add(Position p) {
 		return Position.valueOf(this.x + p.x, this.y + p.y);
 	}
 	
-	public SimpleVector toVector() {
-		return new SimpleVector((float) this.x, (float) this.y, 0.0f);
-	}
-	
-	public static Position valueOf(SimpleVector v) {
-		return new Position(round(v.x), round(v.y));
-	}
-	
+	/**
+	 * Gets the position for a pair of coordinates, without allocating when
+	 * they are in the cached range.
+	 * 
+	 * @param x
+	 *            The zero based column.
+	 * @param y
+	 *            The zero based row.
+	 * @return The position.
+	 */
 	public static Position valueOf(int x, int y) {
+		if (x >= MIN && x <= MAX && y >= MIN && y <= MAX)
+			return CACHE[(x - MIN) + (y - MIN) * SPAN];
 		return new Position(x, y);
 	}
 }
@@ -0,0 +1,111 @@
+package edu.purdue.dtf.game;
+
+/**
+ * RayTable holds, for every square and each of the eight directions, the set
+ * of squares a projectile passes over on its way to the edge of the board,
+ * as a two long mask like Board's occupancy sets. ANDing a ray with the
+ * occupied squares and taking the nearest set bit finds the piece a shot
+ * hits in a couple of instructions instead of a walk along the ray.
+ *
+ * The squares of a ray are in index order or reverse index order, depending
+ * on the direction: east, south east, south and south west rays go to higher
+ * indices, so the nearest piece is the lowest set bit; the others go to lower
+ * indices, so it is the highest.
+ *
+ * Tables only depend on the board size, so one immutable table is shared by
+ * every board of that size.
+ */
+final class RayTable {
+
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	// The most recently used table; boards are nearly always the same size.
+	private static volatile RayTable last;
+
+	private final int width, height;
+
+	// Ray masks, indexed by square * 8 + direction ordinal.
+	private final long[] lo;
+	private final long[] hi;
+
+	// How many steps it takes to leave the board along each ray.
+	private final byte[] reach;
+
+	private RayTable(int width, int height) {
+		this.width = width;
+		this.height = height;
+		int size = width * height;
+		lo = new long[size * 8];
+		hi = new long[size * 8];
+		reach = new byte[size * 8];
+		for (int i = 0; i < size; ++i) {
+			for (int d = 0; d < 8; ++d) {
+				Position offset = DIRECTIONS[d].getOffset();
+				int x = i % width + offset.x, y = i / width + offset.y;
+				int steps = 1;
+				while (x >= 0 && x < width && y >= 0 && y < height) {
+					int j = x + y * width;
+					if (j < 64)
+						lo[i * 8 + d] |= 1L << j;
+					else
+						hi[i * 8 + d] |= 1L << (j - 64);
+					x += offset.x;
+					y += offset.y;
+					++steps;
+				}
+				reach[i * 8 + d] = (byte) steps;
+			}
+		}
+	}
+
+	/**
+	 * Gets the table for a board size.
+	 */
+	static RayTable forSize(int width, int height) {
+		RayTable table = last;
+		if (table == null || table.width != width || table.height != height) {
+			table = new RayTable(width, height);
+			last = table;
+		}
+		return table;
+	}
+
+	/**
+	 * Finds the nearest square in a set along a ray.
+	 *
+	 * @param i
+	 *            The square the ray starts from, which is not part of it.
+	 * @param d
+	 *            The direction ordinal.
+	 * @param setLo
+	 *            The low 64 squares of the set, such as all occupied squares.
+	 * @param setHi
+	 *            The high 64 squares of the set.
+	 * @return The square index, or -1 if the ray reaches the edge first.
+	 */
+	int first(int i, int d, long setLo, long setHi) {
+		long mlo = lo[i * 8 + d] & setLo;
+		long mhi = hi[i * 8 + d] & setHi;
+		if (d >= 2 && d <= 5) {
+			// EAST, SOUTHEAST, SOUTH and SOUTHWEST go up in index
+			if (mlo != 0L)
+				return Long.numberOfTrailingZeros(mlo);
+			if (mhi != 0L)
+				return 64 + Long.numberOfTrailingZeros(mhi);
+		} else {
+			if (mhi != 0L)
+				return 127 - Long.numberOfLeadingZeros(mhi);
+			if (mlo != 0L)
+				return 63 - Long.numberOfLeadingZeros(mlo);
+		}
+		return -1;
+	}
+
+	/**
+	 * Gets the number of steps from square i in direction d to the first
+	 * square off the board.
+	 */
+	int reach(int i, int d) {
+		return reach[i * 8 + d];
+	}
+}
@@ -1,27 +1,9 @@
 package edu.purdue.dtf.game;
 
-import static edu.purdue.dtf.game.Rotation.*;
-
 public class RotatablePiece extends Piece {
 
-	public RotatablePiece(String token) {
-		super(token);
-	}
-	
-	public void rotate(Rotation rotationDirection) {
-		Direction[] ds = Direction.values();
-		int i = 0;
-		while (ds[i] != directionFacing)
-			++i;
-		if (rotationDirection == CLOCKWISE)
-			++i;
-		else
-			--i;
-		if (i < 0)
-			i = ds.length - 1;
-		if (i >= ds.length)
-			i = 0;
-		directionFacing = ds[i];
+	RotatablePiece(int code) {
+		super(code);
 	}
 
 	@Override
@@ -2,13 +2,8 @@ package edu.purdue.dtf.game;
 
 public final class Slingshot extends RotatablePiece {
 
-	public Slingshot(String token) {
-		super(token);
+	Slingshot(int code) {
+		super(code);
 	}
 
-	@Override
-	public int getMovesPerTurn() {
-		return 2;
-	}
-	
 }
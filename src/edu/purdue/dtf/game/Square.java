@@ -0,0 +1,333 @@
+package edu.purdue.dtf.game;
+
+/**
+ * Square defines the packed int representation of a single board square used
+ * internally by Board. Everything about the piece on a square (type, owner,
+ * hit points, facing, status flags and their counters) fits into one int, so
+ * the whole board is just an int array that is cheap to scan, copy and
+ * compare. A value of EMPTY means there is no piece on the square.
+ *
+ * The layout, from the least significant bit, is:
+ *
+ * <pre>
+ *  0-2   piece type (EMPTY, BOULDER ... REFLECTOR)
+ *  3     owner (GOLD or RED)
+ *  4-6   hit points
+ *  7-9   facing (Direction ordinal)
+ *  10    rooted
+ *  11    stunned
+ *  12    shielded
+ *  13    burned
+ *  14    lit (torches only)
+ *  15    fired this turn
+ *  16-17 moves made this turn
+ *  18-20 stun counter
+ *  21-23 shield counter
+ * </pre>
+ *
+ * All methods are static helpers that decode or re-encode a packed value.
+ */
+public final class Square {
+
+	// Value of a square with no piece on it.
+	public static final int EMPTY = 0;
+
+	// Piece types, stored in the lowest bits.
+	public static final int BOULDER = 1;
+	public static final int FLAG = 2;
+	public static final int OBELISK = 3;
+	public static final int SLINGSHOT = 4;
+	public static final int TORCH = 5;
+	public static final int REFLECTOR = 6;
+	public static final int TYPE_COUNT = 7;
+
+	// Owners.
+	public static final int GOLD = 0;
+	public static final int RED = 1;
+
+	// Single bit status flags.
+	public static final int ROOTED = 1 << 10;
+	public static final int STUNNED = 1 << 11;
+	public static final int SHIELDED = 1 << 12;
+	public static final int BURNED = 1 << 13;
+	public static final int LIT = 1 << 14;
+	public static final int FIRED = 1 << 15;
+
+	private static final int TYPE_MASK = 0x7;
+	private static final int OWNER_SHIFT = 3;
+	private static final int HP_SHIFT = 4;
+	private static final int FACING_SHIFT = 7;
+	private static final int MOVES_SHIFT = 16;
+	private static final int STUN_COUNTER_SHIFT = 18;
+	private static final int SHIELD_COUNTER_SHIFT = 21;
+	private static final int THREE_BITS = 0x7;
+	private static final int TWO_BITS = 0x3;
+
+	// The bits a layout sets: type, owner, hit points and facing.
+	private static final int LAYOUT_MASK = (1 << 10) - 1;
+
+	// Marks a reflection that absorbs the projectile.
+	private static final int X = -1;
+
+	// Per type properties, indexed by piece type.
+	private static final int[] MAX_HIT_POINTS = { 0, 4, 1, 2, 1, 1, 1 };
+	private static final int[] MOVES_PER_TURN = { 0, 1, 3, 2, 2, 3, 3 };
+	private static final boolean[] ROTATABLE = { false, false, false, true,
+			true, false, true };
+	private static final char[] TYPE_CODES = { '*', 'B', 'F', 'X', 'V', 'T',
+			'R' };
+	private static final String[] TYPE_NAMES = { null, "B", "F", "X", "V",
+			"T", "R" };
+	private static final String[] OWNER_NAMES = { "G", "R" };
+
+	// The direction a projectile leaves a reflector in, indexed by the
+	// reflector's facing and the direction the projectile arrived from.
+	private static final int[][] REFLECTIONS =
+			{{4,3,X,1,0,7,X,5},
+			 {6,5,4,X,2,1,0,X},
+			 {X,7,6,5,X,3,2,1},
+			 {2,X,0,7,6,X,4,3},
+			 {4,3,X,1,0,7,X,5},
+			 {6,5,4,X,2,1,0,X},
+			 {X,7,6,5,X,3,2,1},
+			 {2,X,0,7,6,X,4,3}};
+
+	private Square() {
+	}
+
+	/**
+	 * Packs a new piece with full status (no flags, no moves, counters at
+	 * zero). Torches start out lit.
+	 *
+	 * @param type
+	 *            The piece type.
+	 * @param owner
+	 *            GOLD or RED.
+	 * @param hitPoints
+	 *            The current hit points.
+	 * @param facing
+	 *            The ordinal of the direction the piece faces.
+	 * @return The packed square value.
+	 */
+	public static int create(int type, int owner, int hitPoints, int facing) {
+		int code = type | (owner << OWNER_SHIFT) | (hitPoints << HP_SHIFT)
+				| (facing << FACING_SHIFT);
+		if (type == TORCH)
+			code |= LIT;
+		return code;
+	}
+
+	/**
+	 * Gets the part of a packed value that a board layout describes, the
+	 * type, owner, hit points and facing, as a 10 bit number. Status flags
+	 * and counters are dropped.
+	 *
+	 * @param code
+	 *            The packed square value.
+	 * @return The layout bits, 0 for an empty square.
+	 */
+	public static int layoutBits(int code) {
+		return code & LAYOUT_MASK;
+	}
+
+	/**
+	 * Unpacks layout bits made by layoutBits into a new piece, as create
+	 * would make it.
+	 *
+	 * @param bits
+	 *            The layout bits.
+	 * @return The packed square value, EMPTY for 0, or -1 if the bits do not
+	 *         describe a valid piece.
+	 */
+	public static int fromLayoutBits(int bits) {
+		if (bits == 0)
+			return EMPTY;
+		int type = type(bits);
+		if ((bits & ~LAYOUT_MASK) != 0 || type == EMPTY || type >= TYPE_COUNT
+				|| hitPoints(bits) > MAX_HIT_POINTS[type])
+			return -1;
+		return create(type, owner(bits), hitPoints(bits), facing(bits));
+	}
+
+	/**
+	 * Parses a four character piece token from the board text format, for
+	 * example RF04 for a red flag with no damage facing south.
+	 *
+	 * @param token
+	 *            The token to parse.
+	 * @return The packed square value.
+	 */
+	public static int parse(String token) {
+		int owner = token.charAt(0) == 'G' ? GOLD : RED;
+		int type = typeOf(token.charAt(1));
+		int damage = token.charAt(2) - '0';
+		int facing = token.charAt(3) - '0';
+		int hp = MAX_HIT_POINTS[type] - damage;
+		if (damage < 0 || hp < 0)
+			throw new RuntimeException("invalid damage: "
+					+ token.substring(2, 3));
+		if (facing < 0 || facing >= Direction.values().length)
+			throw new RuntimeException("invalid facing: "
+					+ token.substring(3, 4));
+		return create(type, owner, hp, facing);
+	}
+
+	/**
+	 * Converts a piece type character from the board text format into a piece
+	 * type.
+	 */
+	public static int typeOf(char c) {
+		switch (c) {
+		case 'B':
+			return BOULDER;
+		case 'F':
+			return FLAG;
+		case 'X':
+			return OBELISK;
+		case 'V':
+			return SLINGSHOT;
+		case 'T':
+			return TORCH;
+		case 'R':
+			return REFLECTOR;
+		default:
+			throw new RuntimeException("invalid piece type: " + c);
+		}
+	}
+
+	public static char typeCode(int type) {
+		return TYPE_CODES[type];
+	}
+
+	public static String typeName(int type) {
+		return TYPE_NAMES[type];
+	}
+
+	public static String ownerName(int owner) {
+		return OWNER_NAMES[owner];
+	}
+
+	public static int type(int code) {
+		return code & TYPE_MASK;
+	}
+
+	public static int owner(int code) {
+		return (code >>> OWNER_SHIFT) & 1;
+	}
+
+	public static int hitPoints(int code) {
+		return (code >>> HP_SHIFT) & THREE_BITS;
+	}
+
+	public static int facing(int code) {
+		return (code >>> FACING_SHIFT) & THREE_BITS;
+	}
+
+	public static int moves(int code) {
+		return (code >>> MOVES_SHIFT) & TWO_BITS;
+	}
+
+	public static int stunCounter(int code) {
+		return (code >>> STUN_COUNTER_SHIFT) & THREE_BITS;
+	}
+
+	public static int shieldCounter(int code) {
+		return (code >>> SHIELD_COUNTER_SHIFT) & THREE_BITS;
+	}
+
+	public static boolean is(int code, int flag) {
+		return (code & flag) != 0;
+	}
+
+	public static int with(int code, int flag, boolean on) {
+		return on ? code | flag : code & ~flag;
+	}
+
+	public static int withHitPoints(int code, int hp) {
+		return (code & ~(THREE_BITS << HP_SHIFT)) | (hp << HP_SHIFT);
+	}
+
+	public static int withFacing(int code, int facing) {
+		return (code & ~(THREE_BITS << FACING_SHIFT))
+				| (facing << FACING_SHIFT);
+	}
+
+	public static int withMoves(int code, int moves) {
+		return (code & ~(TWO_BITS << MOVES_SHIFT)) | (moves << MOVES_SHIFT);
+	}
+
+	public static int withStunCounter(int code, int counter) {
+		return (code & ~(THREE_BITS << STUN_COUNTER_SHIFT))
+				| (counter << STUN_COUNTER_SHIFT);
+	}
+
+	public static int withShieldCounter(int code, int counter) {
+		return (code & ~(THREE_BITS << SHIELD_COUNTER_SHIFT))
+				| (counter << SHIELD_COUNTER_SHIFT);
+	}
+
+	public static int maxHitPoints(int type) {
+		return MAX_HIT_POINTS[type];
+	}
+
+	public static int movesPerTurn(int type) {
+		return MOVES_PER_TURN[type];
+	}
+
+	public static boolean isRotatable(int type) {
+		return ROTATABLE[type];
+	}
+
+	/**
+	 * Tells whether the piece can still act this turn.
+	 */
+	public static boolean hasMovesRemaining(int code) {
+		return moves(code) < MOVES_PER_TURN[type(code)];
+	}
+
+	/**
+	 * Determines whether the attacking piece is allowed to move onto the
+	 * target's square and take it.
+	 *
+	 * @param attacker
+	 *            The packed value of the moving piece.
+	 * @param target
+	 *            The packed value of the piece being taken.
+	 * @return True if the move would take the target.
+	 */
+	public static boolean canTake(int attacker, int target) {
+		if (is(target, SHIELDED))
+			return false;
+		if (type(attacker) == TORCH) {
+			int t = type(target);
+			return is(attacker, LIT) && t != BOULDER && t != OBELISK;
+		}
+		return MAX_HIT_POINTS[type(attacker)] > MAX_HIT_POINTS[type(target)];
+	}
+
+	/**
+	 * Calculates the facing after a rotation.
+	 *
+	 * @param facing
+	 *            The current facing as a Direction ordinal.
+	 * @param clockwise
+	 *            Whether the rotation is clockwise.
+	 * @return The new facing.
+	 */
+	public static int rotate(int facing, boolean clockwise) {
+		return (facing + (clockwise ? 1 : 7)) & THREE_BITS;
+	}
+
+	/**
+	 * Looks up where a projectile goes after it strikes a reflector.
+	 *
+	 * @param reflectorFacing
+	 *            The facing of the reflector.
+	 * @param direction
+	 *            The direction the projectile was travelling in.
+	 * @return The new direction, or -1 if the reflector absorbs the shot.
+	 */
+	public static int reflect(int reflectorFacing, int direction) {
+		return REFLECTIONS[reflectorFacing][direction];
+	}
+}
@@ -2,26 +2,12 @@ package edu.purdue.dtf.game;
 
 public final class Torch extends Piece {
 
-	private boolean lit;
-	
-	public Torch(String token) {
-		super(token);
-		lit = true;
+	Torch(int code) {
+		super(code);
 	}
 
 	public boolean isLit() {
-		return lit;
-	}
-
-	public void setLit(boolean lit) {
-		this.lit = lit;
-	}
-	
-	@Override
-	public boolean canTake(Piece that) {
-		return isLit() 
-			&& (!(that instanceof Boulder || that instanceof Obelisk))
-			&& !that.isShielded();
+		return Square.is(code, Square.LIT);
 	}
 
 }
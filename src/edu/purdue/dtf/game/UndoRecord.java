@@ -0,0 +1,36 @@
+package edu.purdue.dtf.game;
+
+/**
+ * UndoRecord remembers what Board.make needs to take a move back. Records are
+ * owned and reused by the board they came from, so they must be handed back
+ * to Board.unmake in the reverse order they were made, and must not be kept
+ * after that.
+ */
+public final class UndoRecord {
+
+	// The move that was made.
+	int move;
+
+	// Where this move's square changes start in the board's journal.
+	int journalMark;
+
+	// Turn state from before the move.
+	int turn;
+	int movesRemaining;
+
+	// How deep in the board's undo stack this record sits.
+	final int depth;
+
+	UndoRecord(int depth) {
+		this.depth = depth;
+	}
+
+	/**
+	 * Gets the move this record can undo.
+	 *
+	 * @return The packed move, see Move.
+	 */
+	public int getMove() {
+		return move;
+	}
+}
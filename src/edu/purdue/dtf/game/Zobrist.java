@@ -0,0 +1,61 @@
+package edu.purdue.dtf.game;
+
+/**
+ * Zobrist provides the random keys that Board XORs together into its 64-bit
+ * position key. The key of a position is the XOR of one key per occupied
+ * square plus one key for whose turn it is and how many actions they have
+ * left, so a move only has to XOR out the old keys of the squares it changes
+ * and XOR in the new ones.
+ *
+ * A square's key depends on the whole packed square value (see Square), so
+ * piece, owner, facing, hit points, every status flag and both counters are
+ * all part of the position key. Since there are far too many packed values
+ * for a lookup table, the keys are produced by a fixed 64-bit mixing function
+ * instead of a random number table. They are the same on every run, which
+ * lets keys be stored and compared across processes.
+ */
+public final class Zobrist {
+
+	private static final long SQUARE_SEED = 0x9e3779b97f4a7c15L;
+	private static final long TURN_SEED = 0xc2b2ae3d27d4eb4fL;
+
+	private Zobrist() {
+	}
+
+	/**
+	 * Gets the key for a square holding a packed value.
+	 *
+	 * @param i
+	 *            The square index.
+	 * @param code
+	 *            The packed square value.
+	 * @return The key, which is zero for an empty square.
+	 */
+	public static long square(int i, int code) {
+		if (code == Square.EMPTY)
+			return 0L;
+		return mix(SQUARE_SEED * (((long) i << 32) | (code & 0xffffffffL)));
+	}
+
+	/**
+	 * Gets the key for the side to move and its remaining actions.
+	 *
+	 * @param turn
+	 *            Square.GOLD or Square.RED.
+	 * @param movesRemaining
+	 *            The actions the side has left this turn.
+	 * @return The key.
+	 */
+	public static long turn(int turn, int movesRemaining) {
+		return mix(TURN_SEED + (turn << 4) + movesRemaining);
+	}
+
+	/**
+	 * The splitmix64 finalizer, a cheap mix with good avalanche.
+	 */
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+}
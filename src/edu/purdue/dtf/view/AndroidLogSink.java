@@ -0,0 +1,21 @@
+package edu.purdue.dtf.view;
+
+import android.util.Log;
+import edu.purdue.dtf.game.GameLog;
+
+/**
+ * AndroidLogSink routes core game logging to the Android system log.
+ */
+final class AndroidLogSink implements GameLog.Sink {
+
+	@Override
+	public void d(String tag, String message) {
+		Log.d(tag, message);
+	}
+
+	@Override
+	public void e(String tag, String message) {
+		Log.e(tag, message);
+	}
+
+}
@@ -0,0 +1,92 @@
+package edu.purdue.dtf.view;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * CommandQueue hands commands from one thread to another without locks and
+ * without allocating. The commands are objects made up front that go round a
+ * ring: the producer claims the next free one, fills it in and publishes it,
+ * and the consumer peeks at the oldest published one, carries it out and
+ * releases it to be reused.
+ *
+ * Only one thread may produce and only one may consume. Publishing is a
+ * release store and peeking an acquire load, so everything the producer wrote
+ * into a command before publishing it is visible to the consumer.
+ *
+ * @param <T>
+ *            The type of command.
+ */
+final class CommandQueue<T> {
+
+	private final T[] slots;
+	private final int mask;
+
+	// Count of commands ever published, only written by the producer.
+	private final AtomicLong tail = new AtomicLong();
+
+	// Count of commands ever released, only written by the consumer.
+	private final AtomicLong head = new AtomicLong();
+
+	/**
+	 * Creates a queue around a set of commands.
+	 *
+	 * @param slots
+	 *            The commands to reuse. Their number is the capacity of the
+	 *            queue and must be a power of two.
+	 */
+	CommandQueue(T[] slots) {
+		if (slots.length == 0 || (slots.length & (slots.length - 1)) != 0)
+			throw new IllegalArgumentException("capacity " + slots.length
+					+ " is not a power of two");
+		this.slots = slots;
+		this.mask = slots.length - 1;
+	}
+
+	/**
+	 * Gets the next free command for the producer to fill in. The same
+	 * command is returned until it is published.
+	 *
+	 * @return The command, or null if the queue is full.
+	 */
+	T claim() {
+		long t = tail.get();
+		if (t - head.get() == slots.length)
+			return null;
+		return slots[(int) t & mask];
+	}
+
+	/**
+	 * Passes the claimed command on to the consumer.
+	 */
+	void publish() {
+		tail.lazySet(tail.get() + 1);
+	}
+
+	/**
+	 * Gets the oldest published command for the consumer. The same command
+	 * is returned until it is released.
+	 *
+	 * @return The command, or null if there is none.
+	 */
+	T peek() {
+		long h = head.get();
+		if (h == tail.get())
+			return null;
+		return slots[(int) h & mask];
+	}
+
+	/**
+	 * Hands the command being consumed back to the producer.
+	 */
+	void release() {
+		head.lazySet(head.get() + 1);
+	}
+
+	/**
+	 * Tells whether every published command has been released. May be called
+	 * from either thread.
+	 */
+	boolean isEmpty() {
+		return head.get() == tail.get();
+	}
+}
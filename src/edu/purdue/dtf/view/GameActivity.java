@@ -1,8 +1,16 @@
 package edu.purdue.dtf.view;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 
+import edu.purdue.dtf.ai.AiPlayer;
 import edu.purdue.dtf.game.Board;
+import edu.purdue.dtf.game.GameReader;
+import edu.purdue.dtf.game.GameRecorder;
+import edu.purdue.dtf.game.GameLog;
 
 import android.app.Activity;
 import android.content.res.Resources.NotFoundException;
@@ -21,6 +29,24 @@ public final class GameActivity extends Activity {
 
 	// Tag used for logging from this class.
 	private static final String TAG = "GameActivity";
+
+	// Intent extra naming the player the computer controls, "G" or "R".
+	// Without it both players are human.
+	public static final String EXTRA_AI_PLAYER = "edu.purdue.dtf.AI_PLAYER";
+
+	// Intent extra with the number, from 0, of a game in the game log to play
+	// back instead of playing a new one.
+	public static final String EXTRA_REPLAY_GAME = "edu.purdue.dtf.REPLAY_GAME";
+
+	// Key of the saved game state in the instance state bundle.
+	private static final String STATE_BOARD = "board";
+
+	// Key of whether the saved game was being recorded, in which case its
+	// record is carried on rather than a new one started.
+	private static final String STATE_RECORDING = "recording";
+
+	// Private file every game played is appended to, see GameRecorder.
+	private static final String GAME_LOG = "games.log";
 	
 	// Responsible for game rendering and input.
 	private GameView view;
@@ -28,6 +54,10 @@ public final class GameActivity extends Activity {
 	// Responsible for game rules and control.
 	private Board board;
 
+	// Keeps the games played, or null if the log could not be opened.
+	private GameRecorder recorder;
+	private OutputStream recorderOut;
+
 	// Size of the game board in squares.
 	private static final int boardWidth = 11;
 	private static final int boardHeight = 9;
@@ -36,6 +66,9 @@ public final class GameActivity extends Activity {
 	protected void onCreate(Bundle savedInstanceState) {
 		super.onCreate(savedInstanceState);
 		Log.d(TAG, "onCreate");
+
+		// Send the core game logic's log messages to the Android log.
+		GameLog.setSink(new AndroidLogSink());
 		
 		// Make the game full screen, with no system UI features visible.
 		requestWindowFeature(Window.FEATURE_NO_TITLE);
@@ -46,20 +79,73 @@ public final class GameActivity extends Activity {
 		// TODO make this part of a new game (i.e. play button)
 		board = new Board(boardWidth, boardHeight);
 		try {
-			board.setFromStream(getResources().openRawResource(R.raw.board));
+			board.setFromLayout(getResources().openRawResource(R.raw.board));
 		} catch (NotFoundException e) {
 			e.printStackTrace();
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
 
-		// Initialize the main game view.
+		// Initialize the main game view. A game interrupted by a rotation or
+		// the process being killed carries on where it was.
 		view = new GameView(this);
+		view.setInitialPosition(board);
+		boolean restored = restoreGame(savedInstanceState);
 		view.setBoard(board);
+		int replayGame = getIntent().getIntExtra(EXTRA_REPLAY_GAME, -1);
+		if (replayGame >= 0) {
+			startReplay(replayGame);
+		} else {
+			startRecording(restored, restored
+					&& savedInstanceState.getBoolean(STATE_RECORDING));
+			String aiSide = getIntent().getStringExtra(EXTRA_AI_PLAYER);
+			if (aiSide != null) {
+				view.setAiPlayer(new AiPlayer(), aiSide);
+			}
+		}
 		setContentView(view);
 		Log.d(TAG, "Activity created successfully.");
 	}
 
+	@Override
+	protected void onSaveInstanceState(Bundle outState) {
+		super.onSaveInstanceState(outState);
+		outState.putByteArray(STATE_BOARD, board.saveState());
+		boolean recording = recorder != null && recorder.isRecording();
+		outState.putBoolean(STATE_RECORDING, recording);
+		if (recording) {
+			// the process may be killed from here on, so the actions so far
+			// must be in the log for the record to be carried on
+			try {
+				recorder.flush();
+			} catch (IOException e) {
+				Log.e(TAG, "could not flush game log", e);
+			}
+		}
+	}
+
+	/**
+	 * Puts the board back in the state saved by onSaveInstanceState, if
+	 * there is one.
+	 * 
+	 * @return True if the board was restored.
+	 */
+	private boolean restoreGame(Bundle savedInstanceState) {
+		if (savedInstanceState == null)
+			return false;
+		byte[] state = savedInstanceState.getByteArray(STATE_BOARD);
+		if (state == null)
+			return false;
+		try {
+			board.restoreState(state);
+			return true;
+		} catch (IllegalArgumentException e) {
+			// saved by a different version, start over instead
+			Log.e(TAG, "could not restore the game", e);
+			return false;
+		}
+	}
+
 	@Override
 	protected void onPause() {
 		super.onPause();
@@ -82,6 +168,94 @@ public final class GameActivity extends Activity {
 	protected void onStop() {
 		super.onStop();
 		Log.d(TAG, "onStop");
+		// the process may be killed from here on without onDestroy; the
+		// game's record then stays open in the log, so keep as much of it
+		// as there is
+		if (recorder != null) {
+			try {
+				recorder.flush();
+			} catch (IOException e) {
+				Log.e(TAG, "could not flush game log", e);
+			}
+		}
+	}
+
+	@Override
+	protected void onDestroy() {
+		super.onDestroy();
+		Log.d(TAG, "onDestroy");
+		view.stopAi();
+		if (recorder != null) {
+			try {
+				// a game interrupted by a rotation carries on in the next
+				// activity, which continues its record
+				if (isFinishing())
+					recorder.end();
+				else
+					recorder.flush();
+				recorderOut.close();
+			} catch (IOException e) {
+				Log.e(TAG, "could not close game log", e);
+			}
+		}
+	}
+
+	/**
+	 * Starts appending the games played to the game log.
+	 * 
+	 * If the process was killed in the background, the log ends with the
+	 * record of the game it was playing, never ended. A new game is still
+	 * appended straight after it: GameReader ends a record where the next
+	 * header starts, so the killed game reads back as unfinished and every
+	 * game after it is intact.
+	 * 
+	 * @param restored
+	 *            Whether the game was restored rather than just started.
+	 * @param resume
+	 *            Whether the restored game was being recorded. Its record,
+	 *            already in the log, is carried on. A restored game that was
+	 *            not being recorded is not recorded at all, since a record
+	 *            must start from the starting position; the next one is.
+	 */
+	private void startRecording(boolean restored, boolean resume) {
+		try {
+			recorderOut = new BufferedOutputStream(openFileOutput(GAME_LOG,
+					MODE_APPEND));
+			recorder = new GameRecorder(recorderOut);
+			if (!restored)
+				recorder.begin(board);
+			else if (resume)
+				recorder.resume(board);
+		} catch (IOException e) {
+			Log.e(TAG, "could not open game log", e);
+			recorder = null;
+			return;
+		}
+		board.addEventListener(recorder, GameRecorder.EVENTS);
+		view.setRecorder(recorder);
+	}
+
+	/**
+	 * Plays back a game from the game log.
+	 * 
+	 * @param game
+	 *            The number of the game in the log, from 0.
+	 */
+	private void startReplay(int game) {
+		try {
+			InputStream in = new BufferedInputStream(openFileInput(GAME_LOG));
+			GameReader reader = new GameReader(in);
+			for (int k = 0; k <= game; ++k) {
+				if (!reader.nextGame()) {
+					Log.e(TAG, "game log has no game " + game);
+					in.close();
+					return;
+				}
+			}
+			view.replay(reader);
+		} catch (IOException e) {
+			Log.e(TAG, "could not read game log", e);
+		}
 	}
 
 }
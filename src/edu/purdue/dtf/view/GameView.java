@@ -4,12 +4,12 @@ import static edu.purdue.dtf.game.Rotation.CLOCKWISE;
 import static edu.purdue.dtf.game.Rotation.COUNTER_CLOCKWISE;
 
 import java.io.IOException;
-import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.Map;
-import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 import javax.microedition.khronos.egl.EGL10;
 import javax.microedition.khronos.egl.EGLConfig;
@@ -18,18 +18,21 @@ import javax.microedition.khronos.opengles.GL10;
 
 import android.content.Context;
 import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
 import android.graphics.drawable.Drawable;
+import android.opengl.ETC1Util;
 import android.opengl.GLSurfaceView;
+import android.os.Build;
 import android.util.Log;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.View.OnTouchListener;
+import android.widget.Toast;
 
 import com.threed.jpct.Camera;
 import com.threed.jpct.FrameBuffer;
 import com.threed.jpct.Interact2D;
 import com.threed.jpct.Light;
-import com.threed.jpct.Loader;
 import com.threed.jpct.Object3D;
 import com.threed.jpct.RGBColor;
 import com.threed.jpct.SimpleVector;
@@ -39,9 +42,15 @@ import com.threed.jpct.World;
 import com.threed.jpct.util.BitmapHelper;
 import com.threed.jpct.util.MemoryHelper;
 
+import edu.purdue.dtf.ai.AiPlayer;
 import edu.purdue.dtf.game.Board;
-import edu.purdue.dtf.game.BoardListener;
+import edu.purdue.dtf.game.BoardEventListener;
+import edu.purdue.dtf.game.BoardEvents;
 import edu.purdue.dtf.game.Direction;
+import edu.purdue.dtf.game.GameReader;
+import edu.purdue.dtf.game.GameRecorder;
+import edu.purdue.dtf.game.Move;
+import edu.purdue.dtf.game.MoveGenerator;
 import edu.purdue.dtf.game.Piece;
 import edu.purdue.dtf.game.Position;
 import edu.purdue.dtf.game.Projectile;
@@ -54,7 +63,7 @@ import edu.purdue.dtf.game.Torch;
  * objects and textures.
  */
 public final class GameView extends GLSurfaceView implements OnTouchListener,
-		GLSurfaceView.Renderer, BoardListener {
+		GLSurfaceView.Renderer, BoardEventListener {
 
 	// Tag used for logging from this class.
 	private static final String TAG = "GameView";
@@ -66,12 +75,28 @@ public final class GameView extends GLSurfaceView implements OnTouchListener,
 	// just turning on blending mode without making the object transparent.
 	private static final int FULLY_OPAQUE = 255;
 
-	private static GameView master = null;
-
 	// The World object is the main object in jPCT that coordinates all the
 	// geometry, transformations, and rendering.
 	private World world;
 
+	// Loads the 3D models, each only once.
+	private ModelCache models;
+
+	// Keeps what is on the GPU so it can be put back if the context is lost.
+	private final ResourceManager resources = new ResourceManager();
+
+	// Set when the GL context has been replaced, losing everything uploaded
+	// to it. Only used on the render thread.
+	private boolean contextLost = false;
+
+	// Whether the GPU can take ETC1 compressed textures. Asking needs a GL
+	// context, so it is found out on the render thread before loading starts
+	// and read by the loading thread.
+	private volatile boolean etc1Supported = false;
+
+	// Where the piece skins and the roots are in the shared atlas texture.
+	private TextureAtlas atlas;
+
 	// The frame buffer represents the rendered pixels that the world is drawn
 	// onto and then displayed in the game view.
 	private FrameBuffer fb;
@@ -91,9 +116,9 @@ public final class GameView extends GLSurfaceView implements OnTouchListener,
 	// flag for instance.
 	private Map<String, Object3D> pieceTemplates;
 
-	// Squares contains the clones of the light and dark squares that are used
-	// to represent the game board in the world.
-	private Object3D squares[][] = null;
+	// The light and dark squares of the game board, merged into one object so
+	// the whole board is a single mesh, transformed and drawn once.
+	private Object3D squares = null;
 
 	// Contains the actual clones of the piece templates for all the 3D
 	// objects representing each players units on the board. This is a
@@ -117,7 +142,15 @@ public final class GameView extends GLSurfaceView implements OnTouchListener,
 
 	private ProjectileAnim projectileAnim;
 	
-	private Map<Integer,ParticleManager> fires;
+	// Where a torch's fire sits relative to the center of its square.
+	private static final float FIRE_X = 0.15f;
+	private static final float FIRE_Y = -0.15f;
+	private static final float FIRE_Z = -0.2f;
+
+	// The fire of every burning torch, and the emitter of each torch by the
+	// ID of its object.
+	private ParticleSystem particles;
+	private final Map<Integer,Integer> fires = new HashMap<Integer,Integer>();
 	
 	private Object3D rootIndicatorTemplate;
 	private Object3D shieldIndicatorTemplate;
@@ -126,40 +159,69 @@ public final class GameView extends GLSurfaceView implements OnTouchListener,
 	private Map<Integer,Object3D> rootIndicator = new HashMap<Integer,Object3D>();
 	private Map<Integer,Object3D> shieldIndicator = new HashMap<Integer,Object3D>();
 	private Map<Integer,Object3D> stunIndicator = new HashMap<Integer,Object3D>();
-	
-	private final static int PARTICLE_COUNT = 1;
 
-	private Queue<Runnable> projectileCompleteQueue = new LinkedList<Runnable>();
+	private static final Rotation[] ROTATIONS = Rotation.values();
+	private static final Projectile[] PROJECTILES = Projectile.values();
+	private static final Direction[] DIRECTIONS = Direction.values();
 
-	private void queueProjectileCompleteEvent(Runnable runnable) {
-		projectileCompleteQueue.add(runnable);
-	}
+	// Room for this many changes to the view waiting for the renderer. If it
+	// ever falls further behind, the next change rebuilds the whole view.
+	private static final int COMMAND_CAPACITY = 16;
+
+	// Carries changes from the UI thread, which plays the game, to the render
+	// thread, which shows them.
+	private CommandQueue<RenderCommand> commands;
+
+	// True when a change could not be queued, until the view is rebuilt.
+	// Set and cleared on the UI thread; the render thread reads it to ask for
+	// the rebuild as soon as it has made room in the queue.
+	private volatile boolean outOfSync = false;
+
+	// Sends the rebuild owed since a change was dropped, on the UI thread.
+	private final Runnable resync = new Runnable() {
+		public void run() {
+			if (outOfSync)
+				send(RenderCommand.RESET, null);
+		}
+	};
+
+	// The position the render thread is showing, updated only from commands.
+	private Board shown;
+
+	// Path of the projectile in flight, reused for every shot.
+	private final ArrayList<Position> shotPath = new ArrayList<Position>();
+	private final ArrayList<Direction> shotDirs = new ArrayList<Direction>();
+
+	// True while the rest of an action waits for its projectile to land.
+	private boolean landing = false;
 	
 	// Stores the objects making up the side panels. One per player.
 	private class ActionPanel {
 		Map<String,Object3D> icons;
 
+		// The action of each icon by the board square it sits on, filled in
+		// once the icons are in place so touches are a single lookup.
+		Map<Position,String> actions;
+
 		ActionPanel() {
 			icons = new HashMap<String,Object3D>();
+			actions = new HashMap<Position,String>();
+		}
+
+		void mapActions() {
+			for (Map.Entry<String,Object3D> entry : icons.entrySet()) {
+				actions.put(Vectors.toPosition(entry.getValue()
+						.getTranslation()), entry.getKey());
+			}
 		}
 
 		void addToWorld(World world) {
-			for (Object3D icon : icons.values()) {
+			for (Object3D icon : icons.values())
 				world.addObject(icon);
-			}
 		}
 		
 		String getAction(Position pos) {
-			for (String key : icons.keySet()) {
-				Object3D icon = icons.get(key);
-				float x = (float) pos.x;
-				float y = (float) pos.y;
-				SimpleVector v = icon.getTranslation();
-				if (v.x == x && v.y == y) {
-					return key;
-				}
-			}
-			return null;
+			return actions.get(pos);
 		}
 	}
 
@@ -169,15 +231,23 @@ public final class GameView extends GLSurfaceView implements OnTouchListener,
 	private final SimpleVector cameraPosition = new SimpleVector(5.5f, 4.0f,
 			-13.0f);
 
+	// Reused by screenToBoard so touches do not allocate.
+	private final SimpleVector touchRay = new SimpleVector();
+
 	// The moveStart position is used to capture the first part of a users
 	// move. When the user first touches the screen it indicates the piece
 	// they want to try to move, and when they click again, hopefully on a
 	// valid target for whichever piece they've chosen, it either moves there
-	// or executes the ability they chose.
+	// or executes the ability they chose. Only used on the UI thread.
 	private Position selected;
 
+	// The position a reset goes back to, kept so resets need not reload it.
+	private Board initialPosition;
+
 	// Board is a reference to the main game board, which represents the model
-	// that this view is representing visually for the user.
+	// that this view is representing visually for the user. It is only read
+	// and played on from the UI thread; the renderer gets copies through the
+	// command queue.
 	private Board board;
 
 	private Context context;
@@ -188,12 +258,95 @@ public final class GameView extends GLSurfaceView implements OnTouchListener,
 
 	// The prior time captured during the last update, to help with calculation
 	// of the fps mentioned above.
-	private long time = System.currentTimeMillis();
+	private long time = System.nanoTime();
+
+	// Frames drawn since the view started, and the time spent drawing them
+	// since the fps was last written, as rough measures of the power used.
+	private long framesRendered = 0;
+	private long busyNanos = 0;
+
+	// True while frames are drawn one after the other; otherwise they are
+	// only drawn when requested. Only used on the render thread.
+	private boolean continuous = true;
 
-	// Temporary fix to ensure onDrawFrame doesn't generate null pointer
-	// exceptions because it runs before all objects are loaded. Better way
-	// would be to investigate and figure out a better way to load.
-	private boolean fullyLoaded = false;
+	// Time between frames when the only thing moving is fire.
+	private static final long FIRE_FRAME_MS = 33;
+
+	// Asks for a frame while only fire is moving.
+	private final Runnable tick = new Runnable() {
+		public void run() {
+			requestRender();
+		}
+	};
+
+	// Rate of the fixed steps that animations move in, whatever the frame
+	// rate, and the most steps a slow frame may catch up on.
+	private static final int STEPS_PER_SECOND = 60;
+	private static final int MAX_STEPS_PER_FRAME = 4;
+
+	// The clock animations are driven by. Only used on the render thread.
+	private final SimulationClock clock = new SimulationClock(
+			STEPS_PER_SECOND, MAX_STEPS_PER_FRAME);
+
+	// Loads the assets in the background, see initMaster.
+	private StagedLoader loader;
+
+	// How long each frame may spend putting loaded assets into the world.
+	private static final long ATTACH_BUDGET_NANOS = 8000000L;
+
+	// Set on the render thread once the squares, the pieces and everything
+	// needed to play on them are in the world. Until then touches are
+	// ignored and only the progress of loading is drawn.
+	private volatile boolean playable = false;
+
+	// Set on the render thread once every asset is in the world.
+	private volatile boolean fullyLoaded = false;
+
+	// Set on the render thread once the player has been told loading
+	// failed.
+	private boolean failureShown = false;
+
+	// Set on the render thread once the turn indicator and the win overlays
+	// are in the world. Until then showing changes leaves them alone.
+	private boolean turnIndicatorAttached = false;
+	private boolean winOverlaysAttached = false;
+
+	// Colors of the loading progress bar, and its size and height on the
+	// screen as fractions of the screen's.
+	private Texture progressTrack;
+	private Texture progressFill;
+	private static final float PROGRESS_WIDTH = 0.5f;
+	private static final float PROGRESS_HEIGHT = 0.02f;
+	private static final float PROGRESS_Y = 0.9f;
+
+	// Pause between the actions of a computer player's turn, so the human can
+	// follow what it does.
+	private static final long AI_ACTION_DELAY_MS = 700;
+
+	// How often to check back while an animation blocks the next AI action.
+	private static final long AI_WAIT_MS = 50;
+
+	// The computer opponent, or null for a two player game.
+	private AiPlayer ai;
+
+	// The player the computer plays, "G" or "R".
+	private String aiSide;
+
+	// Runs AI searches so they block neither the UI nor the render thread.
+	private ExecutorService aiExecutor;
+
+	// True from the start of an AI search until its last action is played.
+	// Only used on the UI thread.
+	private boolean aiThinking = false;
+
+	// Plays the actions of the AI's turn one at a time on the UI thread.
+	private final AiTurn aiTurn = new AiTurn();
+
+	// Records the games played, or null. Each reset starts a new record.
+	private GameRecorder recorder;
+
+	// Plays back a recorded game, paced like the AI's actions.
+	private final Replay replay = new Replay();
 
 	/**
 	 * Constructs a new GameView.
@@ -217,6 +370,11 @@ public final class GameView extends GLSurfaceView implements OnTouchListener,
 				return configs[0];
 			}
 		});
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB) {
+			// keep the GL context while paused where the device can, so
+			// resuming needs nothing uploaded again
+			setPreserveEGLContextOnPause(true);
+		}
 		setOnTouchListener(this);
 		setRenderer(this);
 	}
@@ -231,7 +389,235 @@ public final class GameView extends GLSurfaceView implements OnTouchListener,
 		// moved out of constructor because it was complaining in a warning
 		// about not using a standard method signature for the view.
 		this.board = board;
-		board.addBoardListener(this);
+		this.shown = new Board(board);
+		RenderCommand[] slots = new RenderCommand[COMMAND_CAPACITY];
+		for (int k = 0; k < slots.length; ++k)
+			slots[k] = new RenderCommand(board.getWidth(), board.getHeight());
+		commands = new CommandQueue<RenderCommand>(slots);
+		board.addEventListener(this, BoardEvents.ALL);
+	}
+
+	/**
+	 * Sets the position a new game starts from when the board is reset.
+	 * 
+	 * @param position
+	 *            The starting position. The view keeps its own copy.
+	 */
+	public void setInitialPosition(Board position) {
+		this.initialPosition = new Board(position);
+	}
+
+	/**
+	 * Sets the recorder keeping the games played. It must already be
+	 * listening to the board, and recording the current game if that is to
+	 * be kept; the view starts a new record whenever the board is reset.
+	 * 
+	 * @param recorder
+	 *            The recorder.
+	 */
+	public void setRecorder(GameRecorder recorder) {
+		this.recorder = recorder;
+	}
+
+	/**
+	 * Plays back the next game of a game log on the board, one action at a
+	 * time with the same pauses as the computer player, while touches are
+	 * ignored. The board must be in the game's starting position.
+	 * 
+	 * @param reader
+	 *            The log, with the game to play back read up to its header.
+	 */
+	public void replay(final GameReader reader) {
+		post(new Runnable() {
+			public void run() {
+				replay.start(reader);
+			}
+		});
+	}
+
+	/**
+	 * Lets the computer play one side of the game. The AI starts thinking as
+	 * soon as it is that side's turn.
+	 * 
+	 * @param ai
+	 *            The computer player.
+	 * @param side
+	 *            The player it controls, "G" or "R".
+	 */
+	public void setAiPlayer(AiPlayer ai, String side) {
+		this.ai = ai;
+		this.aiSide = side;
+		aiExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "AiPlayer");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		post(new Runnable() {
+			public void run() {
+				maybeStartAiTurn();
+			}
+		});
+	}
+
+	/**
+	 * Stops the computer player's search threads. Call when the activity is
+	 * destroyed.
+	 */
+	public void stopAi() {
+		if (aiExecutor != null)
+			aiExecutor.shutdownNow();
+		if (ai != null)
+			ai.shutdown();
+		removeCallbacks(aiTurn);
+		removeCallbacks(replay);
+	}
+
+	/**
+	 * Tells whether the computer is the player to move.
+	 */
+	private boolean isAiTurn() {
+		return ai != null && aiSide.equals(board.getWhoseTurn());
+	}
+
+	/**
+	 * Starts the AI searching for its turn if it is the AI's move and it is
+	 * not already doing so. Must be called on the UI thread.
+	 */
+	private void maybeStartAiTurn() {
+		if (aiThinking || !isAiTurn() || board.isGameOver()
+				|| replay.isActive())
+			return;
+		aiThinking = true;
+		// the search gets its own copy since the board keeps changing here
+		final Board position = new Board(board);
+		aiExecutor.execute(new Runnable() {
+			public void run() {
+				final int[] actions = ai.chooseTurn(position);
+				Log.d(TAG, "AI searched depth " + ai.getDepthReached() + ", "
+						+ ai.getNodes() + " nodes, score " + ai.getScore());
+				post(new Runnable() {
+					public void run() {
+						aiTurn.start(position.getKey(), actions);
+					}
+				});
+			}
+		});
+	}
+
+	/**
+	 * Plays the actions the AI chose, one per call, waiting for projectiles
+	 * to land in between. If the board has changed since the search started,
+	 * for instance because the game was reset, the rest of the turn is
+	 * dropped and the AI thinks again.
+	 */
+	private final class AiTurn implements Runnable {
+		private long key;
+		private int[] actions;
+		private int next;
+
+		void start(long key, int[] actions) {
+			this.key = key;
+			this.actions = actions;
+			this.next = 0;
+			run();
+		}
+
+		public void run() {
+			if (isAnimating()) {
+				postDelayed(this, AI_WAIT_MS);
+				return;
+			}
+			if (next == actions.length
+					|| (next == 0 && board.getKey() != key)
+					|| !MoveGenerator.isLegal(board, actions[next])) {
+				aiThinking = false;
+				if (next > 0 || actions.length > 0)
+					maybeStartAiTurn();
+				return;
+			}
+			performAction(actions[next++]);
+			postDelayed(this, AI_ACTION_DELAY_MS);
+		}
+	}
+
+	/**
+	 * Plays the actions of a recorded game, one per call, waiting for
+	 * projectiles to land in between. Only used on the UI thread.
+	 */
+	private final class Replay implements Runnable {
+		private GameReader reader;
+
+		void start(GameReader reader) {
+			if (reader.getLayoutKey() != board.getKey()) {
+				Log.e(TAG, "recorded game is for a different layout");
+				return;
+			}
+			this.reader = reader;
+			run();
+		}
+
+		boolean isActive() {
+			return reader != null;
+		}
+
+		public void run() {
+			if (reader == null)
+				return;
+			if (isAnimating()) {
+				postDelayed(this, AI_WAIT_MS);
+				return;
+			}
+			int move;
+			try {
+				move = reader.nextMove();
+			} catch (IOException e) {
+				Log.e(TAG, "game record unreadable", e);
+				move = -1;
+			}
+			if (move < 0 || !MoveGenerator.isLegal(board, move)) {
+				Log.d(TAG, "replay ended after " + reader.getActionsRead()
+						+ " actions");
+				reader = null;
+				return;
+			}
+			performAction(move);
+			postDelayed(this, AI_ACTION_DELAY_MS);
+		}
+	}
+
+	/**
+	 * Tells whether the view is still loading or showing earlier actions, so
+	 * the next one should wait. A command stays queued until its projectile
+	 * has landed.
+	 */
+	private boolean isAnimating() {
+		return !playable || !commands.isEmpty();
+	}
+
+	/**
+	 * Carries out a packed move on the board the same way a player's touches
+	 * would, selecting the piece first so the view animates it.
+	 * 
+	 * @param move
+	 *            A legal packed move, see Move.
+	 */
+	private void performAction(int move) {
+		Position from = board.positionOf(Move.from(move));
+		selectPiece(from);
+		selected = null;
+		switch (Move.kind(move)) {
+		case Move.MOVE:
+			board.movePiece(from, board.positionOf(Move.to(move)));
+			break;
+		case Move.ROTATE:
+			board.rotatePiece(from, Move.rotation(move));
+			break;
+		default:
+			board.firePiece(from, Move.projectile(move));
+			break;
+		}
 	}
 
 	/**
@@ -244,20 +630,22 @@ public final class GameView extends GLSurfaceView implements OnTouchListener,
 	 * @return The board position.
 	 */
 	private Position screenToBoard(int x, int y) {
-		SimpleVector v = Interact2D
-				.reproject2D3DWS(world.getCamera(), fb, x, y);
+		SimpleVector v = Interact2D.reproject2D3DWS(world.getCamera(), fb, x,
+				y, touchRay);
 		v.scalarMul(-cameraPosition.z);
-		v.add(new SimpleVector(cameraPosition.x, cameraPosition.y, 0.0f));
-		int boardX = (int) Math.round(v.x);
-		int boardY = (int) Math.round(v.y);
-		return new Position(boardX, boardY);
+		int boardX = Math.round(v.x + cameraPosition.x);
+		int boardY = Math.round(v.y + cameraPosition.y);
+		return Position.valueOf(boardX, boardY);
 	}
 
 	@Override
 	public void onSurfaceCreated(GL10 gl, EGLConfig config) {
-		// This method is not used at present. Based on an example from
-		// JPCT, all the initialization occurs in onSurfaceChanged instead
-		// after we know the width and height of the screen.
+		// Based on an example from JPCT, all the initialization occurs in
+		// onSurfaceChanged instead after we know the width and height of the
+		// screen. A surface created after that comes with a new GL context.
+		etc1Supported = ETC1Util.isETC1Supported();
+		if (world != null)
+			contextLost = true;
 	}
 
 	@Override
@@ -267,39 +655,93 @@ public final class GameView extends GLSurfaceView implements OnTouchListener,
 		}
 		fb = new FrameBuffer(gl, width, height);
 
-		if (master == null) {
-			try {
-				initMaster();
-			} catch (Exception e) {
-				// TODO probably need user level notification as well here
-				Log.e(TAG, "initialization error", e);
-			}
+		if (loader == null) {
+			initMaster();
+		} else if (contextLost) {
+			contextLost = false;
+			// until then the textures may still be loading, and are
+			// uploaded as they are first drawn
+			if (playable)
+				resources.restore(fb, world);
 		}
 	}
 
 	/**
-	 * Updates the frames per second counter and writes it to the log.
+	 * Updates the frames per second counter and writes it to the log, with
+	 * the share of the time the render thread spent drawing and the frames
+	 * drawn in all.
+	 * 
+	 * @param now
+	 *            The time the frame started, from System.nanoTime.
 	 */
-	private void updateFPS() {
-		if (System.currentTimeMillis() - time >= 1000) {
-			Log.v("FPS", fps + "fps");
+	private void updateFPS(long now) {
+		long end = System.nanoTime();
+		busyNanos += end - now;
+		++framesRendered;
+		if (now - time >= 1000000000L) {
+			Log.v("FPS", String.format("%dfps, %d%% busy, %s, %d frames",
+					fps * 1000000000L / (now - time), busyNanos * 100
+							/ (end - time), continuous ? "continuous"
+							: "on demand", framesRendered));
 			fps = 0;
-			time = System.currentTimeMillis();
+			busyNanos = 0;
+			time = now;
 		}
 		fps++;
 	}
 
+	/**
+	 * Draws frames one after the other while anything but fire is moving,
+	 * and otherwise only when asked: when the board changes, and every
+	 * FIRE_FRAME_MS while any fire burns. Between turns nothing else moves,
+	 * so this saves most of the frames. A failed load counts as finished,
+	 * as far as it got.
+	 */
+	private void updateRenderMode() {
+		boolean loading = !fullyLoaded && !loader.isStopped();
+		boolean busy = loading || playable
+				&& (projectileAnim.isActive() || !commands.isEmpty());
+		if (busy != continuous) {
+			continuous = busy;
+			setRenderMode(busy ? RENDERMODE_CONTINUOUSLY
+					: RENDERMODE_WHEN_DIRTY);
+		}
+		if (!busy && playable && particles.isActive()) {
+			removeCallbacks(tick);
+			postDelayed(tick, FIRE_FRAME_MS);
+		}
+	}
+
 	/**
 	 * Handles animations, projectiles and so forth.
 	 * 
 	 * This handles both updates that need to happen per frame (and thus at a
 	 * different frequency than the underlying model), or that simply need to
-	 * happen on the render thread instead of the draw thread.
+	 * happen on the render thread instead of the draw thread. Animations move
+	 * in the fixed steps of the simulation clock and are then drawn part of
+	 * the way to their next step, so they run at the same speed at any frame
+	 * rate.
+	 * 
+	 * @param now
+	 *            The time of the frame from System.nanoTime.
 	 */
-	private void updateDrawState() {
+	private void updateDrawState(long now) {
+		for (int n = clock.advance(now); n > 0; --n)
+			stepAnimations();
+		float alpha = clock.alpha();
 		if (projectileAnim.isActive())
-			updateProjectile();
-		updateFire();
+			projectileAnim.interpolate(alpha);
+		particles.interpolate(alpha);
+		runCommands();
+	}
+
+	/**
+	 * Moves every animation on by one step of the simulation clock.
+	 */
+	private void stepAnimations() {
+		if (projectileAnim.isActive())
+			projectileAnim.step();
+		particles.step();
 	}
 
 	/**
@@ -307,15 +749,55 @@ public final class GameView extends GLSurfaceView implements OnTouchListener,
 	 */
 	@Override
 	public void onDrawFrame(GL10 gl) {
-		// TODO remove this if possible - should not need to check fully loaded
-		if (!fullyLoaded)
+		if (loader == null)
 			return;
-		updateDrawState();
+		if (!fullyLoaded) {
+			fullyLoaded = loader.attach(ATTACH_BUDGET_NANOS);
+			if (loader.isStopped())
+				showLoadFailure();
+		}
+		long now = System.nanoTime();
 		fb.clear(backgroundColor);
-		world.renderScene(fb);
-		world.draw(fb);
+		if (playable) {
+			updateDrawState(now);
+			world.renderScene(fb);
+			world.draw(fb);
+		}
+		if (!fullyLoaded && !loader.isStopped())
+			drawProgress();
 		fb.display();
-		updateFPS();
+		updateFPS(now);
+		updateRenderMode();
+	}
+
+	/**
+	 * Tells the player that loading failed, once. What had been attached
+	 * stays in the world, so if the board got that far it can still be
+	 * played.
+	 */
+	private void showLoadFailure() {
+		if (failureShown)
+			return;
+		failureShown = true;
+		post(new Runnable() {
+			public void run() {
+				Toast.makeText(context, R.string.load_failed,
+						Toast.LENGTH_LONG).show();
+			}
+		});
+	}
+
+	/**
+	 * Draws a bar showing how far loading has got.
+	 */
+	private void drawProgress() {
+		int width = (int) (fb.getWidth() * PROGRESS_WIDTH);
+		int height = Math.max(1, (int) (fb.getHeight() * PROGRESS_HEIGHT));
+		int x = (fb.getWidth() - width) / 2;
+		int y = (int) (fb.getHeight() * PROGRESS_Y);
+		int done = (int) (width * loader.progress());
+		fb.blit(progressTrack, 0, 0, x, y, 1, 1, width, height, -1, false);
+		fb.blit(progressFill, 0, 0, x, y, 1, 1, done, height, -1, false);
 	}
 
 	/**
@@ -344,8 +826,154 @@ public final class GameView extends GLSurfaceView implements OnTouchListener,
 	 * Checks if the game is over and handles the case when it is.
 	 */
 	private void checkGameOver() {
-		if (board.isGameOver())
-			winOverlays.get(board.getWinner()).setVisibility(true);
+		if (winOverlaysAttached && shown.isGameOver())
+			winOverlays.get(shown.getWinner()).setVisibility(true);
+	}
+
+	/**
+	 * Passes the events of each action on to the renderer, with a copy of the
+	 * position they led to. Called on the UI thread, which plays the game.
+	 */
+	public void onBoardEvents(BoardEvents events) {
+		send(RenderCommand.EVENTS, events);
+	}
+
+	/**
+	 * Queues a change to the view for the render thread. Must be called on the
+	 * UI thread. If the renderer is so far behind that the queue is full, the
+	 * change is dropped, and a rebuild of the view from the board is sent in
+	 * its place as soon as the renderer has made room, or with the next
+	 * change if that comes first.
+	 * 
+	 * @param type
+	 *            The kind of change, see RenderCommand.
+	 * @param events
+	 *            The events of the action for EVENTS, otherwise null.
+	 */
+	private void send(int type, BoardEvents events) {
+		RenderCommand c = commands.claim();
+		if (c == null) {
+			if (!outOfSync)
+				Log.d(TAG, "renderer fell behind, the view will be rebuilt");
+			outOfSync = true;
+			return;
+		}
+		// the selection ends with any action
+		c.selected = type == RenderCommand.EVENTS ? null : selected;
+		if (outOfSync) {
+			type = RenderCommand.RESET;
+			outOfSync = false;
+		}
+		c.type = type;
+		c.next = 0;
+		if (type == RenderCommand.EVENTS)
+			c.events.copyFrom(events);
+		if (type == RenderCommand.EVENTS || type == RenderCommand.RESET)
+			c.state.copyFrom(board);
+		commands.publish();
+		requestRender();
+	}
+
+	/**
+	 * Carries out the queued changes to the view in order. Once an action
+	 * fires a projectile, the rest of it and everything queued after it waits
+	 * until the projectile lands.
+	 */
+	private void runCommands() {
+		boolean released = false;
+		RenderCommand c;
+		while (!projectileAnim.isActive() && (c = commands.peek()) != null) {
+			if (!runCommand(c))
+				break;
+			commands.release();
+			released = true;
+		}
+		// a dropped change must not wait for the next one, which may never
+		// come, so the rebuild is sent as soon as there is room for it
+		if (released && outOfSync)
+			post(resync);
+	}
+
+	/**
+	 * Carries out one change to the view.
+	 * 
+	 * @return False if a projectile was fired before the command was done.
+	 */
+	private boolean runCommand(RenderCommand c) {
+		switch (c.type) {
+		case RenderCommand.SELECT:
+			showSelector(c.selected);
+			return true;
+		case RenderCommand.DESELECT:
+			showSelector(null);
+			return true;
+		case RenderCommand.RESET:
+			showReset(c.state);
+			showSelector(c.selected);
+			return true;
+		default:
+			return runEvents(c);
+		}
+	}
+
+	/**
+	 * Animates the events of an action, carrying on from where it was left
+	 * when a projectile is landing.
+	 * 
+	 * @return False if a projectile was fired before the events were done.
+	 */
+	private boolean runEvents(RenderCommand c) {
+		BoardEvents events = c.events;
+		Board state = c.state;
+		if (landing) {
+			landing = false;
+			showHit(state);
+		}
+		while (c.next < events.size()) {
+			int k = c.next++;
+			Position a = state.positionOf(events.square(k));
+			switch (events.type(k)) {
+			case BoardEvents.MOVED:
+				showMoved(a, state.positionOf(events.arg(k)), state);
+				break;
+			case BoardEvents.ROTATED:
+				showRotated(a, ROTATIONS[events.arg(k)]);
+				break;
+			case BoardEvents.FIRED:
+				c.next = showFired(events, k, a);
+				return false;
+			case BoardEvents.FIRE_LIT:
+				showFireLit(a);
+				break;
+			case BoardEvents.FIRE_UNLIT:
+				showFireUnlit(a);
+				break;
+			case BoardEvents.ROOTED:
+				showRooted(a);
+				break;
+			case BoardEvents.UNROOTED:
+				showUnrooted(a);
+				break;
+			case BoardEvents.STUNNED:
+				showStunned(a);
+				break;
+			case BoardEvents.UNSTUNNED:
+				showUnstunned(a);
+				break;
+			case BoardEvents.SHIELDED:
+				showShielded(a);
+				break;
+			case BoardEvents.UNSHIELDED:
+				showUnshielded(a);
+				break;
+			default:
+				break;
+			}
+		}
+		shown.copyFrom(state);
+		checkGameOver();
+		updateTurnIndicator();
+		return true;
 	}
 
 	/**
@@ -355,65 +983,66 @@ public final class GameView extends GLSurfaceView implements OnTouchListener,
 	 *            The position to move from.
 	 * @param b
 	 *            The position to move to.
+	 * @param state
+	 *            The board after the move.
 	 */
-	public void onPieceMoved(final Position a, final Position b) {
-		queueEvent(new Runnable() {
-			public void run() {
-				final Object3D piece = pieces[a.x][a.y];
-
-				if (getPiece(b) != null) {
-					clearPiece(b);
-				}
+	private void showMoved(Position a, Position b, Board state) {
+		final Object3D piece = pieces[a.x][a.y];
 
-				pieces[a.x][a.y] = null;
-				pieces[b.x][b.y] = piece;
-				final Object3D template = getTemplate(board.getPiece(b));
-				piece.clearTranslation();
-				piece.translate(template.getTranslation());
-				piece.translate(b.x, b.y, 0.0f);
-				
-				ParticleManager fire = fires.get(piece.getID());
-				if (fire != null) {
-					// TODO Fix this nastiness...
-					SimpleVector fpos = new SimpleVector(b.x+0.15f, b.y-0.15f, -0.2f);
-					fire.move(fpos);
-				}
-				
-				if (shieldIndicator.containsKey(piece.getID())) {
-					shieldIndicator.get(piece.getID()).clearTranslation();
-					shieldIndicator.get(piece.getID()).translate(b.x, b.y, 0.0f);
-				}
+		if (getPiece(b) != null) {
+			clearPiece(b);
+		}
 
-				selected = null;
-				selector.setVisibility(false);
+		pieces[a.x][a.y] = null;
+		pieces[b.x][b.y] = piece;
+		final Object3D template = getTemplate(state.getPiece(b));
+		piece.clearTranslation();
+		piece.translate(template.getTranslation());
+		piece.translate(b.x, b.y, 0.0f);
+		
+		Integer fire = fires.get(piece.getID());
+		if (fire != null) {
+			particles.moveEmitter(fire, b.x + FIRE_X, b.y + FIRE_Y, FIRE_Z);
+		}
+		
+		if (shieldIndicator.containsKey(piece.getID())) {
+			shieldIndicator.get(piece.getID()).clearTranslation();
+			shieldIndicator.get(piece.getID()).translate(b.x, b.y, 0.0f);
+		}
 
-				checkGameOver();
-				updateTurnIndicator();
-			}
-		});
+		selector.setVisibility(false);
 	}
 
-	public void onPieceRotated(final Position a, final Rotation d) {
-		queueEvent(new Runnable() {
-			public void run() {
-				getPiece(a).rotateZ(-d.getAngle());
-				selected = null;
-				selector.setVisibility(false);
-				updateTurnIndicator();
-			}
-		});
-
+	private void showRotated(Position a, Rotation d) {
+		getPiece(a).rotateZ(-d.getAngle());
+		selector.setVisibility(false);
 	}
 
-	@Override
-	public void onProjectileFired(final List<Position> path,
-			final List<Direction> dirs, final Projectile proj) {
-		queueEvent(new Runnable() {
-			public void run() {
-				projectileAnim.fire(projectiles.get(proj.toString()), 
-						getPiece(selected).getTranslation(), path, dirs, proj);
-			}
-		});
+	/**
+	 * Launches the projectile of a FIRED event along the path made by the
+	 * SHOT_LEG events that follow it.
+	 * 
+	 * @return The index of the first event after the shot.
+	 */
+	private int showFired(BoardEvents events, int k, Position from) {
+		shotPath.clear();
+		shotDirs.clear();
+		shotPath.add(from);
+		Projectile proj = PROJECTILES[events.arg(k)];
+		while (k + 1 < events.size()
+				&& events.type(k + 1) == BoardEvents.SHOT_LEG) {
+			++k;
+			Position start = shown.positionOf(events.square(k));
+			Direction d = DIRECTIONS[BoardEvents.legDirection(events.arg(k))];
+			int steps = BoardEvents.legSteps(events.arg(k));
+			shotPath.add(Position.valueOf(start.x + d.getOffset().x * steps,
+					start.y + d.getOffset().y * steps));
+			shotDirs.add(d);
+		}
+		projectileAnim.fire(projectiles.get(proj.toString()),
+				getPiece(from).getTranslation(), shotPath, shotDirs, proj);
+		landing = true;
+		return k + 1;
 	}
 
 	/**
@@ -437,96 +1066,95 @@ public final class GameView extends GLSurfaceView implements OnTouchListener,
 	}
 
 	/**
-	 * Moves the projectile one step along its path.
+	 * Gets the texture of a piece: the plain skin until it is first hit, and
+	 * then the one for its damage.
+	 */
+	private String getSkin(Piece p) {
+		if (p.getHitPoints() < p.getMaxHitPoints())
+			return getTexture(p);
+		return p.getBelongsTo().equals("G") ? "gold.png" : "red.png";
+	}
+
+	/**
+	 * Shows the damage to the piece the projectile that just landed hit, if
+	 * any.
 	 * 
-	 * If it has reached its destination, handles appropriate actions.
+	 * @param state
+	 *            The board after the shot.
 	 */
-	private void updateProjectile() {
-		
-		projectileAnim.update();
-		
-		if (!projectileAnim.isActive()) {
-			while (!projectileCompleteQueue.isEmpty()) {
-				Runnable runnable = projectileCompleteQueue.remove();
-				runnable.run();
-			}
-			selected = null;
-			selector.setVisibility(false);
-			Position position = projectileAnim.getPosition();
-			if (board.isOnBoard(position)) {
-				Object3D piece3D = getPiece(position);
-				if (piece3D != null) {
-					Piece piece = board.getPiece(position);
-					String texture = getTexture(piece);
-					piece3D.setTexture(texture);
-					checkGameOver();
-					updateTurnIndicator();
-				}
+	private void showHit(Board state) {
+		selector.setVisibility(false);
+		Position position = projectileAnim.getPosition();
+		if (state.isOnBoard(position)) {
+			Object3D piece3D = getPiece(position);
+			Piece piece = state.getPiece(position);
+			if (piece3D != null && piece != null) {
+				atlas.apply(piece3D, getTexture(piece));
 			}
 		}
 	}
 	
-	private void updateFire() {
-		for (Integer id : fires.keySet()) {
-			ParticleManager pm = fires.get(id);
-			if (System.currentTimeMillis() - pm.lastUpdate > 30) {
-				//cngcnt++;
-	
-				//SimpleVector org = new SimpleVector(2, 1.4, -1);
-				//box.setOrigin(org);
-	
-				for (int i = 0; i < PARTICLE_COUNT; i++) {
-					SimpleVector vel = new SimpleVector(
-							1 - Math.random() * 2, 
-							1 - Math.random() * 2,
-							1 - Math.random() * 2);
-					vel.scalarMul(0.01f);
-					pm.addParticle(world, vel);
-				}
-				//cnt += 0.04;
-	
-				pm.update(1);
-				pm.lastUpdate = System.currentTimeMillis();
-			}
-		}
-	}
-
 	/**
 	 * Updates the UI element that lets users know whose turn it is.
 	 */
 	private void updateTurnIndicator() {
-		boolean goldsTurn = "G".equals(board.getWhoseTurn());
+		if (!turnIndicatorAttached)
+			return;
+		boolean goldsTurn = "G".equals(shown.getWhoseTurn());
 		turnIndicatorGold.setVisibility(goldsTurn);
 		turnIndicatorRed.setVisibility(!goldsTurn);
 	}
 
+	/**
+	 * Puts the selector on the given position, or hides it.
+	 * 
+	 * @param p
+	 *            The position to mark as selected, or null.
+	 */
+	private void showSelector(Position p) {
+		if (p == null) {
+			selector.setVisibility(false);
+			return;
+		}
+		selector.clearTranslation();
+		selector.translate((float) p.x, (float) p.y, 0.0f);
+		selector.setVisibility(true);
+	}
+
+	/**
+	 * Rebuilds every piece for a new position, as at the start of a game.
+	 * 
+	 * @param state
+	 *            The position to show.
+	 */
+	private void showReset(Board state) {
+		shown.copyFrom(state);
+		initPieces();
+		if (winOverlaysAttached) {
+			for (Object3D overlay : winOverlays.values())
+				overlay.setVisibility(false);
+		}
+		checkGameOver();
+		updateTurnIndicator();
+	}
+
 	/**
 	 * Marks the given position as the selected piece of the current player.
 	 * 
 	 * @param p
 	 *            The position to mark as selected.
 	 */
-	private void queueSelectPiece(final Position p) {
-		queueEvent(new Runnable() {
-			public void run() {
-				selected = p;
-				selector.clearTranslation();
-				selector.translate(p.toVector());
-				selector.setVisibility(true);
-			}
-		});
+	private void selectPiece(Position p) {
+		selected = p;
+		send(RenderCommand.SELECT, null);
 	}
 
 	/**
 	 * Disable whatever current selection may be there.
 	 */
-	private void queueDeselectPiece() {
-		queueEvent(new Runnable() {
-			public void run() {
-				selected = null;
-				selector.setVisibility(false);
-			}
-		});
+	private void deselectPiece() {
+		selected = null;
+		send(RenderCommand.DESELECT, null);
 	}
 
 	/**
@@ -539,54 +1167,84 @@ public final class GameView extends GLSurfaceView implements OnTouchListener,
 	 * @return The return value for onTouch.
 	 */
 	public boolean onTouchMove(View view, MotionEvent e) {
+		if (!playable || isAiTurn() || replay.isActive()) {
+			// the computer is moving, ignore the human
+			return true;
+		}
 		final Position move = screenToBoard((int) e.getX(), (int) e.getY());
 		if (selected == null) {
 			if (board.isValidMoveStart(move)) {
-				queueSelectPiece(move);
-			}
-		} else {
-			if (selected.equals(move)) {
-				// choosing same square deselects the piece
-				queueDeselectPiece();
-			} else {
-				Piece piece = board.getPiece(selected);
-				ActionPanel panel = actionPanels.get(board.getWhoseTurn());
-				String action = panel.getAction(move);
-				if (action != null) {
-					if (action.equals("ROTATECCW") && board.isRotatable(selected)) {
-						board.rotatePiece(selected, COUNTER_CLOCKWISE);
-					}
-					else if (action.equals("ROTATECW") && board.isRotatable(selected)) {
-						board.rotatePiece(selected, CLOCKWISE);
-					}
-					else {
-						Projectile proj = Projectile.valueOf(action);
-						if (board.canBeFired(selected, proj)) {
-							board.firePiece(selected, proj);
-						}
-					}
-				} else if (board.isValidMove(selected, move)) {
-					board.movePiece(selected, move);
-				}
+				selectPiece(move);
 			}
+		} else if (selected.equals(move)) {
+			// choosing same square deselects the piece
+			deselectPiece();
+		} else if (playAction(selected, move)) {
+			selected = null;
 		}
+		maybeStartAiTurn();
 		return true;
 	}
 
-	private void queueBoardReset() {
-		queueEvent(new Runnable() {
-			public void run() {
-				try {
-					winOverlays.get(board.getWinner()).setVisibility(false);
-					board.setFromStream(getResources().openRawResource(
-							R.raw.board));
-					initPieces();
-					updateTurnIndicator();
-				} catch (IOException e) {
-					// TODO fix me (should not reload from stream)
+	/**
+	 * Plays the action a touch picks for the selected piece: the action on a
+	 * panel icon, or a move to a square.
+	 * 
+	 * @param from
+	 *            The selected piece.
+	 * @param move
+	 *            The position touched.
+	 * @return True if an action was played.
+	 */
+	private boolean playAction(Position from, Position move) {
+		ActionPanel panel = actionPanels.get(board.getWhoseTurn());
+		String action = panel.getAction(move);
+		if (action != null) {
+			if (action.equals("ROTATECCW") && board.isRotatable(from)) {
+				board.rotatePiece(from, COUNTER_CLOCKWISE);
+				return true;
+			}
+			else if (action.equals("ROTATECW") && board.isRotatable(from)) {
+				board.rotatePiece(from, CLOCKWISE);
+				return true;
+			}
+			else {
+				Projectile proj = Projectile.valueOf(action);
+				if (board.canBeFired(from, proj)) {
+					board.firePiece(from, proj);
+					return true;
 				}
 			}
-		});
+		} else if (board.isValidMove(from, move)) {
+			board.movePiece(from, move);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Ends the record of the last game, if recording, and starts one for the
+	 * game just set up on the board.
+	 */
+	private void recordNewGame() {
+		if (recorder == null)
+			return;
+		try {
+			recorder.begin(board);
+		} catch (IOException e) {
+			Log.e(TAG, "could not record game", e);
+		}
+	}
+
+	/**
+	 * Starts a new game from the initial position.
+	 */
+	private void resetBoard() {
+		board.copyFrom(initialPosition);
+		selected = null;
+		recordNewGame();
+		send(RenderCommand.RESET, null);
+		maybeStartAiTurn();
 	}
 
 	/**
@@ -599,7 +1257,7 @@ public final class GameView extends GLSurfaceView implements OnTouchListener,
 	 * @return The return value for onTouch.
 	 */
 	private boolean onTouchWin(View view, MotionEvent e) {
-		queueBoardReset();
+		resetBoard();
 		return true;
 	}
 
@@ -609,7 +1267,10 @@ public final class GameView extends GLSurfaceView implements OnTouchListener,
 	public boolean onTouch(View view, MotionEvent e) {
 		switch (e.getAction()) {
 		case MotionEvent.ACTION_DOWN:
-			if (!board.isGameOver()) {
+			if (!playable) {
+				// still loading
+				return true;
+			} else if (!board.isGameOver()) {
 				return onTouchMove(view, e);
 			} else {
 				return onTouchWin(view, e);
@@ -624,7 +1285,11 @@ public final class GameView extends GLSurfaceView implements OnTouchListener,
 	}
 
 	/**
-	 * Initialize the visual representation of the board, square by square.
+	 * Initialize the visual representation of the board. Each square gets a
+	 * copy of the light or dark square's mesh moved into place, and the copies
+	 * are merged into one object. Every polygon keeps its own texture. The
+	 * squares never move, and touches are mapped to squares from the camera
+	 * alone, so nothing needs them as separate objects.
 	 * 
 	 * @throws IOException
 	 */
@@ -633,34 +1298,35 @@ public final class GameView extends GLSurfaceView implements OnTouchListener,
 		Object3D dark = loadObject3D(R.raw.square_dark);
 		Log.d(TAG, light.toString());
 		Log.d(TAG, dark.toString());
-		light.strip();
-		light.build();
-		dark.strip();
-		dark.build();
-		squares = new Object3D[board.getWidth()][board.getHeight()];
+		int width = board.getWidth();
+		Object3D[] board3D = new Object3D[width * board.getHeight()];
 		for (int y = 0; y < board.getHeight(); ++y) {
-			for (int x = 0; x < board.getWidth(); ++x) {
-				squares[x][y] = ((x % 2 != y % 2) ? light : dark).cloneObject();
-				squares[x][y].translate((float) x, (float) y, 0.0f);
-				world.addObject(squares[x][y]);
+			for (int x = 0; x < width; ++x) {
+				Object3D square = new Object3D((x % 2 != y % 2) ? light : dark,
+						Object3D.MESH_DONT_REUSE);
+				square.translate((float) x, (float) y, 0.0f);
+				square.translateMesh();
+				square.clearTranslation();
+				board3D[y * width + x] = square;
 			}
 		}
+		squares = Object3D.mergeAll(board3D);
+		squares.strip();
+		squares.build();
 	}
 
 	/**
-	 * Convenience method for loading a 3D object using JPCT from a raw resource
-	 * used for all objects in the game.
+	 * Convenience method for loading a 3D object used for all objects in the
+	 * game. Each model is only loaded once, from its serialized copy if there
+	 * is one, and later loads share its mesh.
 	 * 
 	 * @param id
 	 *            The raw resource id of the 3DS file.
-	 * @return
+	 * @return A new object of the model.
 	 * @throws IOException
 	 */
 	private Object3D loadObject3D(int id, float scale) throws IOException {
-		InputStream in = getResources().openRawResource(id);
-		Object3D objects[] = Loader.load3DS(in, scale);
-		in.close();
-		return objects[0];
+		return models.load(id, scale);
 	}
 
 	private Object3D loadObject3D(int id) throws IOException {
@@ -736,42 +1402,114 @@ public final class GameView extends GLSurfaceView implements OnTouchListener,
 	}
 
 	/**
-	 * Main initialization method. Responsible for calling most the other
-	 * initializations and some high level initialization on its own.
+	 * Main initialization method. Sets up the world and starts loading
+	 * everything in it in the background. Each frame then puts what has
+	 * loaded into the world, showing the progress, and the board can be
+	 * played on once the squares, the pieces and what acting on them needs
+	 * are in. The turn indicator, the action panels and the win overlays
+	 * follow.
 	 * 
-	 * @throws IOException
-	 *             If this or any of its callers has IO problems.
+	 * Each stage only touches the world, and the render thread only uses
+	 * what a stage loaded, once the stage is attached.
 	 */
-	private void initMaster() throws IOException {
+	private void initMaster() {
 		world = new World();
+		models = new ModelCache(getResources());
 		initLights();
-		loadTextures();
-		initSquares();
-		initPieceTemplates();
-		initSelector();
-		initTurnIndicator();
-		initWinOverlays();
-		initActionPanels();
-		initProjectiles();
-		initPieces();
-		initStatusIndicators();
-		updateTurnIndicator();
-		logAllTextureNames();
 		initCamera();
+		progressTrack = new Texture(1, 1, new RGBColor(64, 64, 64));
+		progressFill = new Texture(1, 1, new RGBColor(255, 204, 0));
+		resources.keep(progressTrack);
+		resources.keep(progressFill);
+
+		loader = new StagedLoader();
+		loader.add(new StagedLoader.Stage() {
+			public void load() throws IOException {
+				loadTextures();
+			}
 
-		MemoryHelper.compact();
+			public void attach() {
+				// textures go to the GPU as the objects using them are drawn
+			}
+		});
+		loader.add(new StagedLoader.Stage() {
+			public void load() throws IOException {
+				initSquares();
+			}
 
-		if (master == null) {
-			// Logger.log("Saving master Activity!");
-			master = this;
-		}
+			public void attach() {
+				world.addObject(squares);
+			}
+		});
+		loader.add(new StagedLoader.Stage() {
+			public void load() throws IOException {
+				initPieceTemplates();
+				initStatusIndicators();
+			}
+
+			public void attach() {
+				// the particle mesh is compiled as it is built, so that
+				// happens here on the render thread
+				initParticles();
+				world.addObject(particles.getObject());
+				initPieces();
+			}
+		});
+		loader.add(new StagedLoader.Stage() {
+			public void load() throws IOException {
+				initSelector();
+				initActionPanels();
+				initProjectiles();
+			}
+
+			public void attach() {
+				world.addObject(selector);
+				for (Object3D projectile : projectiles.values())
+					world.addObject(projectile);
+				playable = true;
+			}
+		});
+		loader.add(new StagedLoader.Stage() {
+			public void load() throws IOException {
+				initTurnIndicator();
+			}
+
+			public void attach() {
+				world.addObject(turnIndicatorGold);
+				world.addObject(turnIndicatorRed);
+				turnIndicatorAttached = true;
+				updateTurnIndicator();
+			}
+		});
+		loader.add(new StagedLoader.Stage() {
+			public void load() {
+			}
 
-		fullyLoaded = true;
+			public void attach() {
+				actionPanels.get("G").addToWorld(world);
+				actionPanels.get("R").addToWorld(world);
+			}
+		});
+		loader.add(new StagedLoader.Stage() {
+			public void load() throws IOException {
+				initWinOverlays();
+			}
 
+			public void attach() {
+				for (Object3D overlay : winOverlays.values())
+					world.addObject(overlay);
+				winOverlaysAttached = true;
+				checkGameOver();
+				logAllTextureNames();
+				MemoryHelper.compact();
+			}
+		});
+		loader.start();
 	}
 
 	private void initStatusIndicators() throws IOException {
 		rootIndicatorTemplate = loadObject3D(R.raw.roots);
+		atlas.apply(rootIndicatorTemplate, "roots.png");
 		rootIndicatorTemplate.build();
 		shieldIndicatorTemplate = loadObject3D(R.raw.shield);
 		shieldIndicatorTemplate.setTexture("shield");
@@ -789,7 +1527,6 @@ public final class GameView extends GLSurfaceView implements OnTouchListener,
 		selector.scale(0.8f);
 		selector.translate(0.0f, 0.0f, 0.0f);
 		selector.setVisibility(false);
-		world.addObject(selector);
 	}
 
 	private void initTurnIndicator() throws IOException {
@@ -797,12 +1534,10 @@ public final class GameView extends GLSurfaceView implements OnTouchListener,
 		turnIndicatorGold.strip();
 		turnIndicatorGold.build();
 		turnIndicatorGold.translate(13.0f, 4.0f, 0.0f);
-		world.addObject(turnIndicatorGold);
 		turnIndicatorRed = loadObject3D(R.raw.turn_indicator_red);
 		turnIndicatorRed.strip();
 		turnIndicatorRed.build();
 		turnIndicatorRed.translate(13.0f, 4.0f, 0.0f);
-		world.addObject(turnIndicatorRed);
 	}
 
 	private void initActionPanels() throws IOException {
@@ -812,37 +1547,31 @@ public final class GameView extends GLSurfaceView implements OnTouchListener,
 		actionPanels.put("G", g);
 		actionPanels.put("R", r);
 		
-		addColorTexture("FIRE", new RGBColor(255, 0, 0));
 		g.icons.put("FIRE", loadObject3D(R.raw.rock));
 		g.icons.get("FIRE").translate(new SimpleVector(-2.0f, 0.0f, 0.0f));
 		g.icons.get("FIRE").scale(0.50f);
 		g.icons.get("FIRE").setTexture("FIRE");
 		
-		addColorTexture("WATER", new RGBColor(0, 0, 255));
 		g.icons.put("WATER", loadObject3D(R.raw.rock));
 		g.icons.get("WATER").translate(new SimpleVector(-1.0f, 0.0f, 0.0f));
 		g.icons.get("WATER").scale(0.50f);
 		g.icons.get("WATER").setTexture("WATER");
 		
-		addColorTexture("ROOT", new RGBColor(119, 51, 0));
 		g.icons.put("ROOT", loadObject3D(R.raw.rock));
 		g.icons.get("ROOT").translate(new SimpleVector(-2.0f, 1.0f, 0.0f));
 		g.icons.get("ROOT").scale(0.50f);
 		g.icons.get("ROOT").setTexture("ROOT");
 		
-		addColorTexture("SHIELD", new RGBColor(255, 153, 0));
 		g.icons.put("SHIELD", loadObject3D(R.raw.rock));
 		g.icons.get("SHIELD").translate(new SimpleVector(-1.0f, 1.0f, 0.0f));
 		g.icons.get("SHIELD").scale(0.50f);
 		g.icons.get("SHIELD").setTexture("SHIELD");
 		
-		addColorTexture("STUN", new RGBColor(255, 255, 0));
 		g.icons.put("STUN", loadObject3D(R.raw.rock));
 		g.icons.get("STUN").translate(new SimpleVector(-2.0f, 2.0f, 0.0f));
 		g.icons.get("STUN").scale(0.50f);
 		g.icons.get("STUN").setTexture("STUN");
 		
-		addColorTexture("HEAL", new RGBColor(0, 255, 255));
 		g.icons.put("HEAL", loadObject3D(R.raw.rock));
 		g.icons.get("HEAL").translate(new SimpleVector(-1.0f, 2.0f, 0.0f));
 		g.icons.get("HEAL").scale(0.50f);
@@ -870,8 +1599,8 @@ public final class GameView extends GLSurfaceView implements OnTouchListener,
 			r.icons.put(key, rIcon);
 		}
 		
-		g.addToWorld(world);
-		r.addToWorld(world);
+		g.mapActions();
+		r.mapActions();
 	}
 	
 	private void initProjectiles() {
@@ -881,11 +1610,14 @@ public final class GameView extends GLSurfaceView implements OnTouchListener,
 		for (Projectile proj : Projectile.values()) {
 			Object3D projectile = panel.icons.get(proj.name()).cloneObject();
 			projectile.scale(0.50f);
-			world.addObject(projectile);
 			projectiles.put(proj.name(), projectile);
 		}
 	}
 
+	private void initParticles() {
+		particles = new ParticleSystem();
+	}
+
 	private void initWinOverlay(String key, int id) throws IOException {
 		float scale = 9.0f;
 		SimpleVector pos = new SimpleVector(cameraPosition);
@@ -895,7 +1627,6 @@ public final class GameView extends GLSurfaceView implements OnTouchListener,
 		overlay.setTransparency(FULLY_OPAQUE);
 		overlay.setVisibility(false);
 		winOverlays.put(key, overlay);
-		world.addObject(overlay);
 	}
 
 	private void initWinOverlays() throws IOException {
@@ -909,55 +1640,61 @@ public final class GameView extends GLSurfaceView implements OnTouchListener,
 		int x = pos.x;
 		int y = pos.y;
 		int id = pieces[x][y].getID();
-		if (fires.containsKey(id)) {
-			ParticleManager fire = fires.get(id);
-			fire.remove(world);
-			fires.remove(id);
-		}
-		if (rootIndicator.containsKey(id)) {
-			Object3D indicator = rootIndicator.get(id);
-			world.removeObject(indicator);
-			rootIndicator.remove(id);
+		Integer fire = fires.remove(id);
+		if (fire != null) {
+			particles.removeEmitter(fire);
 		}
+		removeIndicator(rootIndicator, id);
+		removeIndicator(stunIndicator, id);
+		removeIndicator(shieldIndicator, id);
 		world.removeObject(pieces[x][y]);
 		pieces[x][y] = null;
 	}
 	
+	/**
+	 * Removes the indicator of a piece from the world, if it has one.
+	 */
+	private void removeIndicator(Map<Integer,Object3D> indicators, int id) {
+		Object3D indicator = indicators.remove(id);
+		if (indicator != null) {
+			world.removeObject(indicator);
+		}
+	}
+
 	/**
 	 * Removes all pieces from the world.
 	 */
 	private void clearPieces() {
-		for (int y = 0; y < board.getHeight(); ++y) {
-			for (int x = 0; x < board.getWidth(); ++x) {
+		for (int y = 0; y < shown.getHeight(); ++y) {
+			for (int x = 0; x < shown.getWidth(); ++x) {
 				if (pieces[x][y] != null) {
-					clearPiece(new Position(x, y));
+					clearPiece(Position.valueOf(x, y));
 				}
 			}
 		}
 	}
 	
 	/**
-	 * Initializes the 3D objects representing the pieces on the board.
-	 * 
-	 * @throws IOException
+	 * Initializes the 3D objects representing the pieces on the board, each
+	 * as it stands in the shown position: its damage, whether its torch is
+	 * lit, and whether it is rooted, stunned or shielded. The position need
+	 * not be a starting one, since the view is rebuilt from restored games
+	 * and when it falls behind the board.
 	 */
-	private void initPieces() throws IOException {
+	private void initPieces() {
 		if (pieces == null) {
-			pieces = new Object3D[board.getWidth()][board.getHeight()];
+			pieces = new Object3D[shown.getWidth()][shown.getHeight()];
 		} else {
 			clearPieces();
 		}
-		fires = new HashMap<Integer,ParticleManager>();
-		for (int y = 0; y < board.getHeight(); ++y) {
-			for (int x = 0; x < board.getWidth(); ++x) {
-				Position p = new Position(x, y);
-				Piece piece = board.getPiece(p);
+		for (int y = 0; y < shown.getHeight(); ++y) {
+			for (int x = 0; x < shown.getWidth(); ++x) {
+				Position p = Position.valueOf(x, y);
+				Piece piece = shown.getPiece(p);
 				if (piece != null) {
 					Object3D template = getTemplate(piece);
 					pieces[x][y] = template.cloneObject();
-					pieces[x][y]
-							.setTexture(piece.getBelongsTo().equals("G") ? "gold.png"
-									: "red.png");
+					atlas.apply(pieces[x][y], getSkin(piece));
 					pieces[x][y].build();
 					pieces[x][y].setRotationPivot(SimpleVector.ORIGIN);
 					if (piece.isRotatable()) {
@@ -966,20 +1703,31 @@ public final class GameView extends GLSurfaceView implements OnTouchListener,
 					SimpleVector pos = new SimpleVector((float) x, (float) y, 0.0f);
 					pieces[x][y].translate(pos);
 					world.addObject(pieces[x][y]);
-					if (piece instanceof Torch) {
-						SimpleVector fpos = new SimpleVector((float) x+0.15, (float) y-0.15, -0.2f);
-						ParticleManager fire = new ParticleManager(fpos);
-						fires.put(pieces[x][y].getID(), fire);
-						Log.d(TAG, "added fire " + pieces[x][y].getID());
+					if (piece instanceof Torch && ((Torch) piece).isLit()) {
+						addFire(p);
+					}
+					if (piece.hasRoots()) {
+						showRooted(p);
+					}
+					if (piece.isStunned()) {
+						showStunned(p);
+					}
+					if (piece.isShielded()) {
+						showShielded(p);
 					}
 				}
 			}
 		}
 	}
 
+	/**
+	 * Adds a texture of a single flat color. One texel is enough, since
+	 * every texture coordinate samples the same color.
+	 */
 	private void addColorTexture(String name, RGBColor color) {
-		Texture tex = new Texture(256, 256, color);
-		TextureManager.getInstance().addTexture(name, tex);
+		Texture tex = new Texture(1, 1, color);
+		tex.setMipmap(false);
+		resources.addTexture(name, tex);
 		Log.d(TAG, String.format("added color texture: %s", name));
 	}
 	
@@ -998,165 +1746,146 @@ public final class GameView extends GLSurfaceView implements OnTouchListener,
 	 *            The width to rescale to.
 	 * @param height
 	 *            The height to rescale to.
+	 * @param alpha
+	 *            Whether the texture needs its alpha channel. Textures that
+	 *            do not are ETC1 compressed on the GPU where it is supported.
 	 */
-	private void loadTexture(String name, int id, int width, int height) {
+	private void loadTexture(String name, int id, int width, int height,
+			boolean alpha) {
 		Log.d(TAG, String.format("loading texture: %s", name));
 		Drawable drawable = getResources().getDrawable(id);
 		Bitmap bitmap = BitmapHelper.convert(drawable);
 		bitmap = BitmapHelper.rescale(bitmap, width, height);
-		Texture texture = new Texture(bitmap, true);
-		TextureManager.getInstance().addTexture(name, texture);
+		addTexture(name, new Texture(bitmap, alpha), alpha);
 		Log.d(TAG, String.format("done loading texture: %s", name));
 	}
 
-	private void loadTextures() {
-		loadTexture("squareLight", R.drawable.square_light, 64, 64);
-		loadTexture("squareDark", R.drawable.square_dark, 64, 64);
-		loadTexture("rock.bmp", R.drawable.rock, 64, 64);
-		loadTexture("gold.png", R.drawable.gold, 256, 256);
-		loadTexture("gold0.png", R.drawable.gold0, 256, 256);
-		loadTexture("gold1.png", R.drawable.gold1, 256, 256);
-		loadTexture("gold2.png", R.drawable.gold2, 256, 256);
-		loadTexture("gold3.png", R.drawable.gold3, 256, 256);
-		loadTexture("gold4.png", R.drawable.gold4, 256, 256);
-		loadTexture("red.png", R.drawable.red, 256, 256);
-		loadTexture("red0.png", R.drawable.red0, 256, 256);
-		loadTexture("red1.png", R.drawable.red1, 256, 256);
-		loadTexture("red2.png", R.drawable.red2, 256, 256);
-		loadTexture("red3.png", R.drawable.red3, 256, 256);
-		loadTexture("red4.png", R.drawable.red4, 256, 256);
-		loadTexture("selection", R.drawable.selection, 64, 64);
-		loadTexture("torch_re.bmp", R.drawable.torch_red, 64, 64);
-		loadTexture("grass_li.bmp", R.drawable.grass_light, 256, 256);
-		loadTexture("grass_da.bmp", R.drawable.grass_dark, 256, 256);
-		loadTexture("win_gold.png", R.drawable.win_gold, 512, 512);
-		loadTexture("win_red.png", R.drawable.win_red, 512, 512);
-		loadTexture("win_tie.png", R.drawable.win_tie, 512, 512);
-		loadTexture("particles", R.drawable.particles, 512, 512);
-		loadTexture("roots.png", R.drawable.roots, 512, 512);
-		addColorTexture("stun", new RGBColor(255, 0, 255));
-		addColorTexture("shield", new RGBColor(255, 128, 0));
+	private void addTexture(String name, Texture texture, boolean alpha) {
+		if (!alpha && etc1Supported) {
+			texture.setTextureCompression(true);
+		}
+		resources.addTexture(name, texture);
 	}
 
-	@Override
-	public void onFireUnlit(final Position a) {
-		queueProjectileCompleteEvent(new Runnable() {
-			public void run() {
-				SimpleVector fpos = new SimpleVector((float) a.x+0.15, (float) a.y-0.15, -0.2f);
-				ParticleManager fire = fires.get(pieces[a.x][a.y].getID());
-				fire.remove(world);
-				fires.remove(pieces[a.x][a.y].getID());
-				Log.d(TAG, "removed fire " + pieces[a.x][a.y].getID());
-			}
-		});
+	/**
+	 * Loads the atlas holding the skins of the pieces at every level of
+	 * damage and the roots indicator. It is stored at full size in
+	 * drawable-nodpi, so it is decoded without any scaling. It is not
+	 * mipmapped, since the regions have no gutter between them and the
+	 * smaller levels would blend neighbouring skins together.
+	 */
+	private void loadAtlas() throws IOException {
+		Log.d(TAG, "loading texture: atlas");
+		Bitmap bitmap = BitmapFactory.decodeResource(getResources(),
+				R.drawable.atlas);
+		Texture tex = new Texture(bitmap, false);
+		tex.setMipmap(false);
+		addTexture("atlas", tex, false);
+		atlas = new TextureAtlas("atlas",
+				getResources().openRawResource(R.raw.atlas));
+		Log.d(TAG, "done loading texture: atlas");
 	}
 
-	@Override
-	public void onFireLit(final Position a) {
-		queueProjectileCompleteEvent(new Runnable() {
-			public void run() {
-				SimpleVector fpos = new SimpleVector((float) a.x+0.15, (float) a.y-0.15, -0.2f);
-				ParticleManager fire = new ParticleManager(fpos);
-				fires.put(pieces[a.x][a.y].getID(), fire);
-				Log.d(TAG, "added fire " + pieces[a.x][a.y].getID());
-			}
-		});
+	private void loadTextures() throws IOException {
+		Texture.defaultToMipmapping(true);
+		loadTexture("squareLight", R.drawable.square_light, 64, 64, false);
+		loadTexture("squareDark", R.drawable.square_dark, 64, 64, false);
+		loadTexture("rock.bmp", R.drawable.rock, 64, 64, false);
+		loadAtlas();
+		loadTexture("selection", R.drawable.selection, 64, 64, false);
+		loadTexture("torch_re.bmp", R.drawable.torch_red, 64, 64, true);
+		loadTexture("grass_li.bmp", R.drawable.grass_light, 256, 256, false);
+		loadTexture("grass_da.bmp", R.drawable.grass_dark, 256, 256, false);
+		loadTexture("win_gold.png", R.drawable.win_gold, 512, 512, true);
+		loadTexture("win_red.png", R.drawable.win_red, 512, 512, true);
+		loadTexture("win_tie.png", R.drawable.win_tie, 512, 512, true);
+		loadTexture("particles", R.drawable.particles, 512, 512, true);
+		addColorTexture("stun", new RGBColor(255, 0, 255));
+		addColorTexture("shield", new RGBColor(255, 128, 0));
+		addColorTexture("FIRE", new RGBColor(255, 0, 0));
+		addColorTexture("WATER", new RGBColor(0, 0, 255));
+		addColorTexture("ROOT", new RGBColor(119, 51, 0));
+		addColorTexture("SHIELD", new RGBColor(255, 153, 0));
+		addColorTexture("STUN", new RGBColor(255, 255, 0));
+		addColorTexture("HEAL", new RGBColor(0, 255, 255));
 	}
 
-	@Override
-	public void onRooted(final Position a) {
-		queueProjectileCompleteEvent(new Runnable() {
-			public void run() {
-				SimpleVector rpos = new SimpleVector((float) a.x, (float) a.y, 0.0f);
-				Object3D indicator = rootIndicatorTemplate.cloneObject();
-				indicator.translate(rpos);
-				world.addObject(indicator);
-				indicator.setVisibility(true);
-				rootIndicator.put(pieces[a.x][a.y].getID(), indicator);
-				Log.d(TAG, "rooted " + pieces[a.x][a.y].getID());
-			}
-		});
+	private void showFireUnlit(Position a) {
+		Integer fire = fires.remove(pieces[a.x][a.y].getID());
+		if (fire != null) {
+			particles.removeEmitter(fire);
+		}
+		Log.d(TAG, "removed fire " + pieces[a.x][a.y].getID());
 	}
 
-	@Override
-	public void onUnrooted(final Position a) {
-		queueProjectileCompleteEvent(new Runnable() {
-			public void run() {
-				Object3D indicator = rootIndicator.get(pieces[a.x][a.y].getID());
-				indicator.setVisibility(false);
-				world.removeObject(indicator);
-				rootIndicator.remove(pieces[a.x][a.y].getID());
-				Log.d(TAG, "unrooted " + pieces[a.x][a.y].getID());
-			}
-		});
+	private void showFireLit(Position a) {
+		addFire(a);
 	}
 
-	@Override
-	public void onPieceStunned(final Position a) {
-		queueProjectileCompleteEvent(new Runnable() {
-			public void run() {
-				SimpleVector rpos = new SimpleVector((float) a.x, (float) a.y, 0.0f);
-				Object3D indicator = stunIndicatorTemplate.cloneObject();
-				indicator.translate(rpos);
-				world.addObject(indicator);
-				indicator.setVisibility(true);
-				stunIndicator.put(pieces[a.x][a.y].getID(), indicator);
-				Log.d(TAG, "stunned " + pieces[a.x][a.y].getID());
-			}
-		});
+	/**
+	 * Lights the fire of the torch at position a.
+	 */
+	private void addFire(Position a) {
+		int fire = particles.addEmitter(a.x + FIRE_X, a.y + FIRE_Y, FIRE_Z);
+		if (fire >= 0) {
+			fires.put(pieces[a.x][a.y].getID(), fire);
+			Log.d(TAG, "added fire " + pieces[a.x][a.y].getID());
+		}
 	}
 
-	@Override
-	public void onPieceUnstunned(final Position a) {
-		queueProjectileCompleteEvent(new Runnable() {
-			public void run() {
-				Object3D indicator = stunIndicator.get(pieces[a.x][a.y].getID());
-				indicator.setVisibility(false);
-				world.removeObject(indicator);
-				stunIndicator.remove(pieces[a.x][a.y].getID());
-				Log.d(TAG, "unstunned " + pieces[a.x][a.y].getID());
-			}
-		});
+	private void showRooted(Position a) {
+		SimpleVector rpos = new SimpleVector((float) a.x, (float) a.y, 0.0f);
+		Object3D indicator = rootIndicatorTemplate.cloneObject();
+		atlas.apply(indicator, "roots.png");
+		indicator.translate(rpos);
+		world.addObject(indicator);
+		indicator.setVisibility(true);
+		rootIndicator.put(pieces[a.x][a.y].getID(), indicator);
+		Log.d(TAG, "rooted " + pieces[a.x][a.y].getID());
 	}
 
-	@Override
-	public void onPieceShielded(final Position a) {
-		queueProjectileCompleteEvent(new Runnable() {
-			public void run() {
-				SimpleVector rpos = new SimpleVector((float) a.x, (float) a.y, 0.0f);
-				Object3D indicator = shieldIndicatorTemplate.cloneObject();
-				indicator.translate(rpos);
-				world.addObject(indicator);
-				indicator.setVisibility(true);
-				shieldIndicator.put(pieces[a.x][a.y].getID(), indicator);
-				Log.d(TAG, "shielded " + pieces[a.x][a.y].getID());
-			}
-		});
+	private void showUnrooted(Position a) {
+		Object3D indicator = rootIndicator.get(pieces[a.x][a.y].getID());
+		indicator.setVisibility(false);
+		world.removeObject(indicator);
+		rootIndicator.remove(pieces[a.x][a.y].getID());
+		Log.d(TAG, "unrooted " + pieces[a.x][a.y].getID());
 	}
 
-	@Override
-	public void onPieceUnshielded(final Position a) {
-		queueProjectileCompleteEvent(new Runnable() {
-			public void run() {
-				Object3D indicator = shieldIndicator.get(pieces[a.x][a.y].getID());
-				indicator.setVisibility(false);
-				world.removeObject(indicator);
-				shieldIndicator.remove(pieces[a.x][a.y].getID());
-				Log.d(TAG, "unshielded " + pieces[a.x][a.y].getID());
-			}
-		});
+	private void showStunned(Position a) {
+		SimpleVector rpos = new SimpleVector((float) a.x, (float) a.y, 0.0f);
+		Object3D indicator = stunIndicatorTemplate.cloneObject();
+		indicator.translate(rpos);
+		world.addObject(indicator);
+		indicator.setVisibility(true);
+		stunIndicator.put(pieces[a.x][a.y].getID(), indicator);
+		Log.d(TAG, "stunned " + pieces[a.x][a.y].getID());
 	}
 
-	@Override
-	public void onPieceBurned(Position a) {
-		// TODO Auto-generated method stub
-		
+	private void showUnstunned(Position a) {
+		Object3D indicator = stunIndicator.get(pieces[a.x][a.y].getID());
+		indicator.setVisibility(false);
+		world.removeObject(indicator);
+		stunIndicator.remove(pieces[a.x][a.y].getID());
+		Log.d(TAG, "unstunned " + pieces[a.x][a.y].getID());
 	}
 
-	@Override
-	public void onPieceUnburned(Position a) {
-		// TODO Auto-generated method stub
-		
+	private void showShielded(Position a) {
+		SimpleVector rpos = new SimpleVector((float) a.x, (float) a.y, 0.0f);
+		Object3D indicator = shieldIndicatorTemplate.cloneObject();
+		indicator.translate(rpos);
+		world.addObject(indicator);
+		indicator.setVisibility(true);
+		shieldIndicator.put(pieces[a.x][a.y].getID(), indicator);
+		Log.d(TAG, "shielded " + pieces[a.x][a.y].getID());
+	}
+
+	private void showUnshielded(Position a) {
+		Object3D indicator = shieldIndicator.get(pieces[a.x][a.y].getID());
+		indicator.setVisibility(false);
+		world.removeObject(indicator);
+		shieldIndicator.remove(pieces[a.x][a.y].getID());
+		Log.d(TAG, "unshielded " + pieces[a.x][a.y].getID());
 	}
 
 }
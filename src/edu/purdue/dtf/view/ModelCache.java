@@ -0,0 +1,189 @@
+package edu.purdue.dtf.view;
+
+import java.io.BufferedInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+
+import android.content.res.AssetFileDescriptor;
+import android.content.res.AssetManager;
+import android.content.res.Resources;
+import android.util.Log;
+
+import com.threed.jpct.Loader;
+import com.threed.jpct.Object3D;
+
+/**
+ * ModelCache loads the game's 3D models, each one only once. Models are read
+ * from jPCT serialized objects in assets/models, made ahead of time from the
+ * .3ds files in res/raw by the ModelSerializer tool, which load much faster
+ * than parsing the .3ds files. A model without a serialized copy is loaded
+ * from its .3ds file instead.
+ *
+ * Serialized models are memory mapped when the asset is stored uncompressed
+ * in the package, and streamed otherwise.
+ */
+final class ModelCache {
+
+	// Tag used for logging from this class.
+	private static final String TAG = "ModelCache";
+
+	// Folder in the assets holding the serialized models.
+	static final String MODELS = "models/";
+
+	// Extension of a serialized model.
+	static final String EXTENSION = ".ser";
+
+	private final Resources resources;
+	private final AssetManager assets;
+
+	// The model as loaded, by name. These are never added to the world, only
+	// cloned.
+	private final Map<String, Object3D> models = new HashMap<String, Object3D>();
+
+	ModelCache(Resources resources) {
+		this.resources = resources;
+		this.assets = resources.getAssets();
+	}
+
+	/**
+	 * Gets the name a model is serialized under: the name of its raw resource,
+	 * followed by @ and the scale if it is not 1.
+	 *
+	 * @param resource
+	 *            The name of the .3ds resource, without the extension.
+	 * @param scale
+	 *            The scale the model is loaded at.
+	 */
+	static String modelName(String resource, float scale) {
+		if (scale == 1.0f)
+			return resource;
+		if (scale == (int) scale)
+			return resource + "@" + (int) scale;
+		return resource + "@" + scale;
+	}
+
+	/**
+	 * Gets a new object of a model. Objects of the same model share its mesh,
+	 * but each can be moved and textured on its own.
+	 *
+	 * @param id
+	 *            The raw resource id of the model's .3ds file.
+	 * @param scale
+	 *            The scale to load the model at.
+	 * @return The object.
+	 * @throws IOException
+	 *             If the model cannot be loaded.
+	 */
+	Object3D load(int id, float scale) throws IOException {
+		String name = modelName(resources.getResourceEntryName(id), scale);
+		Object3D model = models.get(name);
+		if (model == null) {
+			model = loadSerialized(MODELS + name + EXTENSION);
+			if (model == null) {
+				Log.d(TAG, "no serialized " + name + ", parsing the .3ds file");
+				model = load3DS(id, scale);
+			}
+			models.put(name, model);
+		}
+		return model.cloneObject();
+	}
+
+	/**
+	 * Forgets the loaded models, so they can be garbage collected once the
+	 * objects made from them are gone.
+	 */
+	void clear() {
+		models.clear();
+	}
+
+	private Object3D load3DS(int id, float scale) throws IOException {
+		InputStream in = resources.openRawResource(id);
+		try {
+			return Loader.load3DS(in, scale)[0];
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Loads a serialized model from the assets.
+	 *
+	 * @return The model, or null if there is no such asset.
+	 */
+	private Object3D loadSerialized(String path) throws IOException {
+		AssetFileDescriptor fd;
+		try {
+			fd = assets.openFd(path);
+		} catch (FileNotFoundException e) {
+			// either missing, or compressed so it cannot be mapped
+			return streamSerialized(path);
+		}
+		try {
+			FileChannel channel = fd.createInputStream().getChannel();
+			ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY,
+					fd.getStartOffset(), fd.getLength());
+			return Loader.loadSerializedObject(new BufferInputStream(mapped));
+		} finally {
+			fd.close();
+		}
+	}
+
+	private Object3D streamSerialized(String path) throws IOException {
+		InputStream in;
+		try {
+			in = assets.open(path);
+		} catch (FileNotFoundException e) {
+			return null;
+		}
+		try {
+			return Loader.loadSerializedObject(new BufferedInputStream(in,
+					1 << 14));
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Reads a mapped file straight out of memory.
+	 */
+	private static final class BufferInputStream extends InputStream {
+		private final ByteBuffer buffer;
+
+		BufferInputStream(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int read() {
+			return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			if (len == 0)
+				return 0;
+			if (!buffer.hasRemaining())
+				return -1;
+			len = Math.min(len, buffer.remaining());
+			buffer.get(b, off, len);
+			return len;
+		}
+
+		@Override
+		public int available() {
+			return buffer.remaining();
+		}
+
+		@Override
+		public long skip(long n) {
+			int k = (int) Math.min(Math.max(n, 0), buffer.remaining());
+			buffer.position(buffer.position() + k);
+			return k;
+		}
+	}
+}
@@ -0,0 +1,336 @@
+package edu.purdue.dtf.view;
+
+import com.threed.jpct.GenericVertexController;
+import com.threed.jpct.IVertexController;
+import com.threed.jpct.Object3D;
+import com.threed.jpct.SimpleVector;
+
+/**
+ * ParticleSystem animates the fire of every torch on the board as one mesh.
+ * Each torch is an emitter that gives off particles while it burns. There is
+ * a fixed budget of particles shared by all of them, big enough for every
+ * emitter to burn at full strength at once. Should it ever run short, the
+ * emitters take turns at going first, so no torch is left without fire.
+ *
+ * Particles are kept as parallel arrays of floats, with the live ones packed
+ * at the front, so stepping them touches no objects and allocates nothing.
+ * Each particle is drawn as a quad in one dynamic mesh, rewritten by a vertex
+ * controller every frame, so all the fire on the board costs a single draw
+ * call. The camera looks straight down on the board, so quads in the plane of
+ * the board always face it.
+ *
+ * Like the other animations, particles move in the fixed steps of the view's
+ * SimulationClock and are drawn between their last two positions.
+ */
+final class ParticleSystem {
+
+	// Most emitters at once.
+	static final int MAX_EMITTERS = 16;
+
+	// Steps between new particles from each emitter, and steps a particle
+	// lives for.
+	private static final int SPAWN_STEPS = 2;
+	private static final int LIFETIME = 60;
+
+	// Most particles alive at once, across all emitters: as many as every
+	// emitter has alive when it burns steadily.
+	static final int MAX_PARTICLES = MAX_EMITTERS
+			* (LIFETIME / SPAWN_STEPS + 1);
+
+	// Speed a particle may start with, and its gravity and spin, per step.
+	private static final float SPEED = 0.005f;
+	private static final float GRAVITY = -0.000075f;
+	private static final float SPIN = (float) Math.PI / 180.0f * 2.5f;
+
+	// Half the width of a particle's quad.
+	private static final float HALF_SIZE = 0.2f;
+
+	// Gap between the quads when the mesh is built. They must not touch, or
+	// the mesh would share vertices between them.
+	private static final float BUILD_SPACING = 0.05f;
+
+	// Corners of a quad, in the order they are made.
+	private static final float[] CORNER_X = { -1.0f, 1.0f, 1.0f, -1.0f };
+	private static final float[] CORNER_Y = { 1.0f, 1.0f, -1.0f, -1.0f };
+
+	// Emitter positions, and whether each is in use.
+	private final float[] emitterX = new float[MAX_EMITTERS];
+	private final float[] emitterY = new float[MAX_EMITTERS];
+	private final float[] emitterZ = new float[MAX_EMITTERS];
+	private final boolean[] emitting = new boolean[MAX_EMITTERS];
+	private int emitters = 0;
+
+	// The emitter that spawns first in the next round, which moves on every
+	// round so a short budget is shared out evenly.
+	private int firstEmitter = 0;
+
+	// The particles, live ones in [0, count). Positions are offsets from the
+	// emitter, after the last step and the one before.
+	private final int[] emitter = new int[MAX_PARTICLES];
+	private final float[] x = new float[MAX_PARTICLES];
+	private final float[] y = new float[MAX_PARTICLES];
+	private final float[] z = new float[MAX_PARTICLES];
+	private final float[] lastX = new float[MAX_PARTICLES];
+	private final float[] lastY = new float[MAX_PARTICLES];
+	private final float[] lastZ = new float[MAX_PARTICLES];
+	private final float[] vx = new float[MAX_PARTICLES];
+	private final float[] vy = new float[MAX_PARTICLES];
+	private final float[] vz = new float[MAX_PARTICLES];
+	private final float[] angle = new float[MAX_PARTICLES];
+	private final float[] cos = new float[MAX_PARTICLES];
+	private final float[] sin = new float[MAX_PARTICLES];
+	private final int[] age = new int[MAX_PARTICLES];
+	private int count = 0;
+
+	// Quads drawn in the last frame, which must be hidden if they died.
+	private int drawn = MAX_PARTICLES;
+
+	private int steps = 0;
+	private int seed = 0x2545f491;
+
+	// For each vertex of the mesh, its quad and corner.
+	private int[] vertexQuad;
+	private int[] vertexCorner;
+
+	private final Object3D object;
+	private final Controller controller = new Controller();
+	private float alpha;
+
+	/**
+	 * Builds the mesh. Must be called on the render thread, once the
+	 * "particles" texture is loaded.
+	 */
+	ParticleSystem() {
+		object = new Object3D(MAX_PARTICLES * 2);
+		SimpleVector[] c = new SimpleVector[4];
+		for (int q = 0; q < MAX_PARTICLES; ++q) {
+			for (int k = 0; k < 4; ++k)
+				c[k] = new SimpleVector(q * BUILD_SPACING + CORNER_X[k]
+						* HALF_SIZE * 0.1f, CORNER_Y[k] * HALF_SIZE * 0.1f, 0.0f);
+			object.addTriangle(c[0], 0.498046875f, 0.5f, c[1], 0.998046875f,
+					0.5f, c[2], 0.998046875f, 0.0f);
+			object.addTriangle(c[0], 0.498046875f, 0.5f, c[2], 0.998046875f,
+					0.0f, c[3], 0.498046875f, 0.0f);
+		}
+		object.setCulling(Object3D.CULLING_DISABLED);
+		object.setLighting(Object3D.LIGHTING_NO_LIGHTS);
+		object.setTransparency(0);
+		object.setTransparencyMode(Object3D.TRANSPARENCY_MODE_ADD);
+		object.setAdditionalColor(240, 120, 5);
+		object.setTexture("particles");
+		object.compile(true, true);
+		object.build();
+		object.getMesh().setVertexController(controller,
+				IVertexController.PRESERVE_SOURCE_MESH);
+		update();
+	}
+
+	/**
+	 * Gets the object all the particles are drawn with, to add to the world.
+	 */
+	Object3D getObject() {
+		return object;
+	}
+
+	/**
+	 * Starts a new emitter.
+	 *
+	 * @return Its handle, or -1 if there are too many.
+	 */
+	int addEmitter(float ex, float ey, float ez) {
+		for (int e = 0; e < MAX_EMITTERS; ++e) {
+			if (!emitting[e]) {
+				emitting[e] = true;
+				++emitters;
+				moveEmitter(e, ex, ey, ez);
+				return e;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Moves an emitter, along with the particles it has given off.
+	 */
+	void moveEmitter(int e, float ex, float ey, float ez) {
+		emitterX[e] = ex;
+		emitterY[e] = ey;
+		emitterZ[e] = ez;
+	}
+
+	/**
+	 * Stops an emitter and puts out its particles.
+	 */
+	void removeEmitter(int e) {
+		if (emitting[e])
+			--emitters;
+		emitting[e] = false;
+		for (int i = count - 1; i >= 0; --i)
+			if (emitter[i] == e)
+				kill(i);
+	}
+
+	/**
+	 * Stops every emitter and puts out every particle.
+	 */
+	void clear() {
+		for (int e = 0; e < MAX_EMITTERS; ++e)
+			emitting[e] = false;
+		emitters = 0;
+		count = 0;
+	}
+
+	/**
+	 * Tells whether anything is burning, or still has to be cleared from the
+	 * mesh, so the system needs stepping and drawing.
+	 */
+	boolean isActive() {
+		return emitters > 0 || count > 0 || drawn > 0;
+	}
+
+	/**
+	 * Moves every particle on by one simulation step, giving off new ones and
+	 * putting out those that have burned out.
+	 */
+	void step() {
+		for (int i = count - 1; i >= 0; --i) {
+			if (++age[i] > LIFETIME) {
+				kill(i);
+				continue;
+			}
+			lastX[i] = x[i];
+			lastY[i] = y[i];
+			lastZ[i] = z[i];
+			vy[i] += GRAVITY;
+			x[i] += vx[i];
+			y[i] += vy[i];
+			z[i] += vz[i];
+			angle[i] += SPIN;
+		}
+		if (++steps % SPAWN_STEPS == 0) {
+			for (int k = 0; k < MAX_EMITTERS && count < MAX_PARTICLES; ++k) {
+				int e = (firstEmitter + k) % MAX_EMITTERS;
+				if (emitting[e])
+					spawn(e);
+			}
+			firstEmitter = (firstEmitter + 1) % MAX_EMITTERS;
+		}
+	}
+
+	/**
+	 * Rewrites the mesh with the particles part of the way through the step
+	 * in progress.
+	 *
+	 * @param alpha
+	 *            How far through the step, from 0 to 1.
+	 */
+	void interpolate(float alpha) {
+		if (count == 0 && drawn == 0)
+			return;
+		this.alpha = alpha;
+		update();
+	}
+
+	private void update() {
+		object.getMesh().applyVertexController();
+		object.touch();
+		drawn = count;
+	}
+
+	private void spawn(int e) {
+		int i = count++;
+		emitter[i] = e;
+		x[i] = y[i] = z[i] = 0.0f;
+		lastX[i] = lastY[i] = lastZ[i] = 0.0f;
+		vx[i] = random() * SPEED;
+		vy[i] = random() * SPEED;
+		vz[i] = random() * SPEED;
+		angle[i] = 0.0f;
+		age[i] = 0;
+	}
+
+	/**
+	 * Removes a particle by moving the last live one into its place.
+	 */
+	private void kill(int i) {
+		int j = --count;
+		emitter[i] = emitter[j];
+		x[i] = x[j];
+		y[i] = y[j];
+		z[i] = z[j];
+		lastX[i] = lastX[j];
+		lastY[i] = lastY[j];
+		lastZ[i] = lastZ[j];
+		vx[i] = vx[j];
+		vy[i] = vy[j];
+		vz[i] = vz[j];
+		angle[i] = angle[j];
+		age[i] = age[j];
+	}
+
+	/**
+	 * Gets a random number from -1 to 1 with a xorshift generator, which is
+	 * plenty for sparks and needs no locking.
+	 */
+	private float random() {
+		seed ^= seed << 13;
+		seed ^= seed >>> 17;
+		seed ^= seed << 5;
+		return seed * (1.0f / Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Writes the quads of the live particles into the mesh, and folds the
+	 * rest away to nothing.
+	 */
+	private final class Controller extends GenericVertexController {
+
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * Works out which corner of which quad each vertex of the mesh is,
+		 * from where they were built.
+		 */
+		private void mapVertices() {
+			SimpleVector[] source = getSourceMesh();
+			int n = getMeshSize();
+			vertexQuad = new int[n];
+			vertexCorner = new int[n];
+			for (int v = 0; v < n; ++v) {
+				int q = Math.round(source[v].x / BUILD_SPACING);
+				vertexQuad[v] = Math.min(Math.max(q, 0), MAX_PARTICLES - 1);
+				float dx = source[v].x - q * BUILD_SPACING;
+				vertexCorner[v] = source[v].y > 0.0f ? (dx < 0.0f ? 0 : 1)
+						: (dx < 0.0f ? 3 : 2);
+			}
+		}
+
+		public void apply() {
+			if (vertexQuad == null)
+				mapVertices();
+			SimpleVector[] dest = getDestinationMesh();
+			int n = getMeshSize();
+			float a = alpha;
+			for (int i = 0; i < count; ++i) {
+				cos[i] = (float) Math.cos(angle[i]) * HALF_SIZE;
+				sin[i] = (float) Math.sin(angle[i]) * HALF_SIZE;
+			}
+			for (int v = 0; v < n; ++v) {
+				SimpleVector d = dest[v];
+				int i = vertexQuad[v];
+				if (i >= count) {
+					d.set(0.0f, 0.0f, 0.0f);
+					continue;
+				}
+				int e = emitter[i];
+				float cx = emitterX[e] + lastX[i] + (x[i] - lastX[i]) * a;
+				float cy = emitterY[e] + lastY[i] + (y[i] - lastY[i]) * a;
+				float cz = emitterZ[e] + lastZ[i] + (z[i] - lastZ[i]) * a;
+				int k = vertexCorner[v];
+				float ox = CORNER_X[k], oy = CORNER_Y[k];
+				d.set(cx + ox * cos[i] - oy * sin[i], cy + ox * sin[i] + oy
+						* cos[i], cz);
+			}
+		}
+	}
+}
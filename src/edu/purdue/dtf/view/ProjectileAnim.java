@@ -1,69 +1,101 @@
-package edu.purdue.dtf.view;
-
-import java.util.List;
-
-import com.threed.jpct.Object3D;
-import com.threed.jpct.SimpleVector;
-
-import edu.purdue.dtf.game.Direction;
-import edu.purdue.dtf.game.Position;
-import edu.purdue.dtf.game.Projectile;
-
-public class ProjectileAnim {
-
-	private Object3D projectile = null;
-
-	private SimpleVector projectileVelocity = new SimpleVector(0.0f, 0.1f, 0.0f);
-	private List<Position> projectilePath = null;
-	private List<Direction> projectileDirs = null;
-	private int projectileMilestone = 0;
-	private boolean projectileActive = false;
-	private final float projectileSpeed = 0.2f;
-	
-	public void fire(Object3D projectile, SimpleVector startAt, final List<Position> path,
-			final List<Direction> dirs, final Projectile proj) {
-		this.projectile = projectile;
-		this.projectile.clearTranslation();
-		projectilePath = path;
-		projectileDirs = dirs;
-		this.projectile.translate(startAt);
-		projectileVelocity = new SimpleVector(dirs.get(0).getVector());
-		projectileVelocity.scalarMul(projectileSpeed);
-		projectileMilestone = 0;
-		projectileActive = true;
-		this.projectile.setVisibility(true);
-	}
-	
-	public void update() {
-		final float closeEnough = 0.2f;
-		SimpleVector pos = projectile.getTranslation();
-		pos.z = 0.0f;
-		SimpleVector next = projectilePath.get(projectileMilestone + 1)
-				.toVector();
-		next.z = 0.0f;
-		if (pos.distance(next) <= closeEnough) {
-			if (projectileMilestone + 1 == projectilePath.size() - 1) {
-				projectile.setVisibility(false);
-				projectileActive = false;
-			} else {
-				++projectileMilestone;
-				projectileVelocity = new SimpleVector(projectileDirs.get(
-						projectileMilestone).getVector());
-				projectileVelocity.scalarMul(projectileSpeed);
-				projectile.clearTranslation();
-				projectile.translate(projectilePath.get(projectileMilestone)
-						.toVector());
-			}
-		} else {
-			projectile.translate(projectileVelocity);
-		}
-	}
-	
-	public boolean isActive() {
-		return projectileActive;
-	}
-	
-	public Position getPosition() {
-		return Position.valueOf(projectile.getTranslation());
-	}
-}
+package edu.purdue.dtf.view;
+
+import java.util.List;
+
+import com.threed.jpct.Object3D;
+import com.threed.jpct.SimpleVector;
+
+import edu.purdue.dtf.game.Direction;
+import edu.purdue.dtf.game.Position;
+import edu.purdue.dtf.game.Projectile;
+
+/**
+ * ProjectileAnim flies a projectile along the path of a shot. It moves in the
+ * fixed steps of the view's SimulationClock, and is drawn between its last two
+ * positions so that it moves smoothly at any frame rate.
+ */
+public class ProjectileAnim {
+
+	// Distance covered in one simulation step.
+	private static final float SPEED = 0.2f;
+
+	// How near a corner of the path counts as reaching it.
+	private static final float CLOSE_ENOUGH = 0.2f;
+
+	private Object3D projectile = null;
+
+	// Where the projectile is after the last step and the one before.
+	private final SimpleVector position = new SimpleVector();
+	private final SimpleVector previous = new SimpleVector();
+
+	private final SimpleVector projectileVelocity = new SimpleVector();
+	private List<Position> projectilePath = null;
+	private List<Direction> projectileDirs = null;
+	private int projectileMilestone = 0;
+	private boolean projectileActive = false;
+
+	public void fire(Object3D projectile, SimpleVector startAt, final List<Position> path,
+			final List<Direction> dirs, final Projectile proj) {
+		this.projectile = projectile;
+		projectilePath = path;
+		projectileDirs = dirs;
+		position.set(startAt);
+		previous.set(startAt);
+		setHeading(dirs.get(0));
+		projectileMilestone = 0;
+		projectileActive = true;
+		interpolate(0.0f);
+		this.projectile.setVisibility(true);
+	}
+
+	private void setHeading(Direction d) {
+		projectileVelocity.set(Vectors.toVector(d));
+		projectileVelocity.scalarMul(SPEED);
+	}
+
+	/**
+	 * Moves the projectile on by one simulation step, turning at each corner
+	 * of its path and stopping at the end.
+	 */
+	public void step() {
+		previous.set(position);
+		Position next = projectilePath.get(projectileMilestone + 1);
+		float dx = next.x - position.x, dy = next.y - position.y;
+		if (dx * dx + dy * dy <= CLOSE_ENOUGH * CLOSE_ENOUGH) {
+			if (projectileMilestone + 1 == projectilePath.size() - 1) {
+				projectile.setVisibility(false);
+				projectileActive = false;
+			} else {
+				++projectileMilestone;
+				setHeading(projectileDirs.get(projectileMilestone));
+				Position corner = projectilePath.get(projectileMilestone);
+				position.set((float) corner.x, (float) corner.y, position.z);
+				previous.set(position);
+			}
+		} else {
+			position.add(projectileVelocity);
+		}
+	}
+
+	/**
+	 * Places the projectile for drawing part of the way through the step in
+	 * progress.
+	 *
+	 * @param alpha
+	 *            How far through the step, from 0 to 1.
+	 */
+	public void interpolate(float alpha) {
+		projectile.clearTranslation();
+		projectile.translate(previous.x + (position.x - previous.x) * alpha,
+				previous.y + (position.y - previous.y) * alpha,
+				previous.z + (position.z - previous.z) * alpha);
+	}
+
+	public boolean isActive() {
+		return projectileActive;
+	}
+
+	public Position getPosition() {
+		return Vectors.toPosition(position);
+	}
+}
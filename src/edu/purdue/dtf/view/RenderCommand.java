@@ -0,0 +1,45 @@
+package edu.purdue.dtf.view;
+
+import edu.purdue.dtf.game.Board;
+import edu.purdue.dtf.game.BoardEvents;
+import edu.purdue.dtf.game.Position;
+
+/**
+ * RenderCommand is one change to what the view shows, sent from the thread
+ * playing the game to the render thread through a CommandQueue. Commands
+ * carry copies of everything the renderer needs, so it never reads the board
+ * the game is played on.
+ */
+final class RenderCommand {
+
+	// Show the selector on the selected square.
+	static final int SELECT = 0;
+
+	// Hide the selector.
+	static final int DESELECT = 1;
+
+	// Animate the events of an action.
+	static final int EVENTS = 2;
+
+	// Rebuild every piece from the state, as after a new game.
+	static final int RESET = 3;
+
+	int type;
+
+	// The selected square for SELECT and RESET, or null.
+	Position selected;
+
+	// The events for EVENTS.
+	final BoardEvents events = new BoardEvents(32);
+
+	// The board once the command is done, for EVENTS and RESET.
+	final Board state;
+
+	// The next event to animate, kept by the renderer while a projectile
+	// holds up the rest of the action.
+	int next;
+
+	RenderCommand(int width, int height) {
+		state = new Board(width, height);
+	}
+}
@@ -0,0 +1,77 @@
+package edu.purdue.dtf.view;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import android.util.Log;
+
+import com.threed.jpct.FrameBuffer;
+import com.threed.jpct.Texture;
+import com.threed.jpct.TextureManager;
+import com.threed.jpct.World;
+
+/**
+ * ResourceManager keeps track of what the view has on the GPU so that it can
+ * all be put back when the GL context is lost, as it may be while the
+ * activity is paused. Every texture keeps a copy of its pixels in memory, so
+ * a new context only needs them uploaded again, not loaded from the package.
+ * Meshes need no copy of their own, since jPCT keeps each object's mesh in
+ * memory anyway; the objects in the world are compiled for the new context.
+ */
+final class ResourceManager {
+
+	// Tag used for logging from this class.
+	private static final String TAG = "ResourceManager";
+
+	// Every texture with a copy kept, named or not.
+	private final List<Texture> textures = new ArrayList<Texture>();
+
+	/**
+	 * Adds a texture to the TextureManager, keeping a copy of its pixels.
+	 * The TextureManager is shared by the whole process, so a texture of the
+	 * same name left by an earlier view, such as one from before the activity
+	 * was recreated, is replaced.
+	 */
+	void addTexture(String name, Texture texture) {
+		keep(texture);
+		TextureManager tm = TextureManager.getInstance();
+		if (tm.containsTexture(name))
+			tm.replaceTexture(name, texture);
+		else
+			tm.addTexture(name, texture);
+	}
+
+	/**
+	 * Keeps a copy of the pixels of a texture that is used without being in
+	 * the TextureManager, such as one that is only blitted.
+	 */
+	void keep(Texture texture) {
+		texture.keepPixelData(true);
+		synchronized (textures) {
+			textures.add(texture);
+		}
+	}
+
+	/**
+	 * Uploads everything again to a new GL context from the copies in
+	 * memory, so it is all there for the first frame. Called on the render
+	 * thread with the frame buffer made for the new context, and only once
+	 * the textures have all been added.
+	 *
+	 * @param fb
+	 *            The frame buffer of the new context.
+	 * @param world
+	 *            The world whose objects to compile.
+	 */
+	void restore(FrameBuffer fb, World world) {
+		long start = System.nanoTime();
+		TextureManager.getInstance().preWarm(fb);
+		world.compileAllObjects();
+		int count;
+		synchronized (textures) {
+			count = textures.size();
+		}
+		Log.d(TAG, String.format("restored %d textures and %d objects in %d ms",
+				count, world.getSize(), (System.nanoTime() - start) / 1000000L));
+	}
+}
@@ -0,0 +1,72 @@
+package edu.purdue.dtf.view;
+
+/**
+ * SimulationClock runs the view's animations in fixed steps of simulated time,
+ * however fast frames are drawn. Each frame it is given the time from
+ * System.nanoTime and says how many whole steps have fallen due since the
+ * last frame. The time left over, as a fraction of a step, is used to draw
+ * moving things part of the way between their last two positions.
+ *
+ * Animations therefore run at the same speed at any frame rate, and a fast
+ * display does no more simulation than a slow one, only more interpolation.
+ */
+final class SimulationClock {
+
+	private final long stepNanos;
+
+	// Most steps to run in one frame. Time beyond that is dropped, so a stall
+	// or a pause does not make the game race to catch up.
+	private final int maxSteps;
+
+	private boolean started = false;
+	private long last;
+
+	// Time that has passed but not yet been simulated.
+	private long pending = 0;
+
+	/**
+	 * Creates a clock that has not started.
+	 *
+	 * @param stepsPerSecond
+	 *            How many steps make a second of simulated time.
+	 * @param maxSteps
+	 *            The most steps to run for a single frame.
+	 */
+	SimulationClock(int stepsPerSecond, int maxSteps) {
+		this.stepNanos = 1000000000L / stepsPerSecond;
+		this.maxSteps = maxSteps;
+	}
+
+	/**
+	 * Moves the clock on to the time of a new frame. The first call only
+	 * starts the clock.
+	 *
+	 * @param now
+	 *            The time from System.nanoTime.
+	 * @return The number of steps to run before drawing the frame.
+	 */
+	int advance(long now) {
+		if (!started) {
+			started = true;
+			last = now;
+			return 0;
+		}
+		pending += now - last;
+		last = now;
+		long due = pending / stepNanos;
+		if (due > maxSteps) {
+			pending %= stepNanos;
+			return maxSteps;
+		}
+		pending -= due * stepNanos;
+		return (int) due;
+	}
+
+	/**
+	 * Gets how far the frame being drawn is between the last step and the
+	 * next, from 0 to 1.
+	 */
+	float alpha() {
+		return (float) pending / stepNanos;
+	}
+}
@@ -0,0 +1,142 @@
+package edu.purdue.dtf.view;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import android.util.Log;
+
+/**
+ * StagedLoader loads the view's assets in stages without stalling the render
+ * thread. Each stage first loads on a background thread, where files are read
+ * and parsed and bitmaps decoded, and is then attached on the render thread,
+ * which puts what it loaded into the world. Stages load in the order they
+ * were added and attach in the same order, a few each frame, so that no frame
+ * takes much longer than usual. Textures and meshes go to the GPU the first
+ * time they are drawn, so they too are spread over the frames.
+ *
+ * The render thread can draw the stages attached so far while the rest are
+ * still loading.
+ */
+final class StagedLoader {
+
+	// Tag used for logging from this class.
+	private static final String TAG = "StagedLoader";
+
+	/**
+	 * One step of loading.
+	 */
+	interface Stage {
+		/**
+		 * Loads the stage's assets. Called on the loading thread, and must not
+		 * touch the world.
+		 *
+		 * @throws IOException
+		 *             If an asset cannot be loaded.
+		 */
+		void load() throws IOException;
+
+		/**
+		 * Puts the loaded assets in place. Called on the render thread.
+		 */
+		void attach();
+	}
+
+	private final List<Stage> stages = new ArrayList<Stage>();
+
+	// Number of stages loaded. Set by the loading thread after each stage, so
+	// everything the stage loaded is visible once it is read.
+	private final AtomicInteger loaded = new AtomicInteger();
+
+	// Number of stages attached. Only used on the render thread.
+	private int attached = 0;
+
+	private volatile boolean failed = false;
+
+	private ExecutorService executor;
+
+	/**
+	 * Adds a stage after the ones already added. Must be called before start.
+	 */
+	void add(Stage stage) {
+		stages.add(stage);
+	}
+
+	/**
+	 * Starts loading the stages in the background.
+	 */
+	void start() {
+		executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "StagedLoader");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		executor.execute(new Runnable() {
+			public void run() {
+				try {
+					for (Stage stage : stages) {
+						stage.load();
+						loaded.incrementAndGet();
+					}
+				} catch (Exception e) {
+					Log.e(TAG, "loading failed", e);
+					failed = true;
+				}
+			}
+		});
+		executor.shutdown();
+	}
+
+	/**
+	 * Stops loading. Stages that have not loaded yet never will.
+	 */
+	void cancel() {
+		if (executor != null)
+			executor.shutdownNow();
+	}
+
+	/**
+	 * Attaches the stages that have loaded, in order, until they are all
+	 * attached or the time allowed is used up. Called on the render thread
+	 * once a frame. At least one stage is attached if one has loaded.
+	 *
+	 * @param budgetNanos
+	 *            How long attaching may take.
+	 * @return True once every stage has been attached.
+	 */
+	boolean attach(long budgetNanos) {
+		long start = System.nanoTime();
+		int ready = loaded.get();
+		while (attached < ready) {
+			stages.get(attached++).attach();
+			if (System.nanoTime() - start >= budgetNanos)
+				break;
+		}
+		return attached == stages.size();
+	}
+
+	/**
+	 * Tells whether loading has stopped short, so it will never finish: a
+	 * stage failed to load, and every stage loaded before it has been
+	 * attached. Called on the render thread.
+	 */
+	boolean isStopped() {
+		return failed && attached == loaded.get();
+	}
+
+	/**
+	 * Gets how far loading has got, from 0 to 1. Loading and attaching each
+	 * count for half of a stage.
+	 */
+	float progress() {
+		if (stages.isEmpty())
+			return 1.0f;
+		return (loaded.get() + attached) / (2.0f * stages.size());
+	}
+}
@@ -0,0 +1,110 @@
+package edu.purdue.dtf.view;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.threed.jpct.Matrix;
+import com.threed.jpct.Object3D;
+
+/**
+ * TextureAtlas gives out regions of one texture that holds many images,
+ * packed by the AtlasPacker tool, so that the objects using them share a
+ * texture. An object is put on a region by its texture matrix, which maps the
+ * model's own texture coordinates into the region; the models must keep their
+ * texture coordinates within 0 to 1 for this to work.
+ *
+ * The regions are packed edge to edge with no gutter between them, so the
+ * atlas texture must not be mipmapped: the smaller levels average texels
+ * from neighbouring regions, and a piece would show the edge of another
+ * skin. Within the full size level, each region is inset by half a texel.
+ */
+final class TextureAtlas {
+
+	// Name of the atlas texture in the TextureManager.
+	private final String texture;
+
+	// Texture matrix for each image, by the image's file name.
+	private final Map<String, Matrix> regions = new HashMap<String, Matrix>();
+
+	/**
+	 * Reads the index of an atlas.
+	 *
+	 * @param texture
+	 *            The name the atlas texture is added to the TextureManager
+	 *            under.
+	 * @param index
+	 *            The index written by AtlasPacker.
+	 * @throws IOException
+	 *             If the index cannot be read or is not valid.
+	 */
+	TextureAtlas(String texture, InputStream index) throws IOException {
+		this.texture = texture;
+		BufferedReader in = new BufferedReader(new InputStreamReader(index,
+				"US-ASCII"));
+		try {
+			String[] size = split(in.readLine(), 2);
+			float width = Integer.parseInt(size[0]);
+			float height = Integer.parseInt(size[1]);
+			for (String line = in.readLine(); line != null; line = in.readLine()) {
+				if (line.length() == 0)
+					continue;
+				String[] r = split(line, 5);
+				// map 0 and 1 to the centres of the region's edge texels, so
+				// that bilinear filtering never reaches into the next region
+				Matrix m = new Matrix();
+				m.set(0, 0, (Integer.parseInt(r[3]) - 1) / width);
+				m.set(1, 1, (Integer.parseInt(r[4]) - 1) / height);
+				m.set(3, 0, (Integer.parseInt(r[1]) + 0.5f) / width);
+				m.set(3, 1, (Integer.parseInt(r[2]) + 0.5f) / height);
+				regions.put(r[0], m);
+			}
+		} catch (NumberFormatException e) {
+			throw new IOException("bad atlas index: " + e.getMessage());
+		} finally {
+			in.close();
+		}
+	}
+
+	private static String[] split(String line, int fields) throws IOException {
+		if (line == null)
+			throw new IOException("atlas index cut short");
+		String[] parts = line.trim().split(" +");
+		if (parts.length != fields)
+			throw new IOException("bad atlas index line: " + line);
+		return parts;
+	}
+
+	/**
+	 * Gets the name of the atlas texture.
+	 */
+	String getTexture() {
+		return texture;
+	}
+
+	/**
+	 * Tells whether an image is in the atlas.
+	 */
+	boolean contains(String image) {
+		return regions.containsKey(image);
+	}
+
+	/**
+	 * Textures an object with one of the images in the atlas.
+	 *
+	 * @param object
+	 *            The object.
+	 * @param image
+	 *            The file name of the image, such as gold0.png.
+	 */
+	void apply(Object3D object, String image) {
+		Matrix m = regions.get(image);
+		if (m == null)
+			throw new IllegalArgumentException("no " + image + " in the atlas");
+		object.setTexture(texture);
+		object.setTextureMatrix(m);
+	}
+}
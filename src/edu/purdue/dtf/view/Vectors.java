@@ -0,0 +1,64 @@
+package edu.purdue.dtf.view;
+
+import static java.lang.Math.round;
+
+import com.threed.jpct.SimpleVector;
+
+import edu.purdue.dtf.game.Direction;
+import edu.purdue.dtf.game.Position;
+
+/**
+ * Vectors adapts the plain coordinates used by the core game logic to the
+ * jPCT vector type used for rendering. Keeping this here means the game
+ * package has no dependency on the 3D engine.
+ */
+final class Vectors {
+
+	// One unit vector per direction, built once since they never change.
+	private static final SimpleVector[] directions;
+
+	static {
+		Direction[] ds = Direction.values();
+		directions = new SimpleVector[ds.length];
+		for (Direction d : ds)
+			directions[d.ordinal()] = new SimpleVector(d.getVectorX(),
+					d.getVectorY(), 0.0f);
+	}
+
+	private Vectors() {
+	}
+
+	/**
+	 * Returns the unit vector pointing in direction d. The returned vector is
+	 * shared, so callers must copy it before modifying it.
+	 *
+	 * @param d
+	 *            The direction.
+	 * @return The unit vector for the direction.
+	 */
+	static SimpleVector toVector(Direction d) {
+		return directions[d.ordinal()];
+	}
+
+	/**
+	 * Converts a board position into world space on the board plane.
+	 *
+	 * @param p
+	 *            The board position.
+	 * @return A new vector at the center of the square.
+	 */
+	static SimpleVector toVector(Position p) {
+		return new SimpleVector((float) p.x, (float) p.y, 0.0f);
+	}
+
+	/**
+	 * Converts a world space vector to the nearest board position.
+	 *
+	 * @param v
+	 *            The vector on (or over) the board plane.
+	 * @return The position of the square under the vector.
+	 */
+	static Position toPosition(SimpleVector v) {
+		return Position.valueOf(round(v.x), round(v.y));
+	}
+}
@@ -0,0 +1,244 @@
+package edu.purdue.dtf.game;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Checks the board's game state handling: make and unmake, the position key
+ * kept up to date along the way, binary layouts, and state snapshots.
+ */
+public class BoardTest {
+
+	// Longest line played out from the start.
+	private static final int LINE_LENGTH = 200;
+
+	// The layouts shipped in res/raw.
+	private static final String[] LAYOUTS = { "board", "boardbankshot",
+			"boardinit" };
+
+	@Test
+	public void unmakeRestoresEverySquareAndKey() throws Exception {
+		for (String layout : new String[] { "boardinit", "boardbankshot" }) {
+			Board board = Layouts.load(layout);
+			Random random = new Random(layout.hashCode());
+			MoveGenerator generator = new MoveGenerator();
+			int[] moves = new int[MoveGenerator.MAX_MOVES];
+			int[][] squares = new int[LINE_LENGTH + 1][];
+			long[] keys = new long[LINE_LENGTH + 1];
+			int[] turns = new int[LINE_LENGTH + 1];
+			int[] left = new int[LINE_LENGTH + 1];
+			UndoRecord[] undo = new UndoRecord[LINE_LENGTH];
+			int depth = 0;
+			for (; depth < LINE_LENGTH; ++depth) {
+				squares[depth] = Layouts.squares(board);
+				keys[depth] = board.getKey();
+				turns[depth] = board.getTurn();
+				left[depth] = board.getMovesRemaining();
+				int n = generator.generate(board, moves);
+				if (n == 0)
+					break;
+				undo[depth] = board.make(moves[random.nextInt(n)]);
+			}
+			while (depth > 0) {
+				board.unmake(undo[--depth]);
+				String at = layout + " after unmaking to ply " + depth;
+				assertArrayEquals(at, squares[depth], Layouts.squares(board));
+				assertEquals(at, keys[depth], board.getKey());
+				assertEquals(at, turns[depth], board.getTurn());
+				assertEquals(at, left[depth], board.getMovesRemaining());
+			}
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void unmakeOutOfOrderFails() throws Exception {
+		Board board = Layouts.load("boardinit");
+		MoveGenerator generator = new MoveGenerator();
+		int[] moves = new int[MoveGenerator.MAX_MOVES];
+		generator.generate(board, moves);
+		UndoRecord first = board.make(moves[0]);
+		generator.generate(board, moves);
+		board.make(moves[0]);
+		board.unmake(first);
+	}
+
+	@Test
+	public void keyMatchesKeyComputedFromScratch() throws Exception {
+		Board board = Layouts.load("boardinit");
+		Random random = new Random(5);
+		MoveGenerator generator = new MoveGenerator();
+		int[] moves = new int[MoveGenerator.MAX_MOVES];
+		assertEquals(keyOf(board), board.getKey());
+		for (int ply = 0; ply < LINE_LENGTH; ++ply) {
+			int n = generator.generate(board, moves);
+			if (n == 0)
+				break;
+			board.play(moves[random.nextInt(n)]);
+			assertEquals("at ply " + ply, keyOf(board), board.getKey());
+			assertEquals("copy at ply " + ply, board.getKey(),
+					new Board(board).getKey());
+		}
+	}
+
+	@Test
+	public void transpositionsHaveTheSameKey() throws Exception {
+		// two gold steps forward, in either order
+		int a = Move.move(7 * Layouts.WIDTH + 1, 6 * Layouts.WIDTH + 1);
+		int b = Move.move(7 * Layouts.WIDTH + 4, 6 * Layouts.WIDTH + 4);
+		Board ab = Layouts.load("boardinit");
+		ab.play(a);
+		ab.play(b);
+		Board ba = Layouts.load("boardinit");
+		ba.play(b);
+		ba.play(a);
+		assertArrayEquals(Layouts.squares(ab), Layouts.squares(ba));
+		assertEquals(ab.getKey(), ba.getKey());
+		assertFalse(ab.getKey() == Layouts.load("boardinit").getKey());
+	}
+
+	@Test
+	public void layoutRoundTrip() throws Exception {
+		for (String layout : LAYOUTS) {
+			Board text = Layouts.load(layout);
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			text.writeLayout(out);
+			Board binary = new Board(Layouts.WIDTH, Layouts.HEIGHT);
+			binary.setFromLayout(new ByteArrayInputStream(out.toByteArray()));
+			assertArrayEquals(layout, Layouts.squares(text),
+					Layouts.squares(binary));
+			assertEquals(layout, text.getKey(), binary.getKey());
+		}
+	}
+
+	@Test
+	public void shippedLayoutsMatchTheirText() throws Exception {
+		for (String layout : LAYOUTS) {
+			Board binary = new Board(Layouts.WIDTH, Layouts.HEIGHT);
+			InputStream in = Layouts.openBinary(layout);
+			try {
+				binary.setFromLayout(in);
+			} finally {
+				in.close();
+			}
+			assertArrayEquals(layout + ".bin is stale, rerun LayoutConverter",
+					Layouts.squares(Layouts.load(layout)),
+					Layouts.squares(binary));
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void layoutForOtherSizeIsRefused() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Layouts.load("boardinit").writeLayout(out);
+		new Board(Layouts.HEIGHT, Layouts.WIDTH)
+				.setFromLayout(new ByteArrayInputStream(out.toByteArray()));
+	}
+
+	@Test(expected = IOException.class)
+	public void layoutCutShortIsRefused() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Layouts.load("boardinit").writeLayout(out);
+		byte[] data = Arrays.copyOf(out.toByteArray(), out.size() - 1);
+		new Board(Layouts.WIDTH, Layouts.HEIGHT)
+				.setFromLayout(new ByteArrayInputStream(data));
+	}
+
+	@Test(expected = IOException.class)
+	public void zerosAreNotALayout() throws Exception {
+		new Board(Layouts.WIDTH, Layouts.HEIGHT)
+				.setFromLayout(new ByteArrayInputStream(new byte[1024]));
+	}
+
+	@Test
+	public void stateRoundTrip() throws Exception {
+		Board board = Layouts.load("boardinit");
+		Random random = new Random(15);
+		MoveGenerator generator = new MoveGenerator();
+		int[] moves = new int[MoveGenerator.MAX_MOVES];
+		Board restored = new Board(Layouts.WIDTH, Layouts.HEIGHT);
+		for (int ply = 0; ply < LINE_LENGTH; ++ply) {
+			restored.restoreState(board.saveState());
+			String at = "at ply " + ply;
+			assertArrayEquals(at, Layouts.squares(board),
+					Layouts.squares(restored));
+			assertEquals(at, board.getKey(), restored.getKey());
+			assertEquals(at, board.getTurn(), restored.getTurn());
+			assertEquals(at, board.getMovesRemaining(),
+					restored.getMovesRemaining());
+			int n = generator.generate(board, moves);
+			if (n == 0)
+				break;
+			board.play(moves[random.nextInt(n)]);
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void restoreStateDropsUndoHistory() throws Exception {
+		Board board = Layouts.load("boardinit");
+		byte[] state = board.saveState();
+		int[] moves = new int[MoveGenerator.MAX_MOVES];
+		new MoveGenerator().generate(board, moves);
+		UndoRecord u = board.make(moves[0]);
+		board.restoreState(state);
+		board.unmake(u);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void stateFromOtherVersionIsRefused() throws Exception {
+		byte[] state = Layouts.load("boardinit").saveState();
+		++state[2];
+		new Board(Layouts.WIDTH, Layouts.HEIGHT).restoreState(state);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void stateForOtherSizeIsRefused() throws Exception {
+		byte[] state = Layouts.load("boardinit").saveState();
+		new Board(Layouts.HEIGHT, Layouts.WIDTH).restoreState(state);
+	}
+
+	@Test
+	public void invalidStateLeavesBoardUnchanged() throws Exception {
+		Board board = Layouts.load("boardinit");
+		int[] squares = Layouts.squares(board);
+		long key = board.getKey();
+		byte[] state = Layouts.load("boardinit").saveState();
+		// a bad turn, then a piece with more hit points than it can have
+		state[5] = 7;
+		assertRefused(board, state);
+		state = Layouts.load("boardinit").saveState();
+		int flag = state.length - 3;
+		state[flag] = (byte) Square.withHitPoints(state[flag] & 0xff, 7);
+		assertRefused(board, state);
+		assertArrayEquals(squares, Layouts.squares(board));
+		assertEquals(key, board.getKey());
+	}
+
+	private static void assertRefused(Board board, byte[] state) {
+		try {
+			board.restoreState(state);
+			fail("invalid snapshot restored");
+		} catch (IllegalArgumentException expected) {
+		}
+	}
+
+	/**
+	 * Works out a board's key from its squares and turn alone.
+	 */
+	private static long keyOf(Board board) {
+		long key = Zobrist.turn(board.getTurn(), board.getMovesRemaining());
+		for (int i = 0; i < board.getWidth() * board.getHeight(); ++i)
+			key ^= Zobrist.square(i, board.getSquare(i));
+		return key;
+	}
+}
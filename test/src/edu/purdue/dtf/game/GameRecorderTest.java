@@ -0,0 +1,140 @@
+package edu.purdue.dtf.game;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Checks that games written by GameRecorder read back through GameReader,
+ * including games cut short part way through.
+ */
+public class GameRecorderTest {
+
+	@Test
+	public void finishedGamesReplay() throws Exception {
+		ByteArrayOutputStream log = new ByteArrayOutputStream();
+		GameRecorder recorder = new GameRecorder(log);
+		Board first = record(recorder, 1, 300, true);
+		Board second = record(recorder, 2, 40, true);
+
+		GameReader reader = reader(log);
+		assertReplays(reader, first, true);
+		assertReplays(reader, second, true);
+		assertFalse(reader.nextGame());
+	}
+
+	@Test
+	public void gameCutShortIsFollowedByTheNext() throws Exception {
+		ByteArrayOutputStream log = new ByteArrayOutputStream();
+		Board first = record(new GameRecorder(log), 3, 25, false);
+		// the app is restarted, and starts a new recorder on the same log
+		Board second = record(new GameRecorder(log), 4, 30, true);
+		Board third = record(new GameRecorder(log), 5, 10, false);
+
+		GameReader reader = reader(log);
+		assertReplays(reader, first, false);
+		assertReplays(reader, second, true);
+		assertReplays(reader, third, false);
+		assertFalse(reader.nextGame());
+	}
+
+	@Test
+	public void gameCutMidActionIsFollowedByTheNext() throws Exception {
+		ByteArrayOutputStream first = new ByteArrayOutputStream();
+		record(new GameRecorder(first), 6, 12, false);
+		ByteArrayOutputStream log = new ByteArrayOutputStream();
+		// keep only the first byte of the last action
+		log.write(first.toByteArray(), 0, first.size() - 1);
+		Board second = record(new GameRecorder(log), 7, 20, true);
+
+		GameReader reader = reader(log);
+		assertTrue(reader.nextGame());
+		while (reader.nextMove() >= 0)
+			;
+		assertEquals(11, reader.getActionsRead());
+		assertFalse(reader.isFinished());
+		assertReplays(reader, second, true);
+		assertFalse(reader.nextGame());
+	}
+
+	@Test
+	public void skippingGamesUnread() throws Exception {
+		ByteArrayOutputStream log = new ByteArrayOutputStream();
+		record(new GameRecorder(log), 8, 50, false);
+		record(new GameRecorder(log), 9, 50, true);
+		Board last = record(new GameRecorder(log), 10, 5, true);
+
+		GameReader reader = reader(log);
+		assertTrue(reader.nextGame());
+		assertTrue(reader.nextGame());
+		assertReplays(reader, last, true);
+	}
+
+	@Test(expected = IOException.class)
+	public void corruptActionIsReported() throws Exception {
+		ByteArrayOutputStream log = new ByteArrayOutputStream();
+		record(new GameRecorder(log), 11, 5, true);
+		byte[] data = log.toByteArray();
+		// an action whose second byte has the action bit set
+		data[GameRecorder.HEADER_SIZE + 1] |= GameRecorder.ACTION_BIT;
+		GameReader reader = new GameReader(new ByteArrayInputStream(data));
+		assertTrue(reader.nextGame());
+		reader.nextMove();
+	}
+
+	/**
+	 * Records random legal actions from the starting layout through the
+	 * board's events.
+	 *
+	 * @return The board in the position the game reached.
+	 */
+	private static Board record(GameRecorder recorder, long seed, int length,
+			boolean end) throws IOException {
+		Board board = Layouts.load("boardinit");
+		board.addEventListener(recorder, GameRecorder.EVENTS);
+		recorder.begin(board);
+		Random random = new Random(seed);
+		MoveGenerator generator = new MoveGenerator();
+		int[] moves = new int[MoveGenerator.MAX_MOVES];
+		for (int k = 0; k < length; ++k) {
+			int n = generator.generate(board, moves);
+			if (n == 0)
+				break;
+			board.play(moves[random.nextInt(n)]);
+		}
+		if (end)
+			recorder.end();
+		else
+			recorder.flush();
+		assertEquals(null, recorder.getError());
+		return board;
+	}
+
+	private static GameReader reader(ByteArrayOutputStream log) {
+		return new GameReader(new ByteArrayInputStream(log.toByteArray()));
+	}
+
+	/**
+	 * Replays the next game of a log from the starting layout and checks it
+	 * ends in the position it was recorded up to.
+	 */
+	private static void assertReplays(GameReader reader, Board expected,
+			boolean finished) throws IOException {
+		assertTrue(reader.nextGame());
+		Board board = Layouts.load("boardinit");
+		assertEquals(board.getKey(), reader.getLayoutKey());
+		int played = reader.replay(board);
+		assertEquals(played, reader.getActionsRead());
+		assertEquals(finished, reader.isFinished());
+		assertArrayEquals(Layouts.squares(expected), Layouts.squares(board));
+		assertEquals(expected.getKey(), board.getKey());
+	}
+}
@@ -0,0 +1,61 @@
+package edu.purdue.dtf.game;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Layouts loads the text board layouts from layouts, and the binary ones the
+ * game ships from res/raw, for the tests. The directories can be changed with
+ * the dtf.layouts and dtf.raw system properties when the tests are not run
+ * from the project root.
+ */
+final class Layouts {
+
+	// Size of the standard game board.
+	static final int WIDTH = 11;
+	static final int HEIGHT = 9;
+
+	private Layouts() {
+	}
+
+	/**
+	 * Creates a standard size board set up from a layout file.
+	 *
+	 * @param name
+	 *            The file name without the .txt, such as "boardinit".
+	 */
+	static Board load(String name) throws IOException {
+		File dir = new File(System.getProperty("dtf.layouts", "layouts"));
+		InputStream in = new FileInputStream(new File(dir, name + ".txt"));
+		try {
+			Board board = new Board(WIDTH, HEIGHT);
+			board.setFromStream(in);
+			return board;
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Opens the binary layout the game ships for a layout file.
+	 *
+	 * @param name
+	 *            The file name without the .bin, such as "boardinit".
+	 */
+	static InputStream openBinary(String name) throws IOException {
+		File dir = new File(System.getProperty("dtf.raw", "res/raw"));
+		return new FileInputStream(new File(dir, name + ".bin"));
+	}
+
+	/**
+	 * Gets every square of a board, for comparing positions.
+	 */
+	static int[] squares(Board board) {
+		int[] squares = new int[board.getWidth() * board.getHeight()];
+		for (int i = 0; i < squares.length; ++i)
+			squares[i] = board.getSquare(i);
+		return squares;
+	}
+}
@@ -0,0 +1,42 @@
+package edu.purdue.dtf.game;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Checks move generation, and make and unmake under it, against perft counts
+ * of the starting layout. A rule change that alters these counts must update
+ * them on purpose.
+ */
+public class MoveGeneratorTest {
+
+	@Test
+	public void perftFromStart() throws Exception {
+		Board board = Layouts.load("boardinit");
+		MoveGenerator generator = new MoveGenerator();
+		assertEquals(84, generator.perft(board, 1));
+		assertEquals(6818, generator.perft(board, 2));
+		assertEquals(535498, generator.perft(board, 3));
+	}
+
+	@Test
+	public void perftLeavesBoardUnchanged() throws Exception {
+		Board board = Layouts.load("boardinit");
+		int[] squares = Layouts.squares(board);
+		long key = board.getKey();
+		new MoveGenerator().perft(board, 3);
+		assertArrayEquals(squares, Layouts.squares(board));
+		assertEquals(key, board.getKey());
+		assertEquals(Square.GOLD, board.getTurn());
+		assertEquals(3, board.getMovesRemaining());
+	}
+
+	@Test
+	public void nothingLegalOnceGameIsOver() throws Exception {
+		Board board = new Board(Layouts.WIDTH, Layouts.HEIGHT);
+		assertEquals(0, new MoveGenerator().generate(board,
+				new int[MoveGenerator.MAX_MOVES]));
+	}
+}
@@ -0,0 +1,144 @@
+package edu.purdue.dtf.tools;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+/**
+ * AtlasPacker packs a set of images into one texture atlas, so the models
+ * that use them can share a single texture (see
+ * edu.purdue.dtf.view.TextureAtlas). It writes the atlas image, whose sides
+ * are the smallest powers of two that fit, and an index of where each image
+ * went. Usage: AtlasPacker atlas.png atlas.txt image.png ...
+ *
+ * The index is a line with the size of the atlas, then a line per image with
+ * its file name and its x, y, width and height in pixels:
+ *
+ * <pre>
+ * 1024 1024
+ * gold.png 512 0 256 256
+ * </pre>
+ *
+ * Images are placed biggest first with a skyline packer, which fills a
+ * square atlas completely when the images are powers of two.
+ */
+public final class AtlasPacker {
+
+	private AtlasPacker() {
+	}
+
+	/**
+	 * An image and where it was placed.
+	 */
+	static final class Region {
+		final String name;
+		final BufferedImage image;
+		int x;
+		int y;
+
+		Region(String name, BufferedImage image) {
+			this.name = name;
+			this.image = image;
+		}
+
+		int width() {
+			return image.getWidth();
+		}
+
+		int height() {
+			return image.getHeight();
+		}
+	}
+
+	/**
+	 * Places the regions in an atlas of the given size, bottom-left first on
+	 * a skyline.
+	 *
+	 * @return False if they do not all fit.
+	 */
+	static boolean pack(List<Region> regions, int width, int height) {
+		// height of the packed area at each column
+		int[] skyline = new int[width];
+		for (Region r : regions) {
+			int bestX = -1, bestY = Integer.MAX_VALUE;
+			for (int x = 0; x + r.width() <= width; ++x) {
+				int y = 0;
+				for (int k = x; k < x + r.width(); ++k)
+					y = Math.max(y, skyline[k]);
+				if (y + r.height() <= height && y < bestY) {
+					bestX = x;
+					bestY = y;
+				}
+			}
+			if (bestX < 0)
+				return false;
+			r.x = bestX;
+			r.y = bestY;
+			Arrays.fill(skyline, bestX, bestX + r.width(), bestY + r.height());
+		}
+		return true;
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 3) {
+			System.err.println("usage: AtlasPacker atlas.png atlas.txt image.png ...");
+			System.exit(2);
+		}
+		List<Region> regions = new ArrayList<Region>();
+		boolean alpha = false;
+		for (int k = 2; k < args.length; ++k) {
+			File file = new File(args[k]);
+			BufferedImage image = ImageIO.read(file);
+			if (image == null) {
+				System.err.println(file + ": not an image");
+				System.exit(1);
+			}
+			alpha |= image.getColorModel().hasAlpha();
+			regions.add(new Region(file.getName(), image));
+		}
+		// biggest first, then by name so the layout is repeatable
+		Collections.sort(regions, new Comparator<Region>() {
+			public int compare(Region a, Region b) {
+				if (a.height() != b.height())
+					return b.height() - a.height();
+				if (a.width() != b.width())
+					return b.width() - a.width();
+				return a.name.compareTo(b.name);
+			}
+		});
+		int width = 1, height = 1;
+		while (!pack(regions, width, height)) {
+			if (width <= height)
+				width *= 2;
+			else
+				height *= 2;
+		}
+		BufferedImage atlas = new BufferedImage(width, height,
+				alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+		PrintWriter index = new PrintWriter(new OutputStreamWriter(
+				new FileOutputStream(args[1]), "US-ASCII"));
+		try {
+			index.println(width + " " + height);
+			for (Region r : regions) {
+				atlas.getGraphics().drawImage(r.image, r.x, r.y, null);
+				index.println(r.name + " " + r.x + " " + r.y + " " + r.width()
+						+ " " + r.height());
+			}
+		} finally {
+			index.close();
+		}
+		ImageIO.write(atlas, "png", new File(args[0]));
+		System.out.println(regions.size() + " images -> " + args[0] + " ("
+				+ width + " x " + height + ")");
+	}
+}
@@ -0,0 +1,87 @@
+package edu.purdue.dtf.tools;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.threed.jpct.DeSerializer;
+import com.threed.jpct.Loader;
+import com.threed.jpct.Object3D;
+
+/**
+ * ModelSerializer turns the game's .3ds models into jPCT serialized objects,
+ * which the game loads much faster (see edu.purdue.dtf.view.ModelCache). It
+ * runs on the desktop against desktop jPCT, which has the serializer. Usage:
+ * ModelSerializer outdir model.3ds[:scale] ...
+ *
+ * A model is written as outdir/name.ser, or outdir/name@scale.ser when it is
+ * loaded at a scale other than 1, which is the name ModelCache looks for.
+ */
+public final class ModelSerializer {
+
+	private ModelSerializer() {
+	}
+
+	/**
+	 * Gets the name a model is serialized under, the same way as
+	 * ModelCache.modelName.
+	 */
+	static String modelName(String resource, float scale) {
+		if (scale == 1.0f)
+			return resource;
+		if (scale == (int) scale)
+			return resource + "@" + (int) scale;
+		return resource + "@" + scale;
+	}
+
+	/**
+	 * Loads one model the way the game would and serializes it.
+	 *
+	 * @throws IOException
+	 *             If the output cannot be written.
+	 */
+	static File serialize(File model, float scale, File dir) throws IOException {
+		String name = model.getName();
+		if (name.endsWith(".3ds"))
+			name = name.substring(0, name.length() - 4);
+		Object3D object = Loader.load3DS(model.getPath(), scale)[0];
+		object.build();
+		File ser = new File(dir, modelName(name, scale) + ".ser");
+		OutputStream out = new BufferedOutputStream(new FileOutputStream(ser));
+		try {
+			new DeSerializer().serialize(object, out, true);
+		} finally {
+			out.close();
+		}
+		return ser;
+	}
+
+	public static void main(String[] args) {
+		if (args.length < 2) {
+			System.err.println("usage: ModelSerializer outdir model.3ds[:scale] ...");
+			System.exit(2);
+		}
+		File dir = new File(args[0]);
+		boolean failed = false;
+		for (int k = 1; k < args.length; ++k) {
+			String arg = args[k];
+			float scale = 1.0f;
+			int colon = arg.lastIndexOf(':');
+			if (colon > 0) {
+				scale = Float.parseFloat(arg.substring(colon + 1));
+				arg = arg.substring(0, colon);
+			}
+			File model = new File(arg);
+			try {
+				System.out.println(model + " -> " + serialize(model, scale, dir));
+			} catch (IOException e) {
+				System.err.println(model + ": " + e.getMessage());
+				failed = true;
+			}
+		}
+		if (failed)
+			System.exit(1);
+	}
+}